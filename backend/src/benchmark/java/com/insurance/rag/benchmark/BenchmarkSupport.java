@@ -0,0 +1,97 @@
+package com.insurance.rag.benchmark;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Shared helpers for the opt-in benchmark suites. A suite is selected with
+ * --app.benchmark.suite=&lt;name&gt; (usually together with --spring.main.web-application-type=none),
+ * runs once at startup, logs its report and shuts the application down.
+ */
+final class BenchmarkSupport {
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Deterministic generator of clustered unit vectors, which resemble real embeddings far
+     * more closely than uniform noise (uniform vectors make every ANN index look bad)
+     */
+    static final class SyntheticVectors {
+
+        private final Random random;
+        private final float[][] centroids;
+        private final float noise;
+
+        SyntheticVectors(long seed, int dimensions, int clusters, float noise) {
+            this.random = new Random(seed);
+            this.noise = noise;
+            this.centroids = new float[clusters][];
+            for (int i = 0; i < clusters; i++) {
+                centroids[i] = gaussian(dimensions, 1.0f);
+            }
+        }
+
+        float[] next() {
+            float[] centroid = centroids[random.nextInt(centroids.length)];
+            float[] vector = new float[centroid.length];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = centroid[i] + (float) random.nextGaussian() * noise;
+            }
+            return normalize(vector);
+        }
+
+        private float[] gaussian(int dimensions, float scale) {
+            float[] vector = new float[dimensions];
+            for (int i = 0; i < dimensions; i++) {
+                vector[i] = (float) random.nextGaussian() * scale;
+            }
+            return normalize(vector);
+        }
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        float inverse = norm > 0 ? (float) (1.0 / Math.sqrt(norm)) : 0f;
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] *= inverse;
+        }
+        return vector;
+    }
+
+    static double percentileMillis(long[] nanos, double percentile) {
+        if (nanos.length == 0) {
+            return 0;
+        }
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+    }
+
+    static double recallAtK(List<Long> expected, List<Long> actual) {
+        if (expected.isEmpty()) {
+            return 1.0;
+        }
+        Set<Long> expectedIds = new HashSet<>(expected);
+        long hits = actual.stream().filter(expectedIds::contains).count();
+        return (double) hits / expected.size();
+    }
+
+    static double mean(double[] values) {
+        return values.length == 0 ? 0 : Arrays.stream(values).average().orElse(0);
+    }
+
+    static void exit(ConfigurableApplicationContext context) {
+        System.exit(SpringApplication.exit(context, () -> 0));
+    }
+}
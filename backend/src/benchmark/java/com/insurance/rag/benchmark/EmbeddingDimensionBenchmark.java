@@ -0,0 +1,209 @@
+package com.insurance.rag.benchmark;
+
+import com.insurance.common.type.PgVectorType;
+import com.insurance.rag.dto.VectorSearchProfile;
+import com.insurance.rag.repository.VectorEmbeddingRepository;
+import com.pgvector.PGvector;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Measures what Matryoshka truncation of real embeddings costs in recall: recall@k of 512- and
+ * 256-dimension search (exact and hnsw) against exact search on the full 1536 dimensions, plus
+ * vector and index size and p50/p99 latency. Truncation only holds up on embeddings trained for it,
+ * so the vectors come from embedding_cache rather than a synthetic generator; sampled rows serve
+ * as queries and are excluded from their own results.
+ *
+ * <pre>
+ * java -jar app-benchmark.jar --spring.main.web-application-type=none \
+ *     --app.benchmark.suite=embedding-dimensions --app.benchmark.rows=100000
+ * </pre>
+ */
+@Component
+@ConditionalOnProperty(name = "app.benchmark.suite", havingValue = "embedding-dimensions")
+@RequiredArgsConstructor
+@Slf4j
+public class EmbeddingDimensionBenchmark implements CommandLineRunner {
+
+    private static final String TABLE = "bench_dimension_embeddings";
+    private static final int FULL_DIMENSIONS = 1536;
+    private static final List<Integer> REDUCED_DIMENSIONS = List.of(512, 256);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final VectorEmbeddingRepository vectorEmbeddingRepository;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${app.benchmark.rows:100000}")
+    private int rows;
+
+    @Value("${app.benchmark.queries:200}")
+    private int queries;
+
+    @Value("${app.benchmark.k:10}")
+    private int k;
+
+    @Value("${app.benchmark.hnsw-m:16}")
+    private int hnswM;
+
+    @Value("${app.benchmark.hnsw-ef-construction:64}")
+    private int hnswEfConstruction;
+
+    @Value("${spring.ai.openai.embedding.options.model:text-embedding-3-small}")
+    private String model;
+
+    @Override
+    public void run(String... args) {
+        int loaded = prepareTable();
+        if (loaded <= queries) {
+            log.error("Embedding dimension benchmark needs more than {} cached {} embeddings, found {}; index some documents first",
+                queries, model, loaded);
+            BenchmarkSupport.exit(context);
+            return;
+        }
+        log.info("Embedding dimension benchmark: {} {} embeddings, {} queries, k={}", loaded, model, queries, k);
+
+        List<Long> queryIds = jdbcTemplate.queryForList(
+            "SELECT id FROM " + TABLE + " ORDER BY md5(id::text) LIMIT ?", Long.class, queries);
+        List<float[]> queryVectors = new ArrayList<>(queryIds.size());
+        for (Long id : queryIds) {
+            queryVectors.add(jdbcTemplate.queryForObject(
+                "SELECT embedding FROM " + TABLE + " WHERE id = ?",
+                (rs, rowNum) -> PgVectorType.toArray(rs.getObject("embedding")), id));
+        }
+
+        dropIndexes();
+        List<List<Long>> groundTruth = new ArrayList<>(queryIds.size());
+        for (int i = 0; i < queryIds.size(); i++) {
+            groundTruth.add(search("embedding", queryVectors.get(i), queryIds.get(i), VectorSearchProfile.EXACT));
+        }
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-6s %-6s %10s %10s %10s %10s %10s",
+            "dims", "search", "vector(B)", "index(MB)", "p50(ms)", "p99(ms)", "recall@" + k));
+
+        for (int dimensions : REDUCED_DIMENSIONS) {
+            String column = "embedding_" + dimensions;
+            List<float[]> reducedQueries = queryVectors.stream()
+                .map(vector -> BenchmarkSupport.normalize(Arrays.copyOf(vector, dimensions)))
+                .toList();
+            runSearches(dimensions, column, "exact", VectorSearchProfile.EXACT, 0, reducedQueries, queryIds, groundTruth, report);
+
+            String indexName = "bench_dimension_hnsw_" + dimensions;
+            double indexMegabytes = createIndex(indexName, column);
+            runSearches(dimensions, column, "hnsw", VectorSearchProfile.BALANCED, indexMegabytes,
+                reducedQueries, queryIds, groundTruth, report);
+        }
+
+        // Full-dimension hnsw as the latency and size baseline
+        double fullIndexMegabytes = createIndex("bench_dimension_hnsw_full", "embedding");
+        runSearches(FULL_DIMENSIONS, "embedding", "hnsw", VectorSearchProfile.BALANCED, fullIndexMegabytes,
+            queryVectors, queryIds, groundTruth, report);
+
+        log.info("Embedding dimension benchmark results:\n{}", String.join("\n", report));
+        BenchmarkSupport.exit(context);
+    }
+
+    private void runSearches(int dimensions, String column, String searchName, VectorSearchProfile profile,
+                             double indexMegabytes, List<float[]> queryVectors, List<Long> queryIds,
+                             List<List<Long>> groundTruth, List<String> report) {
+        // Warm up caches and the query plan before timing
+        for (int i = 0; i < Math.min(20, queryVectors.size()); i++) {
+            search(column, queryVectors.get(i), queryIds.get(i), profile);
+        }
+
+        long[] latencies = new long[queryVectors.size()];
+        double[] recalls = new double[queryVectors.size()];
+        for (int i = 0; i < queryVectors.size(); i++) {
+            long start = System.nanoTime();
+            List<Long> ids = search(column, queryVectors.get(i), queryIds.get(i), profile);
+            latencies[i] = System.nanoTime() - start;
+            recalls[i] = BenchmarkSupport.recallAtK(groundTruth.get(i), ids);
+        }
+
+        Double vectorBytes = jdbcTemplate.queryForObject(
+            "SELECT AVG(pg_column_size(" + column + ")) FROM " + TABLE, Double.class);
+        report.add(String.format("%-6d %-6s %10.0f %10.1f %10.2f %10.2f %10.3f", dimensions, searchName,
+            vectorBytes != null ? vectorBytes : 0, indexMegabytes,
+            BenchmarkSupport.percentileMillis(latencies, 50),
+            BenchmarkSupport.percentileMillis(latencies, 99),
+            BenchmarkSupport.mean(recalls)));
+    }
+
+    private List<Long> search(String column, float[] query, Long excludeId, VectorSearchProfile profile) {
+        return transactionTemplate.execute(status -> {
+            vectorEmbeddingRepository.applySearchProfile(profile, k);
+            return jdbcTemplate.queryForList(
+                "SELECT id FROM " + TABLE + " WHERE id <> ? ORDER BY " + column + " <=> ? LIMIT ?",
+                Long.class,
+                excludeId,
+                new PGvector(query),
+                k
+            );
+        });
+    }
+
+    private double createIndex(String indexName, String column) {
+        dropIndexes();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("CREATE INDEX " + indexName + " ON " + TABLE + " USING hnsw (" + column +
+                    " vector_cosine_ops) WITH (m = " + hnswM + ", ef_construction = " + hnswEfConstruction + ")");
+            }
+            return null;
+        });
+        jdbcTemplate.execute("ANALYZE " + TABLE);
+        Long indexBytes = jdbcTemplate.queryForObject("SELECT pg_relation_size(?::regclass)", Long.class, indexName);
+        return indexBytes != null ? indexBytes / (1024.0 * 1024.0) : 0;
+    }
+
+    private int prepareTable() {
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE IF NOT EXISTS " + TABLE +
+            " (id BIGSERIAL PRIMARY KEY, embedding vector(1536) NOT NULL, " +
+            "embedding_512 vector(512), embedding_256 vector(256))");
+        dropIndexes();
+        jdbcTemplate.execute("TRUNCATE " + TABLE + " RESTART IDENTITY");
+
+        List<PGvector> vectors = jdbcTemplate.query(
+            "SELECT embedding FROM embedding_cache WHERE model = ? AND dimensions = ? LIMIT ?",
+            (rs, rowNum) -> new PGvector(decode(rs.getBytes("embedding"))),
+            model, FULL_DIMENSIONS, rows);
+        jdbcTemplate.batchUpdate("INSERT INTO " + TABLE + " (embedding) VALUES (?)", vectors, 1000,
+            (ps, vector) -> ps.setObject(1, vector));
+
+        // Matryoshka truncation, computed the same way as EmbeddingService
+        for (int dimensions : REDUCED_DIMENSIONS) {
+            jdbcTemplate.update("UPDATE " + TABLE + " SET embedding_" + dimensions +
+                " = l2_normalize(subvector(embedding, 1, " + dimensions + "))");
+        }
+        jdbcTemplate.execute("ANALYZE " + TABLE);
+        return vectors.size();
+    }
+
+    private void dropIndexes() {
+        jdbcTemplate.execute("DROP INDEX IF EXISTS bench_dimension_hnsw_512");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS bench_dimension_hnsw_256");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS bench_dimension_hnsw_full");
+    }
+
+    private static float[] decode(byte[] bytes) {
+        float[] embedding = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(embedding);
+        return embedding;
+    }
+}
@@ -0,0 +1,66 @@
+package com.insurance.rag.benchmark;
+
+import com.insurance.rag.ranking.MaximalMarginalRelevance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmark of the in-process MMR re-rank for a typical candidate set (100 clustered
+ * 1536-dimension vectors, 10 picks). Needs no database. Sample-time mode reports p50/p99; run with
+ * -prof gc for bytes allocated per call.
+ *
+ * <pre>
+ * java -cp "target/classes:$(cat target/benchmark.classpath)" org.openjdk.jmh.Main MmrBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MmrBenchmark {
+
+    @Param("100")
+    private int candidates;
+
+    @Param("1536")
+    private int dimensions;
+
+    @Param("10")
+    private int k;
+
+    @Param({"0.9", "0.7", "0.5"})
+    private double lambda;
+
+    private float[] vectors;
+    private double[] relevance;
+
+    @Setup
+    public void setUp() {
+        // Few clusters with noticeable noise: many near-duplicates, which is the case MMR exists for
+        BenchmarkSupport.SyntheticVectors generator = new BenchmarkSupport.SyntheticVectors(42, dimensions, 8, 0.02f);
+        vectors = new float[candidates * dimensions];
+        relevance = new double[candidates];
+        for (int i = 0; i < candidates; i++) {
+            System.arraycopy(generator.next(), 0, vectors, i * dimensions, dimensions);
+            relevance[i] = 1.0 - (double) i / candidates;
+        }
+    }
+
+    @Benchmark
+    public int[] select() {
+        return MaximalMarginalRelevance.select(vectors, dimensions, relevance, lambda, k);
+    }
+}
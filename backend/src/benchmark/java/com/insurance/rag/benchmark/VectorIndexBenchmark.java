@@ -0,0 +1,216 @@
+package com.insurance.rag.benchmark;
+
+import com.insurance.rag.dto.EmbeddingQuantization;
+import com.insurance.rag.dto.VectorSearchProfile;
+import com.insurance.rag.repository.VectorEmbeddingRepository;
+import com.pgvector.PGvector;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Compares ivfflat and hnsw on a synthetic table: build time, index size, p50/p99 query latency
+ * and recall@k against exact search for each {@link VectorSearchProfile}. The halfvec and bit
+ * quantized hnsw indexes are measured the way the application queries them, over-fetching and
+ * rescoring with full precision, so their rows show memory saved against recall lost.
+ *
+ * <pre>
+ * java -jar app-benchmark.jar --spring.main.web-application-type=none \
+ *     --app.benchmark.suite=vector-index --app.benchmark.rows=1000000
+ * </pre>
+ */
+@Component
+@ConditionalOnProperty(name = "app.benchmark.suite", havingValue = "vector-index")
+@RequiredArgsConstructor
+@Slf4j
+public class VectorIndexBenchmark implements CommandLineRunner {
+
+    private static final String TABLE = "bench_vector_embeddings";
+    private static final int INSERT_BATCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final VectorEmbeddingRepository vectorEmbeddingRepository;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${app.benchmark.rows:1000000}")
+    private int rows;
+
+    @Value("${app.benchmark.dimensions:1536}")
+    private int dimensions;
+
+    @Value("${app.benchmark.queries:200}")
+    private int queries;
+
+    @Value("${app.benchmark.k:10}")
+    private int k;
+
+    @Value("${app.benchmark.hnsw-m:16}")
+    private int hnswM;
+
+    @Value("${app.benchmark.hnsw-ef-construction:64}")
+    private int hnswEfConstruction;
+
+    @Value("${app.benchmark.maintenance-work-mem:1GB}")
+    private String maintenanceWorkMem;
+
+    @Override
+    public void run(String... args) {
+        log.info("Vector index benchmark: {} rows x {} dimensions, {} queries, k={}", rows, dimensions, queries, k);
+
+        prepareTable();
+
+        BenchmarkSupport.SyntheticVectors queryGenerator = new BenchmarkSupport.SyntheticVectors(7, dimensions, 1000, 0.3f);
+        List<float[]> queryVectors = new ArrayList<>(queries);
+        for (int i = 0; i < queries; i++) {
+            queryVectors.add(queryGenerator.next());
+        }
+
+        dropIndexes();
+        List<List<Long>> groundTruth = new ArrayList<>(queries);
+        for (float[] query : queryVectors) {
+            groundTruth.add(search(query, VectorSearchProfile.EXACT, EmbeddingQuantization.NONE));
+        }
+
+        List<String> report = new ArrayList<>();
+        report.add(String.format("%-10s %-9s %10s %10s %10s %10s %10s",
+            "index", "profile", "build(s)", "size(MB)", "p50(ms)", "p99(ms)", "recall@" + k));
+
+        String hnswWith = " WITH (m = " + hnswM + ", ef_construction = " + hnswEfConstruction + ")";
+        int lists = Math.max(10, rows / 1000);
+        runIndex("ivfflat", "bench_ivfflat",
+            "CREATE INDEX bench_ivfflat ON " + TABLE + " USING ivfflat (embedding vector_cosine_ops) WITH (lists = " + lists + ")",
+            EmbeddingQuantization.NONE, queryVectors, groundTruth, report);
+        runIndex("hnsw", "bench_hnsw",
+            "CREATE INDEX bench_hnsw ON " + TABLE + " USING hnsw (embedding vector_cosine_ops)" + hnswWith,
+            EmbeddingQuantization.NONE, queryVectors, groundTruth, report);
+        runIndex("hnsw-half", "bench_hnsw_halfvec",
+            "CREATE INDEX bench_hnsw_halfvec ON " + TABLE + " USING hnsw ((embedding::halfvec(" + dimensions + ")) halfvec_cosine_ops)" + hnswWith,
+            EmbeddingQuantization.HALF, queryVectors, groundTruth, report);
+        runIndex("hnsw-bit", "bench_hnsw_bit",
+            "CREATE INDEX bench_hnsw_bit ON " + TABLE + " USING hnsw ((binary_quantize(embedding)::bit(" + dimensions + ")) bit_hamming_ops)" + hnswWith,
+            EmbeddingQuantization.BINARY, queryVectors, groundTruth, report);
+
+        log.info("Vector index benchmark results:\n{}", String.join("\n", report));
+        BenchmarkSupport.exit(context);
+    }
+
+    private void runIndex(String name, String indexName, String createSql, EmbeddingQuantization quantization,
+                          List<float[]> queryVectors, List<List<Long>> groundTruth, List<String> report) {
+        dropIndexes();
+        long buildStart = System.nanoTime();
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET maintenance_work_mem = '" + maintenanceWorkMem + "'");
+                statement.execute(createSql);
+            }
+            return null;
+        });
+        double buildSeconds = (System.nanoTime() - buildStart) / 1e9;
+        jdbcTemplate.execute("ANALYZE " + TABLE);
+        Long indexBytes = jdbcTemplate.queryForObject("SELECT pg_relation_size(?::regclass)", Long.class, indexName);
+        double indexMegabytes = indexBytes != null ? indexBytes / (1024.0 * 1024.0) : 0;
+
+        for (VectorSearchProfile profile : List.of(VectorSearchProfile.FAST, VectorSearchProfile.BALANCED, VectorSearchProfile.ACCURATE)) {
+            // Warm up caches and the query plan before timing
+            for (int i = 0; i < Math.min(20, queryVectors.size()); i++) {
+                search(queryVectors.get(i), profile, quantization);
+            }
+
+            long[] latencies = new long[queryVectors.size()];
+            double[] recalls = new double[queryVectors.size()];
+            for (int i = 0; i < queryVectors.size(); i++) {
+                long start = System.nanoTime();
+                List<Long> ids = search(queryVectors.get(i), profile, quantization);
+                latencies[i] = System.nanoTime() - start;
+                recalls[i] = BenchmarkSupport.recallAtK(groundTruth.get(i), ids);
+            }
+
+            report.add(String.format("%-10s %-9s %10.1f %10.1f %10.2f %10.2f %10.3f", name, profile, buildSeconds, indexMegabytes,
+                BenchmarkSupport.percentileMillis(latencies, 50),
+                BenchmarkSupport.percentileMillis(latencies, 99),
+                BenchmarkSupport.mean(recalls)));
+        }
+    }
+
+    private List<Long> search(float[] query, VectorSearchProfile profile, EmbeddingQuantization quantization) {
+        if (quantization == EmbeddingQuantization.NONE) {
+            return transactionTemplate.execute(status -> {
+                vectorEmbeddingRepository.applySearchProfile(profile, k);
+                return jdbcTemplate.queryForList(
+                    "SELECT id FROM " + TABLE + " ORDER BY embedding <=> ? LIMIT ?",
+                    Long.class,
+                    new PGvector(query),
+                    k
+                );
+            });
+        }
+
+        // Same shape as VectorEmbeddingRepositoryImpl: quantized first pass, full-precision rescoring
+        int candidates = k * quantization.getCandidateMultiplier();
+        String candidateOrder = quantization == EmbeddingQuantization.HALF
+            ? "embedding::halfvec(" + dimensions + ") <=> CAST(? AS vector)::halfvec(" + dimensions + ")"
+            : "binary_quantize(embedding)::bit(" + dimensions + ") <~> binary_quantize(CAST(? AS vector))";
+        PGvector vector = new PGvector(query);
+        return transactionTemplate.execute(status -> {
+            vectorEmbeddingRepository.applySearchProfile(profile, candidates);
+            return jdbcTemplate.queryForList(
+                "SELECT id FROM (SELECT id, embedding FROM " + TABLE + " ORDER BY " + candidateOrder + " LIMIT ?) candidates " +
+                    "ORDER BY embedding <=> ? LIMIT ?",
+                Long.class,
+                vector,
+                candidates,
+                vector,
+                k
+            );
+        });
+    }
+
+    private void prepareTable() {
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE IF NOT EXISTS " + TABLE +
+            " (id BIGSERIAL PRIMARY KEY, embedding vector(" + dimensions + ") NOT NULL)");
+
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + TABLE, Long.class);
+        if (existing != null && existing == rows) {
+            log.info("Reusing {} existing rows in {}", existing, TABLE);
+            return;
+        }
+
+        log.info("Loading {} synthetic vectors into {}", rows, TABLE);
+        dropIndexes();
+        jdbcTemplate.execute("TRUNCATE " + TABLE + " RESTART IDENTITY");
+
+        BenchmarkSupport.SyntheticVectors generator = new BenchmarkSupport.SyntheticVectors(42, dimensions, 1000, 0.3f);
+        List<PGvector> batch = new ArrayList<>(INSERT_BATCH_SIZE);
+        for (int i = 0; i < rows; i++) {
+            batch.add(new PGvector(generator.next()));
+            if (batch.size() == INSERT_BATCH_SIZE || i == rows - 1) {
+                jdbcTemplate.batchUpdate("INSERT INTO " + TABLE + " (embedding) VALUES (?)", batch, batch.size(),
+                    (ps, vector) -> ps.setObject(1, vector));
+                batch.clear();
+                if ((i + 1) % 100_000 == 0) {
+                    log.info("Loaded {} rows", i + 1);
+                }
+            }
+        }
+        jdbcTemplate.execute("ANALYZE " + TABLE);
+    }
+
+    private void dropIndexes() {
+        jdbcTemplate.execute("DROP INDEX IF EXISTS bench_ivfflat");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS bench_hnsw");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS bench_hnsw_halfvec");
+        jdbcTemplate.execute("DROP INDEX IF EXISTS bench_hnsw_bit");
+    }
+}
@@ -0,0 +1,39 @@
+package com.insurance.common.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "embedding_cache")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class EmbeddingCacheEntry {
+
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(nullable = false, length = 100)
+    private String model;
+
+    @Column(nullable = false)
+    private Integer dimensions;
+
+    /**
+     * Embedding as little-endian float32 values
+     */
+    @Column(nullable = false, columnDefinition = "BYTEA")
+    private byte[] embedding;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,49 @@
+package com.insurance.common.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "index_failures")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexFailure {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 50)
+    private VectorEmbedding.EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private FailureStatus status;
+
+    @Column(nullable = false)
+    private Integer attempts;
+
+    @Column(name = "last_error", columnDefinition = "TEXT")
+    private String lastError;
+
+    @Column(name = "last_attempt_at", nullable = false)
+    private LocalDateTime lastAttemptAt;
+
+    public enum FailureStatus {
+        /** Retried by every incremental run */
+        RETRYING,
+        /** Out of attempts; only retried when the entity changes again */
+        DEAD_LETTER
+    }
+}
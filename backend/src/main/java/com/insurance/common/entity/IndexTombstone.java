@@ -0,0 +1,35 @@
+package com.insurance.common.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A deleted product or document whose embeddings have not been purged yet; written by database triggers
+ */
+@Entity
+@Table(name = "index_tombstones")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexTombstone {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 50)
+    private VectorEmbedding.EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
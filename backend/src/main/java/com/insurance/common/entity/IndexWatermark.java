@@ -0,0 +1,31 @@
+package com.insurance.common.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "index_watermarks")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IndexWatermark {
+
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", length = 50)
+    private VectorEmbedding.EntityType entityType;
+
+    @Column(name = "last_indexed_at", nullable = false)
+    private LocalDateTime lastIndexedAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
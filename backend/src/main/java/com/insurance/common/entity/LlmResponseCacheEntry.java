@@ -0,0 +1,48 @@
+package com.insurance.common.entity;
+
+import com.insurance.common.type.PgVectorType;
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.Type;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "llm_response_cache")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LlmResponseCacheEntry {
+
+    @Id
+    @Column(name = "prompt_hash", length = 64)
+    private String promptHash;
+
+    @Column(nullable = false, length = 50)
+    private String purpose;
+
+    @Column(nullable = false, length = 100)
+    private String model;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String response;
+
+    /**
+     * Embedding of the normalized prompt, for near-duplicate lookups; null when those are disabled
+     */
+    @Type(PgVectorType.class)
+    @Column(name = "prompt_embedding", columnDefinition = "vector(1536)")
+    private float[] promptEmbedding;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
@@ -47,7 +47,33 @@ public class ProductDocument {
     @Column(name = "extracted_text", columnDefinition = "TEXT")
     private String extractedText;
 
+    @Column(name = "extracted_text_path", length = 500)
+    private String extractedTextPath;
+
+    @Builder.Default
+    @Column(name = "extracted_text_truncated", nullable = false)
+    private Boolean extractedTextTruncated = false;
+
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @Column(name = "extraction_status", nullable = false, length = 20)
+    private ExtractionStatus extractionStatus = ExtractionStatus.PENDING;
+
+    @Builder.Default
+    @Column(name = "extraction_timeouts", nullable = false)
+    private Integer extractionTimeouts = 0;
+
+    @Column(name = "extraction_error", columnDefinition = "TEXT")
+    private String extractionError;
+
+    @Column(name = "extraction_finished_at")
+    private LocalDateTime extractionFinishedAt;
+
     @CreationTimestamp
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
+
+    public enum ExtractionStatus {
+        PENDING, COMPLETED, FAILED, QUARANTINED
+    }
 }
@@ -0,0 +1,46 @@
+package com.insurance.common.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "reindex_job_items")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReindexJobItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "job_id", nullable = false)
+    private Long jobId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", nullable = false, length = 50)
+    private VectorEmbedding.EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private Long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 50)
+    private ItemStatus status;
+
+    @Column(columnDefinition = "TEXT")
+    private String error;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+
+    public enum ItemStatus {
+        PENDING, DONE, FAILED
+    }
+}
@@ -0,0 +1,34 @@
+package com.insurance.common.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Cluster-wide lock for scheduled work, held until lockedUntil unless its holder extends it
+ */
+@Entity
+@Table(name = "scheduled_locks")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ScheduledLock {
+
+    @Id
+    @Column(length = 100)
+    private String name;
+
+    @Column(name = "locked_until", nullable = false)
+    private LocalDateTime lockedUntil;
+
+    @Column(name = "locked_at", nullable = false)
+    private LocalDateTime lockedAt;
+
+    @Column(name = "locked_by", nullable = false)
+    private String lockedBy;
+}
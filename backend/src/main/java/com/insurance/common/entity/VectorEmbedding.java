@@ -1,12 +1,14 @@
 package com.insurance.common.entity;
 
 import jakarta.persistence.*;
+import com.insurance.common.type.PgVectorType;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.annotations.Type;
 import org.hibernate.type.SqlTypes;
 
 import java.time.LocalDateTime;
@@ -31,11 +33,16 @@ public class VectorEmbedding {
     @Column(name = "entity_id", nullable = false)
     private Long entityId;
 
+    @Column(name = "chunk_index", nullable = false)
+    @Builder.Default
+    private Integer chunkIndex = 0;
+
     @Column(name = "chunk_text", nullable = false, columnDefinition = "TEXT")
     private String chunkText;
 
+    @Type(PgVectorType.class)
     @Column(columnDefinition = "vector(1536)")
-    private String embedding;
+    private float[] embedding;
 
     @JdbcTypeCode(SqlTypes.JSON)
     @Column(name = "metadata_json", columnDefinition = "jsonb")
@@ -45,6 +52,10 @@ public class VectorEmbedding {
     @Column(name = "created_at", nullable = false, updatable = false)
     private LocalDateTime createdAt;
 
+    /** Drawn from vector_embeddings_generation_seq on every insert and overwrite; see V28 */
+    @Column(name = "generation", insertable = false, updatable = false)
+    private Long generation;
+
     public enum EntityType {
         PRODUCT, DOC_CHUNK
     }
@@ -0,0 +1,100 @@
+package com.insurance.common.type;
+
+import com.pgvector.PGvector;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.usertype.UserType;
+import org.postgresql.util.PGobject;
+
+import java.io.Serializable;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.Arrays;
+
+/**
+ * Maps a pgvector column to a primitive float[], binding values as PGvector objects
+ * instead of building "[0.1,0.2,...]" strings in application code. The driver still
+ * sends PGvector in pgvector's text format; pgvector-java has no binary encoding.
+ */
+public class PgVectorType implements UserType<float[]> {
+
+    @Override
+    public int getSqlType() {
+        return Types.OTHER;
+    }
+
+    @Override
+    public Class<float[]> returnedClass() {
+        return float[].class;
+    }
+
+    @Override
+    public boolean equals(float[] x, float[] y) {
+        return Arrays.equals(x, y);
+    }
+
+    @Override
+    public int hashCode(float[] x) {
+        return Arrays.hashCode(x);
+    }
+
+    @Override
+    public float[] nullSafeGet(ResultSet rs, int position, SharedSessionContractImplementor session, Object owner)
+        throws SQLException {
+        return toArray(rs.getObject(position));
+    }
+
+    @Override
+    public void nullSafeSet(PreparedStatement st, float[] value, int index, SharedSessionContractImplementor session)
+        throws SQLException {
+        if (value == null) {
+            st.setNull(index, Types.OTHER);
+        } else {
+            st.setObject(index, new PGvector(value));
+        }
+    }
+
+    @Override
+    public float[] deepCopy(float[] value) {
+        return value == null ? null : value.clone();
+    }
+
+    @Override
+    public boolean isMutable() {
+        return true;
+    }
+
+    @Override
+    public Serializable disassemble(float[] value) {
+        return deepCopy(value);
+    }
+
+    @Override
+    public float[] assemble(Serializable cached, Object owner) {
+        return deepCopy((float[]) cached);
+    }
+
+    @Override
+    public float[] replace(float[] detached, float[] managed, Object owner) {
+        return deepCopy(detached);
+    }
+
+    /**
+     * Convert a value read from a vector column, whether or not PGvector is registered on the connection
+     */
+    public static float[] toArray(Object value) throws SQLException {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof PGvector vector) {
+            return vector.toArray();
+        }
+        if (value instanceof PGobject object) {
+            PGvector vector = new PGvector();
+            vector.setValue(object.getValue());
+            return vector.toArray();
+        }
+        throw new SQLException("Unexpected value for vector column: " + value.getClass().getName());
+    }
+}
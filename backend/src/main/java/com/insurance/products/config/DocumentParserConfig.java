@@ -0,0 +1,20 @@
+package com.insurance.products.config;
+
+import org.apache.tika.parser.AutoDetectParser;
+import org.apache.tika.parser.Parser;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DocumentParserConfig {
+
+    /**
+     * Shared Tika parser for uploads and indexing. Constructing an AutoDetectParser runs
+     * service-loader discovery of every parser and detector, so it is built once; parse calls
+     * are thread-safe and keep their per-document state in the handler and ParseContext.
+     */
+    @Bean
+    public Parser documentParser() {
+        return new AutoDetectParser();
+    }
+}
@@ -22,5 +22,6 @@ public class ProductDocumentDto {
     private Long fileSize;
     private String contentType;
     private String extractedText;
+    private String extractionStatus;
     private LocalDateTime createdAt;
 }
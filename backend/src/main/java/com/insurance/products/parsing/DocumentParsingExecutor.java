@@ -0,0 +1,136 @@
+package com.insurance.products.parsing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Bounded worker pool for all document parsing, isolated from request and indexing threads.
+ * Each parse gets a {@link ParseBudget}; a watchdog interrupts parses that outlive it and fails
+ * their future with a {@link TimeoutException}. When the pool and its queue are full, submit
+ * throws RejectedExecutionException. Pool usage is exported as document.parsing executor
+ * metrics and parse time as the document.parsing.duration timer.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class DocumentParsingExecutor {
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<ParseBudget, RunningParse> runningParses = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor pool;
+    private ScheduledExecutorService watchdog;
+
+    @Value("${app.documents.parsing.threads:0}")
+    private int threads;
+
+    @Value("${app.documents.parsing.queue-capacity:64}")
+    private int queueCapacity;
+
+    @Value("${app.documents.parsing.timeout:PT2M}")
+    private Duration timeout;
+
+    @Value("${app.documents.parsing.cpu-budget:PT1M}")
+    private Duration cpuBudget;
+
+    @FunctionalInterface
+    public interface ParseTask<T> {
+        T parse(ParseBudget budget) throws Exception;
+    }
+
+    private record RunningParse(Future<?> worker, CompletableFuture<?> result) {
+    }
+
+    @PostConstruct
+    void init() {
+        int poolSize = threads > 0 ? threads : Math.max(2, Runtime.getRuntime().availableProcessors());
+        // Platform threads: Tika parsers hold monitors for long stretches
+        pool = new ThreadPoolExecutor(poolSize, poolSize, 0, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(queueCapacity),
+            Thread.ofPlatform().name("doc-parse-", 0).daemon(true).factory(),
+            new ThreadPoolExecutor.AbortPolicy());
+        new ExecutorServiceMetrics(pool, "document.parsing", Tags.empty()).bindTo(meterRegistry);
+
+        watchdog = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("doc-parse-watchdog").daemon(true).factory());
+        watchdog.scheduleWithFixedDelay(this::cancelOverdue, 1, 1, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Queue a parse. Cancelling the returned future interrupts the worker.
+     */
+    public <T> CompletableFuture<T> submit(String description, ParseTask<T> task) {
+        ParseBudget budget = new ParseBudget(description, timeout.toNanos(), cpuBudget.toNanos());
+        CompletableFuture<T> result = new CompletableFuture<>();
+
+        Future<?> worker = pool.submit(() -> {
+            budget.start();
+            long start = System.nanoTime();
+            String outcome = "success";
+            try {
+                result.complete(task.parse(budget));
+            } catch (Throwable t) {
+                outcome = budget.isExpired() ? "timeout" : "failure";
+                result.completeExceptionally(budget.isExpired()
+                    ? new TimeoutException(description + " exceeded its parse budget")
+                    : t);
+            } finally {
+                runningParses.remove(budget);
+                Timer.builder("document.parsing.duration")
+                    .tag("outcome", outcome)
+                    .register(meterRegistry)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+
+        runningParses.put(budget, new RunningParse(worker, result));
+        result.whenComplete((value, error) -> {
+            if (result.isCancelled()) {
+                worker.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    private void cancelOverdue() {
+        runningParses.forEach((budget, running) -> {
+            if (running.worker().isDone()) {
+                runningParses.remove(budget);
+            } else if (budget.isOverTime()) {
+                log.warn("Cancelling parse of {} after {}", budget.getDescription(), timeout);
+                budget.expire();
+                running.worker().cancel(true);
+                // A parser stuck outside interruptible code keeps its thread, but its caller is released
+                running.result().completeExceptionally(
+                    new TimeoutException(budget.getDescription() + " exceeded its parse budget"));
+                runningParses.remove(budget);
+            }
+        });
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        watchdog.shutdownNow();
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,118 @@
+package com.insurance.products.parsing;
+
+import org.apache.tika.sax.ContentHandlerDecorator;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.SAXException;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Wall-clock and CPU budget of one parse. Parsers see it through {@link #guard}, which checks the
+ * budget on every SAX callback so a runaway parse fails at its next callback; the
+ * {@link DocumentParsingExecutor} watchdog interrupts parses that stop calling back altogether.
+ */
+public class ParseBudget {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final int CPU_CHECK_INTERVAL = 64;
+
+    private final String description;
+    private final long timeoutNanos;
+    private final long cpuBudgetNanos;
+
+    private volatile long startNanos;
+    private volatile long waitedNanos;
+    private volatile boolean started;
+    private volatile boolean expired;
+    private long startCpuNanos = -1;
+    private int callbacks;
+
+    ParseBudget(String description, long timeoutNanos, long cpuBudgetNanos) {
+        this.description = description;
+        this.timeoutNanos = timeoutNanos;
+        this.cpuBudgetNanos = cpuBudgetNanos;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * Exclude time spent blocked on downstream consumers, which is not parsing time
+     */
+    public void excludeWait(long nanos) {
+        waitedNanos += nanos;
+    }
+
+    /**
+     * Wrap a handler so every SAX callback first checks the budget
+     */
+    public ContentHandler guard(ContentHandler handler) {
+        return new ContentHandlerDecorator(handler) {
+            @Override
+            public void startElement(String uri, String localName, String name, Attributes atts) throws SAXException {
+                checkpoint();
+                super.startElement(uri, localName, name, atts);
+            }
+
+            @Override
+            public void endElement(String uri, String localName, String name) throws SAXException {
+                checkpoint();
+                super.endElement(uri, localName, name);
+            }
+
+            @Override
+            public void characters(char[] ch, int start, int length) throws SAXException {
+                checkpoint();
+                super.characters(ch, start, length);
+            }
+
+            @Override
+            public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+                checkpoint();
+                super.ignorableWhitespace(ch, start, length);
+            }
+        };
+    }
+
+    /**
+     * Fail the parse if its budget is spent or it was cancelled
+     */
+    public void checkpoint() throws SAXException {
+        if (expired) {
+            throw new SAXException(new TimeoutException(description + " exceeded its parse time budget"));
+        }
+        if (Thread.currentThread().isInterrupted()) {
+            throw new SAXException("Parsing of " + description + " was cancelled");
+        }
+        if (++callbacks % CPU_CHECK_INTERVAL == 0 && startCpuNanos >= 0
+                && THREADS.getCurrentThreadCpuTime() - startCpuNanos > cpuBudgetNanos) {
+            expired = true;
+            throw new SAXException(new TimeoutException(description + " exceeded its CPU budget"));
+        }
+    }
+
+    boolean isExpired() {
+        return expired;
+    }
+
+    void expire() {
+        expired = true;
+    }
+
+    /** Called on the worker thread when the parse starts; queue time does not count */
+    void start() {
+        startNanos = System.nanoTime();
+        if (THREADS.isCurrentThreadCpuTimeSupported()) {
+            startCpuNanos = THREADS.getCurrentThreadCpuTime();
+        }
+        started = true;
+    }
+
+    boolean isOverTime() {
+        return started && System.nanoTime() - startNanos - waitedNanos > timeoutNanos;
+    }
+}
@@ -6,6 +6,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -24,4 +25,13 @@ public interface ProductDocumentRepository extends JpaRepository<ProductDocument
     @Query("SELECT pd FROM ProductDocument pd WHERE " +
            "pd.product IS NULL AND pd.category.id = :categoryId")
     List<ProductDocument> findCategoryDocumentsOnly(@Param("categoryId") Long categoryId);
+
+    @Query("SELECT pd.id FROM ProductDocument pd ORDER BY pd.id")
+    List<Long> findAllIds();
+
+    @Query("SELECT pd.id FROM ProductDocument pd WHERE pd.extractionFinishedAt > :since ORDER BY pd.extractionFinishedAt")
+    List<Long> findIdsExtractedAfter(@Param("since") LocalDateTime since);
+
+    @Query("SELECT pd.id FROM ProductDocument pd WHERE pd.extractionStatus = :status ORDER BY pd.id")
+    List<Long> findIdsByExtractionStatus(@Param("status") ProductDocument.ExtractionStatus status);
 }
@@ -1,12 +1,16 @@
 package com.insurance.products.repository;
 
 import com.insurance.common.entity.Product;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
@@ -31,4 +35,21 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     List<Product> findByFilters(@Param("categoryId") Long categoryId,
                                 @Param("insurer") String insurer,
                                 @Param("planType") String planType);
+
+    @Query("SELECT p.id FROM Product p WHERE p.updatedAt > :since ORDER BY p.updatedAt")
+    List<Long> findIdsUpdatedAfter(@Param("since") LocalDateTime since);
+
+    /**
+     * Products with their category in one query, instead of one lazy category load per product
+     */
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p WHERE p.id IN :ids")
+    List<Product> findAllWithCategoryByIdIn(@Param("ids") Collection<Long> ids);
+
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT p FROM Product p")
+    List<Product> findAllWithCategory();
+
+    @Query("SELECT MAX(p.updatedAt) FROM Product p")
+    Optional<LocalDateTime> findLastUpdatedAt();
 }
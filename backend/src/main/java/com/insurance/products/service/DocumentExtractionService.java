@@ -0,0 +1,180 @@
+package com.insurance.products.service;
+
+import com.insurance.common.entity.ProductDocument;
+import com.insurance.products.parsing.DocumentParsingExecutor;
+import com.insurance.products.parsing.ParseBudget;
+import com.insurance.products.repository.ProductDocumentRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Extracts document text on the {@link DocumentParsingExecutor} after upload, so HTTP latency does not
+ * depend on parse time. The full text is written to storage next to the original; the row keeps a
+ * 100KB preview. Documents that exceed their parse budget app.documents.parsing.max-timeouts times
+ * are quarantined and never parsed again.
+ */
+@Service
+@Slf4j
+public class DocumentExtractionService {
+
+    private static final int EXTRACTED_TEXT_PREVIEW_LIMIT = 100000;
+
+    private final ProductDocumentRepository productDocumentRepository;
+    private final DocumentStorageService storageService;
+    private final Parser documentParser;
+    private final DocumentParsingExecutor parsingExecutor;
+    private final TransactionTemplate newTransaction;
+    private final Counter quarantinedCounter;
+
+    @Value("${app.documents.parsing.max-timeouts:3}")
+    private int maxTimeouts;
+
+    public DocumentExtractionService(
+        ProductDocumentRepository productDocumentRepository,
+        DocumentStorageService storageService,
+        Parser documentParser,
+        DocumentParsingExecutor parsingExecutor,
+        PlatformTransactionManager transactionManager,
+        MeterRegistry meterRegistry
+    ) {
+        this.productDocumentRepository = productDocumentRepository;
+        this.storageService = storageService;
+        this.documentParser = documentParser;
+        this.parsingExecutor = parsingExecutor;
+        // Results are recorded even when the caller's transaction rolls back
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.quarantinedCounter = Counter.builder("document.parsing.quarantined").register(meterRegistry);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDocumentUploaded(DocumentUploadedEvent event) {
+        extractAsync(event.documentId(), event.storagePath());
+    }
+
+    /**
+     * Restart extractions that were still pending when the application stopped
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingExtractions() {
+        List<Long> pending = productDocumentRepository.findIdsByExtractionStatus(ProductDocument.ExtractionStatus.PENDING);
+        if (!pending.isEmpty()) {
+            log.info("Resuming text extraction for {} documents", pending.size());
+        }
+        for (Long documentId : pending) {
+            productDocumentRepository.findById(documentId)
+                .ifPresent(document -> extractAsync(document.getId(), document.getStoragePath()));
+        }
+    }
+
+    public void extractAsync(Long documentId, String storagePath) {
+        try {
+            parsingExecutor.submit("document " + documentId, budget -> extract(storagePath, budget))
+                .whenComplete((extracted, error) -> {
+                    if (error == null) {
+                        recordExtracted(documentId, extracted);
+                    } else {
+                        recordParseFailure(documentId, error);
+                    }
+                });
+        } catch (RejectedExecutionException e) {
+            log.warn("Document parsing pool is full, document {} will be parsed at indexing time", documentId);
+            recordParseFailure(documentId, e);
+        }
+    }
+
+    /**
+     * Record a failed parse; timeouts count towards quarantine
+     */
+    public void recordParseFailure(Long documentId, Throwable error) {
+        Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        boolean timeout = cause instanceof TimeoutException;
+
+        newTransaction.executeWithoutResult(status -> productDocumentRepository.findById(documentId).ifPresent(document -> {
+            int timeouts = document.getExtractionTimeouts() + (timeout ? 1 : 0);
+            document.setExtractionTimeouts(timeouts);
+            document.setExtractionError(cause.getMessage());
+            document.setExtractionFinishedAt(LocalDateTime.now());
+
+            if (timeouts >= maxTimeouts) {
+                document.setExtractionStatus(ProductDocument.ExtractionStatus.QUARANTINED);
+                quarantinedCounter.increment();
+                log.warn("Quarantined document {} after {} parse timeouts", documentId, timeouts);
+            } else {
+                document.setExtractionStatus(ProductDocument.ExtractionStatus.FAILED);
+                log.warn("Failed to extract text from document {}: {}", documentId, cause.getMessage());
+            }
+        }));
+    }
+
+    private void recordExtracted(Long documentId, ExtractedText extracted) {
+        boolean saved = Boolean.TRUE.equals(newTransaction.execute(status ->
+            productDocumentRepository.findById(documentId).map(document -> {
+                document.setExtractedText(extracted.preview());
+                document.setExtractedTextPath(extracted.path());
+                document.setExtractedTextTruncated(extracted.truncated());
+                document.setExtractionStatus(ProductDocument.ExtractionStatus.COMPLETED);
+                document.setExtractionError(null);
+                document.setExtractionFinishedAt(LocalDateTime.now());
+                return true;
+            }).orElse(false)));
+
+        if (!saved) {
+            // Deleted while it was being parsed
+            deleteQuietly(extracted.path());
+        }
+    }
+
+    private ExtractedText extract(String storagePath, ParseBudget budget) throws Exception {
+        String textPath = storagePath + ".txt";
+
+        try (InputStream inputStream = storageService.getFile(storagePath);
+             ExtractedTextWriter writer = new ExtractedTextWriter(
+                 new BufferedWriter(new OutputStreamWriter(storageService.createFile(textPath), StandardCharsets.UTF_8)),
+                 EXTRACTED_TEXT_PREVIEW_LIMIT)) {
+            documentParser.parse(inputStream, budget.guard(new BodyContentHandler(writer)), new Metadata(), new ParseContext());
+
+            String preview = writer.isTruncated() ? writer.getPreview() + "... [truncated]" : writer.getPreview();
+            log.debug("Extracted {} characters from {}", writer.getLength(), storagePath);
+            return new ExtractedText(preview, textPath, writer.isTruncated());
+        } catch (Exception e) {
+            deleteQuietly(textPath);
+            throw e;
+        }
+    }
+
+    private void deleteQuietly(String storagePath) {
+        try {
+            storageService.deleteFile(storagePath);
+        } catch (IOException e) {
+            log.warn("Failed to delete extracted text {}: {}", storagePath, e.getMessage());
+        }
+    }
+
+    private record ExtractedText(String preview, String path, boolean truncated) {
+    }
+}
@@ -4,6 +4,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 
 public interface DocumentStorageService {
 
@@ -12,6 +13,11 @@ public interface DocumentStorageService {
      */
     String storeFile(MultipartFile file, String directory) throws IOException;
 
+    /**
+     * Open a file at the given storage path for writing, replacing any existing content
+     */
+    OutputStream createFile(String storagePath) throws IOException;
+
     /**
      * Delete a file by its storage path
      */
@@ -0,0 +1,7 @@
+package com.insurance.products.service;
+
+/**
+ * Published when a document row is saved with PENDING extraction; text is extracted after commit
+ */
+public record DocumentUploadedEvent(Long documentId, String storagePath) {
+}
@@ -0,0 +1,53 @@
+package com.insurance.products.service;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes extracted text through to a target writer while keeping the first
+ * {@code previewLimit} characters in memory for the extracted_text column.
+ */
+class ExtractedTextWriter extends Writer {
+
+    private final Writer target;
+    private final int previewLimit;
+    private final StringBuilder preview = new StringBuilder();
+    private long length;
+
+    ExtractedTextWriter(Writer target, int previewLimit) {
+        this.target = target;
+        this.previewLimit = previewLimit;
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) throws IOException {
+        target.write(cbuf, off, len);
+        int room = previewLimit - preview.length();
+        if (room > 0) {
+            preview.append(cbuf, off, Math.min(room, len));
+        }
+        length += len;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        target.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        target.close();
+    }
+
+    String getPreview() {
+        return preview.toString();
+    }
+
+    long getLength() {
+        return length;
+    }
+
+    boolean isTruncated() {
+        return length > previewLimit;
+    }
+}
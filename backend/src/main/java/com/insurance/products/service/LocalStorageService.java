@@ -8,6 +8,7 @@ import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
@@ -62,6 +63,18 @@ public class LocalStorageService implements DocumentStorageService {
         return storagePath;
     }
 
+    @Override
+    public OutputStream createFile(String storagePath) throws IOException {
+        Path filePath = this.rootLocation.resolve(storagePath).normalize();
+
+        if (!filePath.startsWith(this.rootLocation)) {
+            throw new IOException("Invalid file path: " + storagePath);
+        }
+
+        Files.createDirectories(filePath.getParent());
+        return Files.newOutputStream(filePath);
+    }
+
     @Override
     public void deleteFile(String storagePath) throws IOException {
         Path filePath = this.rootLocation.resolve(storagePath).normalize();
@@ -0,0 +1,8 @@
+package com.insurance.products.service;
+
+/**
+ * Published when a product or category is created, updated or deleted (productId is null for
+ * category changes); in-memory catalog views rebuild after commit
+ */
+public record ProductCatalogChangedEvent(Long productId) {
+}
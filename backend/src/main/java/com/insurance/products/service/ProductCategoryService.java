@@ -5,6 +5,7 @@ import com.insurance.products.dto.ProductCategoryDto;
 import com.insurance.products.repository.ProductCategoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -17,6 +18,7 @@ import java.util.stream.Collectors;
 public class ProductCategoryService {
 
     private final ProductCategoryRepository productCategoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<ProductCategoryDto> getAllCategories() {
@@ -67,6 +69,8 @@ public class ProductCategoryService {
         }
 
         ProductCategory updatedCategory = productCategoryRepository.save(category);
+        // Category names are part of product matching
+        eventPublisher.publishEvent(new ProductCatalogChangedEvent(null));
         log.info("Updated product category: {}", updatedCategory.getId());
         return toDto(updatedCategory);
     }
@@ -77,6 +81,7 @@ public class ProductCategoryService {
             throw new RuntimeException("Product category not found with id: " + id);
         }
         productCategoryRepository.deleteById(id);
+        eventPublisher.publishEvent(new ProductCatalogChangedEvent(null));
         log.info("Deleted product category: {}", id);
     }
 
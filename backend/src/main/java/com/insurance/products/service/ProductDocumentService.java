@@ -9,8 +9,7 @@ import com.insurance.products.repository.ProductDocumentRepository;
 import com.insurance.products.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tika.Tika;
-import org.apache.tika.exception.TikaException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
@@ -29,7 +28,7 @@ public class ProductDocumentService {
     private final ProductRepository productRepository;
     private final ProductCategoryRepository productCategoryRepository;
     private final DocumentStorageService storageService;
-    private final Tika tika = new Tika();
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<ProductDocumentDto> getDocumentsByProduct(Long productId) {
@@ -81,9 +80,6 @@ public class ProductDocumentService {
         String storagePath = storageService.storeFile(file, directory);
         String storageUrl = storageService.getFileUrl(storagePath);
 
-        // Extract text content
-        String extractedText = extractText(file);
-
         // Create document entity
         ProductDocument document = ProductDocument.builder()
                 .product(product)
@@ -93,10 +89,13 @@ public class ProductDocumentService {
                 .storageUrl(storageUrl)
                 .fileSize(file.getSize())
                 .contentType(file.getContentType())
-                .extractedText(extractedText)
+                .extractionStatus(ProductDocument.ExtractionStatus.PENDING)
                 .build();
 
         ProductDocument savedDocument = productDocumentRepository.save(document);
+
+        // Text is extracted on the parsing pool once this transaction commits
+        eventPublisher.publishEvent(new DocumentUploadedEvent(savedDocument.getId(), storagePath));
         log.info("Uploaded document: {} for product: {} category: {}",
                 savedDocument.getFilename(), productId, categoryId);
 
@@ -116,6 +115,14 @@ public class ProductDocumentService {
             // Continue with database deletion even if file deletion fails
         }
 
+        if (document.getExtractedTextPath() != null) {
+            try {
+                storageService.deleteFile(document.getExtractedTextPath());
+            } catch (IOException e) {
+                log.error("Failed to delete extracted text from storage: {}", document.getExtractedTextPath(), e);
+            }
+        }
+
         // Delete from database
         productDocumentRepository.delete(document);
         log.info("Deleted document: {}", id);
@@ -128,23 +135,6 @@ public class ProductDocumentService {
         return storageService.getFile(document.getStoragePath());
     }
 
-    private String extractText(MultipartFile file) {
-        try (InputStream inputStream = file.getInputStream()) {
-            String text = tika.parseToString(inputStream);
-
-            // Limit extracted text to reasonable size (e.g., 100KB)
-            if (text.length() > 100000) {
-                text = text.substring(0, 100000) + "... [truncated]";
-            }
-
-            log.debug("Extracted {} characters from {}", text.length(), file.getOriginalFilename());
-            return text;
-        } catch (IOException | TikaException e) {
-            log.warn("Failed to extract text from {}: {}", file.getOriginalFilename(), e.getMessage());
-            return null;
-        }
-    }
-
     private ProductDocumentDto toDto(ProductDocument document) {
         return ProductDocumentDto.builder()
                 .id(document.getId())
@@ -156,6 +146,7 @@ public class ProductDocumentService {
                 .fileSize(document.getFileSize())
                 .contentType(document.getContentType())
                 .extractedText(document.getExtractedText())
+                .extractionStatus(document.getExtractionStatus() != null ? document.getExtractionStatus().name() : null)
                 .createdAt(document.getCreatedAt())
                 .build();
     }
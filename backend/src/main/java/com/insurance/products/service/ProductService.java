@@ -9,6 +9,7 @@ import com.insurance.products.repository.ProductCategoryRepository;
 import com.insurance.products.repository.ProductRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -22,6 +23,7 @@ public class ProductService {
 
     private final ProductRepository productRepository;
     private final ProductCategoryRepository productCategoryRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional(readOnly = true)
     public List<ProductDto> getAllProducts() {
@@ -81,6 +83,7 @@ public class ProductService {
                 .build();
 
         Product savedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductCatalogChangedEvent(savedProduct.getId()));
         log.info("Created product: {} ({})", savedProduct.getName(), savedProduct.getId());
         return toDto(savedProduct);
     }
@@ -121,6 +124,7 @@ public class ProductService {
         }
 
         Product updatedProduct = productRepository.save(product);
+        eventPublisher.publishEvent(new ProductCatalogChangedEvent(updatedProduct.getId()));
         log.info("Updated product: {}", updatedProduct.getId());
         return toDto(updatedProduct);
     }
@@ -131,6 +135,7 @@ public class ProductService {
             throw new RuntimeException("Product not found with id: " + id);
         }
         productRepository.deleteById(id);
+        eventPublisher.publishEvent(new ProductCatalogChangedEvent(id));
         log.info("Deleted product: {}", id);
     }
 
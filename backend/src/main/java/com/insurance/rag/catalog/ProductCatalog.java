@@ -0,0 +1,221 @@
+package com.insurance.rag.catalog;
+
+import com.insurance.common.entity.Product;
+import com.insurance.products.repository.ProductRepository;
+import com.insurance.products.service.ProductCatalogChangedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory view of the product catalog used to score recommendation candidates against customer
+ * needs: lower-cased category names and an index from each distinct lower-cased tag to the products
+ * carrying it. A tag matches a concern when either contains the other. Each concern is compared
+ * with the distinct tags once per snapshot and the resulting per-product match counts are reused
+ * by later requests, so scoring a candidate is a hash lookup however many tags it has.
+ * <p>
+ * The view is an immutable snapshot, swapped whole after product or category changes commit. A
+ * periodic check of the product count and latest update catches changes made by other instances.
+ */
+@Component
+@Slf4j
+public class ProductCatalog {
+
+    /** Concerns whose matches are remembered per snapshot; later ones are matched per request */
+    private static final int MAX_REMEMBERED_CONCERNS = 10_000;
+
+    private static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(), null);
+
+    private final ProductRepository productRepository;
+
+    private volatile Snapshot snapshot = EMPTY;
+
+    public ProductCatalog(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    /**
+     * Customer needs prepared once per request: insurance types lower-cased, concerns matched
+     * against the catalog's tags
+     */
+    public NeedsQuery query(Collection<String> insuranceTypes, Collection<String> concerns) {
+        Snapshot current = snapshot;
+        List<String> types = insuranceTypes == null ? List.of() : insuranceTypes.stream()
+            .filter(Objects::nonNull)
+            .map(type -> type.toLowerCase(Locale.ROOT))
+            .toList();
+        List<String> lowerConcerns = concerns == null ? List.of() : concerns.stream()
+            .filter(Objects::nonNull)
+            .map(concern -> concern.toLowerCase(Locale.ROOT))
+            .toList();
+
+        Map<Long, Integer> tagMatches = new HashMap<>();
+        for (String concern : lowerConcerns) {
+            current.matches(concern).forEach((productId, count) -> tagMatches.merge(productId, count, Integer::sum));
+        }
+        return new NeedsQuery(current, types, lowerConcerns, tagMatches);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        rebuild();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(ProductCatalogChangedEvent event) {
+        rebuild();
+    }
+
+    @Scheduled(
+        fixedDelayString = "${app.rag.catalog.refresh-interval:PT1M}",
+        initialDelayString = "${app.rag.catalog.refresh-interval:PT1M}"
+    )
+    public void refreshIfStale() {
+        Snapshot current = snapshot;
+        LocalDateTime lastUpdated = productRepository.findLastUpdatedAt().orElse(null);
+        if (productRepository.count() != current.products().size() || !Objects.equals(lastUpdated, current.lastUpdated())) {
+            rebuild();
+        }
+    }
+
+    private synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Map<Long, Entry> products = new HashMap<>();
+        Map<String, Map<Long, Integer>> tagIndex = new HashMap<>();
+        LocalDateTime lastUpdated = null;
+
+        for (Product product : productRepository.findAllWithCategory()) {
+            products.put(product.getId(), Entry.of(product));
+            if (product.getTags() != null) {
+                for (String tag : product.getTags()) {
+                    if (tag != null) {
+                        tagIndex.computeIfAbsent(tag.toLowerCase(Locale.ROOT), k -> new HashMap<>())
+                            .merge(product.getId(), 1, Integer::sum);
+                    }
+                }
+            }
+            if (product.getUpdatedAt() != null && (lastUpdated == null || product.getUpdatedAt().isAfter(lastUpdated))) {
+                lastUpdated = product.getUpdatedAt();
+            }
+        }
+
+        snapshot = new Snapshot(products, tagIndex, lastUpdated);
+        log.debug("Product catalog rebuilt with {} products and {} distinct tags in {} ms",
+            products.size(), tagIndex.size(), System.currentTimeMillis() - start);
+    }
+
+    /** Whether a lower-cased tag and concern match: either contains the other */
+    private static boolean tagMatchesConcern(String tag, String concern) {
+        return tag.contains(concern) || concern.contains(tag);
+    }
+
+    private record Snapshot(
+        Map<Long, Entry> products,
+        Map<String, Map<Long, Integer>> tagIndex,
+        LocalDateTime lastUpdated,
+        Map<String, Map<Long, Integer>> concernMatches
+    ) {
+
+        Snapshot(Map<Long, Entry> products, Map<String, Map<Long, Integer>> tagIndex, LocalDateTime lastUpdated) {
+            this(products, tagIndex, lastUpdated, new ConcurrentHashMap<>());
+        }
+
+        /** Per product, how many of its tags match the lower-cased concern */
+        Map<Long, Integer> matches(String concern) {
+            Map<Long, Integer> remembered = concernMatches.get(concern);
+            if (remembered != null) {
+                return remembered;
+            }
+            Map<Long, Integer> matches = new HashMap<>();
+            tagIndex.forEach((tag, carriers) -> {
+                if (tagMatchesConcern(tag, concern)) {
+                    carriers.forEach((productId, count) -> matches.merge(productId, count, Integer::sum));
+                }
+            });
+            if (concernMatches.size() < MAX_REMEMBERED_CONCERNS) {
+                concernMatches.putIfAbsent(concern, matches);
+            }
+            return matches;
+        }
+    }
+
+    private record Entry(String categoryName) {
+
+        static Entry of(Product product) {
+            return new Entry(product.getCategory().getName().toLowerCase(Locale.ROOT));
+        }
+    }
+
+    /**
+     * Needs matched against one catalog snapshot
+     */
+    public static final class NeedsQuery {
+
+        private final Snapshot snapshot;
+        private final List<String> insuranceTypes;
+        private final List<String> concerns;
+        private final Map<Long, Integer> tagMatches;
+
+        private NeedsQuery(Snapshot snapshot, List<String> insuranceTypes, List<String> concerns, Map<Long, Integer> tagMatches) {
+            this.snapshot = snapshot;
+            this.insuranceTypes = insuranceTypes;
+            this.concerns = concerns;
+            this.tagMatches = tagMatches;
+        }
+
+        /**
+         * Whether the product's category name contains any of the insurance types. Products newer
+         * than the snapshot are read from the entity, whose category must already be loaded.
+         */
+        public boolean matchesInsuranceType(Product product) {
+            if (insuranceTypes.isEmpty()) {
+                return false;
+            }
+            Entry entry = snapshot.products().get(product.getId());
+            String categoryName = entry != null ? entry.categoryName() : Entry.of(product).categoryName();
+            for (String type : insuranceTypes) {
+                if (categoryName.contains(type)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Number of (tag, concern) pairs where one contains the other. Products newer than the
+         * snapshot are matched against the entity's tags.
+         */
+        public int tagMatchCount(Product product) {
+            if (snapshot.products().containsKey(product.getId())) {
+                return tagMatches.getOrDefault(product.getId(), 0);
+            }
+            int count = 0;
+            if (product.getTags() != null) {
+                for (String tag : product.getTags()) {
+                    if (tag == null) {
+                        continue;
+                    }
+                    String lowerTag = tag.toLowerCase(Locale.ROOT);
+                    for (String concern : concerns) {
+                        if (tagMatchesConcern(lowerTag, concern)) {
+                            count++;
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+    }
+}
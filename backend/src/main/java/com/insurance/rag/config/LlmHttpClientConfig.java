@@ -0,0 +1,67 @@
+package com.insurance.rag.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.web.client.RestClientCustomizer;
+import org.springframework.boot.web.reactive.function.client.WebClientCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.http.client.reactive.JdkClientHttpConnector;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class LlmHttpClientConfig {
+
+    /**
+     * One JDK HTTP client for every outbound REST call, including the OpenAI chat and embedding
+     * APIs. It negotiates HTTP/2, so concurrent calls are multiplexed over a kept-alive connection
+     * per host instead of opening one each; the number in flight is capped by the LLM bulkhead
+     * rather than a connection limit. Responses are handled on virtual threads.
+     */
+    @Bean
+    public HttpClient llmHttpClient(@Value("${app.llm.connect-timeout:PT5S}") Duration connectTimeout) {
+        return HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(connectTimeout)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .build();
+    }
+
+    /**
+     * Blocking calls: the read timeout bounds the wait for response headers, so a stalled provider
+     * releases the calling thread instead of holding it indefinitely
+     */
+    @Bean
+    public RestClientCustomizer llmRestClientCustomizer(
+        HttpClient llmHttpClient,
+        @Value("${app.llm.read-timeout:PT30S}") Duration readTimeout
+    ) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(llmHttpClient);
+        requestFactory.setReadTimeout(readTimeout);
+        return builder -> builder.requestFactory(requestFactory);
+    }
+
+    /**
+     * Streaming calls go through WebClient; token stalls after the first byte are handled by the
+     * stream's own timeouts
+     */
+    @Configuration
+    @ConditionalOnClass(name = "org.springframework.web.reactive.function.client.WebClient")
+    static class Streaming {
+
+        @Bean
+        public WebClientCustomizer llmWebClientCustomizer(
+            HttpClient llmHttpClient,
+            @Value("${app.llm.read-timeout:PT30S}") Duration readTimeout
+        ) {
+            JdkClientHttpConnector connector = new JdkClientHttpConnector(llmHttpClient);
+            connector.setReadTimeout(readTimeout);
+            return builder -> builder.clientConnector(connector);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.insurance.rag.config;
+
+import com.pgvector.PGvector;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.Set;
+import java.util.WeakHashMap;
+
+@Configuration
+public class PgVectorConfig {
+
+    /**
+     * Register the pgvector types with the PostgreSQL driver on each physical connection, so
+     * {@code getObject} on a vector column returns a {@link PGvector} rather than a generic PGobject.
+     * Registration does not change the wire format: vectors are still sent and received as text.
+     */
+    @Bean
+    public static BeanPostProcessor pgVectorDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof PgVectorDataSource)) {
+                    return new PgVectorDataSource(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    /**
+     * Registers on the first checkout of each pooled connection only. Physical connections are
+     * tracked weakly, so those the pool retires are forgotten with it.
+     */
+    static class PgVectorDataSource extends DelegatingDataSource {
+
+        private final Set<PGConnection> registered = Collections.synchronizedSet(
+            Collections.newSetFromMap(new WeakHashMap<>()));
+
+        PgVectorDataSource(DataSource targetDataSource) {
+            super(targetDataSource);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return register(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return register(super.getConnection(username, password));
+        }
+
+        private Connection register(Connection connection) throws SQLException {
+            PGConnection physical = connection.unwrap(PGConnection.class);
+            if (!registered.contains(physical)) {
+                PGvector.addVectorType(connection);
+                registered.add(physical);
+            }
+            return connection;
+        }
+    }
+}
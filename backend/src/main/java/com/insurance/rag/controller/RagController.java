@@ -2,17 +2,31 @@ package com.insurance.rag.controller;
 
 import com.insurance.rag.dto.ProductRecommendationRequest;
 import com.insurance.rag.dto.ProductRecommendationResponse;
+import com.insurance.rag.dto.ReindexJobDto;
 import com.insurance.rag.service.EmbeddingService;
+import com.insurance.rag.service.IncrementalIndexingService;
 import com.insurance.rag.service.ProductIndexingService;
 import com.insurance.rag.service.RecommendationService;
+import com.insurance.rag.service.RecommendationStreamService;
+import com.insurance.rag.service.ReindexJobService;
+import com.insurance.rag.service.VectorSnapshotService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
 import java.util.Map;
 
 @RestController
@@ -22,8 +36,12 @@ import java.util.Map;
 public class RagController {
 
     private final RecommendationService recommendationService;
+    private final RecommendationStreamService recommendationStreamService;
     private final ProductIndexingService productIndexingService;
     private final EmbeddingService embeddingService;
+    private final ReindexJobService reindexJobService;
+    private final IncrementalIndexingService incrementalIndexingService;
+    private final VectorSnapshotService vectorSnapshotService;
 
     @PostMapping("/recommend")
     @PreAuthorize("hasAnyRole('ADMIN', 'AGENT')")
@@ -35,12 +53,26 @@ public class RagController {
         return ResponseEntity.ok(response);
     }
 
+    @PostMapping(value = "/recommend/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyRole('ADMIN', 'AGENT')")
+    @Operation(summary = "Stream product recommendations: ranked products first, then narrative tokens")
+    public SseEmitter streamRecommendations(@Valid @RequestBody ProductRecommendationRequest request) {
+        return recommendationStreamService.streamRecommendations(request);
+    }
+
     @PostMapping("/reindex")
     @PreAuthorize("hasRole('ADMIN')")
-    @Operation(summary = "Re-index all products and documents in vector store")
-    public ResponseEntity<Map<String, Integer>> reindex() {
-        Map<String, Integer> result = productIndexingService.reindexAll();
-        return ResponseEntity.ok(result);
+    @Operation(summary = "Start a background job that re-indexes all products and documents in vector store")
+    public ResponseEntity<ReindexJobDto> reindex() {
+        ReindexJobDto job = reindexJobService.startReindex();
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+    }
+
+    @GetMapping("/reindex/{jobId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Get progress and throughput of a re-index job")
+    public ResponseEntity<ReindexJobDto> getReindexJob(@PathVariable Long jobId) {
+        return ResponseEntity.ok(reindexJobService.getJob(jobId));
     }
 
     @PostMapping("/reindex/products")
@@ -59,14 +91,46 @@ public class RagController {
         return ResponseEntity.ok(Map.of("documentsIndexed", count));
     }
 
+    @PostMapping("/reindex/incremental")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Index products and documents changed since the last run and purge deleted ones")
+    public ResponseEntity<Map<String, Integer>> reindexIncremental() {
+        if (reindexJobService.hasActiveJob()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
+        }
+        return ResponseEntity.ok(incrementalIndexingService.runIncremental());
+    }
+
+    @GetMapping("/snapshot")
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Download all vector embeddings as a binary snapshot")
+    public void exportSnapshot(HttpServletResponse response) throws IOException {
+        // Written straight to the response so large snapshots are not held to the async request timeout
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"vector-embeddings.vsnap\"");
+        vectorSnapshotService.exportSnapshot(response.getOutputStream());
+    }
+
+    @PostMapping(value = "/snapshot", consumes = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    @Operation(summary = "Restore vector embeddings from a binary snapshot without calling the embedding model")
+    public ResponseEntity<Map<String, Long>> importSnapshot(
+        HttpServletRequest request,
+        @RequestParam(defaultValue = "false") boolean replace
+    ) throws IOException {
+        long imported = vectorSnapshotService.importSnapshot(request.getInputStream(), replace);
+        return ResponseEntity.ok(Map.of("imported", imported));
+    }
+
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('ADMIN', 'AGENT')")
     @Operation(summary = "Search for similar content using vector similarity")
     public ResponseEntity<Map<String, Object>> search(
         @RequestParam String query,
-        @RequestParam(defaultValue = "10") int limit
+        @RequestParam(defaultValue = "10") @Min(1) @Max(100) int limit,
+        @RequestParam(defaultValue = "false") boolean includeText
     ) {
-        var results = embeddingService.findSimilar(query, limit);
+        var results = embeddingService.findSimilar(query, limit, includeText);
         return ResponseEntity.ok(Map.of(
             "query", query,
             "results", results,
@@ -0,0 +1,26 @@
+package com.insurance.rag.dto;
+
+import com.insurance.common.entity.VectorEmbedding;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * A single chunk of text to embed and store, used for batch indexing
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ChunkSpec {
+
+    private VectorEmbedding.EntityType entityType;
+    private Long entityId;
+    /** Position within the entity; re-indexing overwrites the row at the same position */
+    private int chunkIndex;
+    private String chunkText;
+    private Map<String, Object> metadata;
+}
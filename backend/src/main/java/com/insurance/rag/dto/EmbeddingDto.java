@@ -1,5 +1,6 @@
 package com.insurance.rag.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import com.insurance.common.entity.VectorEmbedding;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -8,10 +9,15 @@ import lombok.NoArgsConstructor;
 
 import java.util.Map;
 
+/**
+ * Projection of a similarity hit. The vector itself is never loaded; chunk text and metadata
+ * are only present when requested.
+ */
 @Data
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class EmbeddingDto {
 
     private Long id;
@@ -19,5 +25,6 @@ public class EmbeddingDto {
     private Long entityId;
     private String chunkText;
     private Map<String, Object> metadata;
+    private Double distance;
     private Double similarity;
 }
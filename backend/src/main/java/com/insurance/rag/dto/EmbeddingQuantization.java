@@ -0,0 +1,27 @@
+package com.insurance.rag.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Representation searched in the first pass of a pgvector query. Quantized modes search a
+ * compact expression index, over-fetch {@code candidateMultiplier} times the limit, then rescore
+ * the candidates against the full-precision vector. Chosen with the rag.embedding.quantization admin setting;
+ * the index is only created when migrations run with RAG_QUANTIZED_INDEXES=true (see V16).
+ */
+@Getter
+@RequiredArgsConstructor
+public enum EmbeddingQuantization {
+
+    /** Full float32 vectors only */
+    NONE(1, null),
+    /** 16-bit halfvec index, half the size of the float32 index */
+    HALF(2, "idx_vector_embeddings_hnsw_halfvec"),
+    /** 1 bit per dimension, compared by Hamming distance; 1/32 of the float32 index */
+    BINARY(8, "idx_vector_embeddings_hnsw_bit");
+
+    private final int candidateMultiplier;
+
+    /** Expression index searched in the first pass, null when the full vectors are searched */
+    private final String indexName;
+}
@@ -0,0 +1,14 @@
+package com.insurance.rag.dto;
+
+/**
+ * A product ranked by hybrid retrieval: its fused score, its rank in the PRODUCT and DOC_CHUNK
+ * result lists (null when absent from one) and the closest chunk of its documents, if any
+ */
+public record ProductHit(
+    Long productId,
+    double score,
+    Integer productRank,
+    Integer chunkRank,
+    VectorMatch bestChunk
+) {
+}
@@ -1,5 +1,9 @@
 package com.insurance.rag.dto;
 
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
@@ -19,9 +23,38 @@ public class ProductRecommendationRequest {
 
     private Map<String, Object> customerNeeds;
 
+    /**
+     * Products to recommend, default 5. Candidates are over-fetched from this, so it is kept small
+     * enough for the vector search to stay within hnsw.ef_search limits.
+     */
+    @Min(1)
+    @Max(50)
     private Integer maxResults;
 
     private Long leadId;
 
     private Long voiceSessionId;
+
+    /**
+     * Vector search recall/latency trade-off; defaults to BALANCED
+     */
+    private VectorSearchProfile searchProfile;
+
+    /**
+     * Optional category/insurer/plan type restriction, applied inside the vector search
+     */
+    private VectorSearchFilter filter;
+
+    /**
+     * Optional MMR re-rank from 0 (default, pure relevance) to 1 (favour products least like those
+     * already recommended), so near-identical plans do not fill the list
+     */
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    private Double diversity;
+
+    /**
+     * Set to false to skip the LLM narrative and get the ranked products as soon as they are ready
+     */
+    private Boolean includeNarrative;
 }
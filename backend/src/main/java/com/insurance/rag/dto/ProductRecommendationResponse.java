@@ -30,5 +30,19 @@ public class ProductRecommendationResponse {
         private Double relevanceScore;
         private String reasoning;
         private Map<String, Object> details;
+        private Citation citation;
+    }
+
+    /**
+     * The document passage that best supports a recommendation
+     */
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Citation {
+        private Long documentId;
+        private String excerpt;
+        private Double similarity;
     }
 }
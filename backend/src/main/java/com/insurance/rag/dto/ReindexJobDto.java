@@ -0,0 +1,27 @@
+package com.insurance.rag.dto;
+
+import com.insurance.common.entity.ReindexJob;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReindexJobDto {
+
+    private Long id;
+    private ReindexJob.JobStatus status;
+    private long totalItems;
+    private long completedItems;
+    private long failedItems;
+    private long pendingItems;
+    private double itemsPerSecond;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String lastError;
+}
@@ -0,0 +1,7 @@
+package com.insurance.rag.dto;
+
+/**
+ * A nearest-neighbour hit: the matching embedding row, the entity it belongs to and its cosine distance
+ */
+public record VectorMatch(Long embeddingId, Long entityId, double distance) {
+}
@@ -0,0 +1,55 @@
+package com.insurance.rag.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Structured restriction on vector search candidates, matched against metadata_json keys
+ * written at indexing time. Null fields are not filtered on. DOC_CHUNK rows indexed before the
+ * product attributes were added to their metadata only match productId filters until reindexed.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class VectorSearchFilter {
+
+    private Long categoryId;
+
+    private String insurer;
+
+    private String planType;
+
+    private Long productId;
+
+    @JsonIgnore
+    public boolean isEmpty() {
+        return categoryId == null && insurer == null && planType == null && productId == null;
+    }
+
+    /**
+     * The filter as a jsonb containment document for {@code metadata_json @> ?}
+     */
+    public Map<String, Object> toMetadataContainment() {
+        Map<String, Object> containment = new HashMap<>();
+        if (categoryId != null) {
+            containment.put("categoryId", categoryId);
+        }
+        if (insurer != null) {
+            containment.put("insurer", insurer);
+        }
+        if (planType != null) {
+            containment.put("planType", planType);
+        }
+        if (productId != null) {
+            containment.put("productId", productId);
+        }
+        return containment;
+    }
+}
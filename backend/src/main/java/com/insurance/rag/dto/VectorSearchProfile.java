@@ -0,0 +1,23 @@
+package com.insurance.rag.dto;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Per-query recall/latency trade-off for approximate vector search.
+ * Values are applied as hnsw.ef_search and ivfflat.probes, so the same profile works
+ * whichever index type backs vector_embeddings.
+ */
+@Getter
+@RequiredArgsConstructor
+public enum VectorSearchProfile {
+
+    FAST(20, 1),
+    BALANCED(64, 10),
+    ACCURATE(200, 40),
+    /** Bypass the ANN index and scan exactly; for diagnostics and recall baselines */
+    EXACT(0, 0);
+
+    private final int efSearch;
+    private final int probes;
+}
@@ -0,0 +1,79 @@
+package com.insurance.rag.extraction;
+
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * SAX handler that cuts document text into chunks as the parser produces it, so only the
+ * current partial chunk is ever held in memory. Chunks break at the last sentence end, else the
+ * last space, in the second half of the window; blank chunks are dropped.
+ */
+public class ChunkingContentHandler extends DefaultHandler {
+
+    /** Receives each completed chunk; may block to apply back-pressure to the parser */
+    @FunctionalInterface
+    public interface ChunkSink {
+        void accept(String chunk) throws SAXException;
+    }
+
+    private final int chunkSize;
+    private final ChunkSink sink;
+    private final StringBuilder buffer;
+
+    private int chunkCount;
+
+    public ChunkingContentHandler(int chunkSize, ChunkSink sink) {
+        this.chunkSize = chunkSize;
+        this.sink = sink;
+        this.buffer = new StringBuilder(chunkSize * 2);
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) throws SAXException {
+        buffer.append(ch, start, length);
+        // A full window plus one character lets a sentence end exactly at the boundary be kept
+        while (buffer.length() > chunkSize) {
+            emit(breakPoint());
+        }
+    }
+
+    @Override
+    public void ignorableWhitespace(char[] ch, int start, int length) throws SAXException {
+        characters(ch, start, length);
+    }
+
+    @Override
+    public void endDocument() throws SAXException {
+        while (buffer.length() > chunkSize) {
+            emit(breakPoint());
+        }
+        if (!buffer.isEmpty()) {
+            emit(buffer.length());
+        }
+    }
+
+    public int getChunkCount() {
+        return chunkCount;
+    }
+
+    private int breakPoint() {
+        int lastPeriod = buffer.lastIndexOf(".", chunkSize);
+        int lastSpace = buffer.lastIndexOf(" ", chunkSize);
+
+        if (lastPeriod > chunkSize / 2) {
+            return lastPeriod + 1;
+        } else if (lastSpace > chunkSize / 2) {
+            return lastSpace;
+        }
+        return chunkSize;
+    }
+
+    private void emit(int end) throws SAXException {
+        String chunk = buffer.substring(0, end).trim();
+        buffer.delete(0, end);
+        if (!chunk.isEmpty()) {
+            chunkCount++;
+            sink.accept(chunk);
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.insurance.rag.extraction;
+
+import org.xml.sax.SAXException;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Chunks of one document, produced by a background parse and handed over through a bounded
+ * queue. The parser blocks when the consumer falls behind, so memory stays at most
+ * {@code capacity} chunks regardless of document size. Closing the stream cancels the parse.
+ */
+public class DocumentChunkStream implements Iterator<String>, AutoCloseable {
+
+    private static final Object END = new Object();
+
+    private final BlockingQueue<Object> queue;
+    private volatile boolean closed;
+    private volatile Throwable failure;
+    private volatile boolean done;
+    private CompletableFuture<?> producer;
+    private Object next;
+    private boolean finished;
+
+    DocumentChunkStream(int capacity) {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+    }
+
+    /** The stream ends when the producer completes, including when it is abandoned after a timeout */
+    void attach(CompletableFuture<?> producer) {
+        this.producer = producer;
+        producer.whenComplete((value, error) -> complete(error));
+    }
+
+    /** Called on the parser thread for each chunk; blocks while the queue is full */
+    void offer(String chunk) throws SAXException {
+        if (closed) {
+            throw new SAXException("Chunk stream closed");
+        }
+        try {
+            queue.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SAXException("Interrupted while queueing chunk", e);
+        }
+    }
+
+    private void complete(Throwable error) {
+        failure = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+        done = true;
+        // Best effort wake-up; a consumer polling an empty queue also notices done
+        queue.offer(END);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (finished) {
+            return false;
+        }
+        try {
+            while (next == null) {
+                next = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (next == null && done && queue.isEmpty()) {
+                    next = END;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for document chunks", e);
+        }
+        if (next == END) {
+            finished = true;
+            if (failure != null && !closed) {
+                throw new RuntimeException("Document parsing failed", failure);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public String next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String chunk = (String) next;
+        next = null;
+        return chunk;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (producer != null) {
+            producer.cancel(true);
+        }
+        // Unblock a parser waiting on a full queue so it can observe the close
+        queue.clear();
+    }
+}
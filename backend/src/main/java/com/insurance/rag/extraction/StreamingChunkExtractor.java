@@ -0,0 +1,96 @@
+package com.insurance.rag.extraction;
+
+import com.insurance.products.parsing.DocumentParsingExecutor;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.tika.metadata.Metadata;
+import org.apache.tika.parser.ParseContext;
+import org.apache.tika.parser.Parser;
+import org.apache.tika.sax.BodyContentHandler;
+import org.apache.tika.sax.TeeContentHandler;
+import org.apache.tika.sax.ToTextContentHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.xml.sax.ContentHandler;
+
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Streams document text as chunks from a background thread, so embedding can start on the
+ * first chunks while the rest of the document is still being read or parsed. Tika parses run on
+ * the {@link DocumentParsingExecutor} under its time budget; time spent waiting for the
+ * embedding stage to take chunks is not counted against it.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class StreamingChunkExtractor {
+
+    private static final int READ_BUFFER_CHARS = 8192;
+
+    private final Parser documentParser;
+    private final DocumentParsingExecutor parsingExecutor;
+
+    // Plain-text reads involve no parser, so they stay off the bounded parsing pool
+    private final ExecutorService textExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${app.rag.extraction.queue-capacity:256}")
+    private int queueCapacity;
+
+    /**
+     * Parse a document with Tika, optionally copying the full plain text to {@code textCopy}.
+     * The input stream and writer are closed when parsing ends; the caller must close the returned stream.
+     */
+    public DocumentChunkStream stream(String description, InputStream inputStream, int chunkSize, Writer textCopy) {
+        DocumentChunkStream stream = new DocumentChunkStream(queueCapacity);
+        stream.attach(parsingExecutor.submit(description, budget -> {
+            try (InputStream in = inputStream; Writer copy = textCopy) {
+                ChunkingContentHandler chunker = new ChunkingContentHandler(chunkSize, chunk -> {
+                    long waitStart = System.nanoTime();
+                    stream.offer(chunk);
+                    budget.excludeWait(System.nanoTime() - waitStart);
+                });
+                ContentHandler handler = copy != null
+                    ? new TeeContentHandler(chunker, new ToTextContentHandler(copy))
+                    : chunker;
+                documentParser.parse(in, budget.guard(new BodyContentHandler(handler)), new Metadata(), new ParseContext());
+                log.debug("Parsed {} into {} chunks", description, chunker.getChunkCount());
+            }
+            return null;
+        }));
+        return stream;
+    }
+
+    /**
+     * Chunk already-extracted plain text. The reader is closed when it is exhausted;
+     * the caller must close the returned stream.
+     */
+    public DocumentChunkStream streamText(Reader reader, int chunkSize) {
+        DocumentChunkStream stream = new DocumentChunkStream(queueCapacity);
+        stream.attach(CompletableFuture.runAsync(() -> {
+            try (Reader in = reader) {
+                ChunkingContentHandler chunker = new ChunkingContentHandler(chunkSize, stream::offer);
+                char[] buffer = new char[READ_BUFFER_CHARS];
+                int read;
+                while ((read = in.read(buffer)) != -1) {
+                    chunker.characters(buffer, 0, read);
+                }
+                chunker.endDocument();
+            } catch (Exception e) {
+                throw new RuntimeException("Failed to read extracted text", e);
+            }
+        }, textExecutor));
+        return stream;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        textExecutor.shutdownNow();
+    }
+}
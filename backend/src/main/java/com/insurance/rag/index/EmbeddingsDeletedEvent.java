@@ -0,0 +1,9 @@
+package com.insurance.rag.index;
+
+import com.insurance.common.entity.VectorEmbedding;
+
+/**
+ * Published after all embeddings of an entity are deleted
+ */
+public record EmbeddingsDeletedEvent(VectorEmbedding.EntityType entityType, Long entityId) {
+}
@@ -0,0 +1,8 @@
+package com.insurance.rag.index;
+
+/**
+ * Published when vector_embeddings is replaced wholesale, e.g. by a snapshot restore; in-process
+ * indexes rebuild from the database
+ */
+public record EmbeddingsReplacedEvent() {
+}
@@ -0,0 +1,11 @@
+package com.insurance.rag.index;
+
+import com.insurance.common.entity.VectorEmbedding;
+
+import java.util.List;
+
+/**
+ * Published after embedding rows are written; rows carry their generated ids
+ */
+public record EmbeddingsStoredEvent(List<VectorEmbedding> embeddings) {
+}
@@ -0,0 +1,10 @@
+package com.insurance.rag.index;
+
+import com.insurance.common.entity.VectorEmbedding;
+
+/**
+ * Published after an entity's embeddings were rewritten without holding them in memory; in-process
+ * indexes drop what they hold for the entity and read its rows back from the database
+ */
+public record EntityEmbeddingsReplacedEvent(VectorEmbedding.EntityType entityType, Long entityId) {
+}
@@ -0,0 +1,416 @@
+package com.insurance.rag.index;
+
+import com.insurance.rag.dto.VectorMatch;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Hierarchical Navigable Small World graph over primitive float[] vectors.
+ * Vectors are normalized on insert so cosine distance reduces to 1 - dot product.
+ * Deletions are tombstones; callers rebuild with {@link #compact()} once too many accumulate.
+ * Not thread-safe: {@link HnswVectorIndex} guards it with a read/write lock.
+ */
+class HnswGraph {
+
+    private static final int MAGIC = 0x484E5357;
+    private static final int VERSION = 2;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final int dimensions;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random = new Random(42);
+
+    private float[][] vectors = new float[INITIAL_CAPACITY][];
+    private long[] embeddingIds = new long[INITIAL_CAPACITY];
+    private long[] entityIds = new long[INITIAL_CAPACITY];
+    private int[][][] neighbors = new int[INITIAL_CAPACITY][][];
+    private final BitSet deleted = new BitSet();
+    private final Map<Long, List<Integer>> nodesByEntity = new HashMap<>();
+
+    private int size;
+    private int deletedCount;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+    private long maxGeneration;
+
+    HnswGraph(int dimensions, int m, int efConstruction) {
+        this.dimensions = dimensions;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(m);
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    int liveCount() {
+        return size - deletedCount;
+    }
+
+    /** Highest vector_embeddings generation added, compared with the database to detect staleness */
+    long maxGeneration() {
+        return maxGeneration;
+    }
+
+    boolean needsCompaction() {
+        return deletedCount > 16 && deletedCount > size / 4;
+    }
+
+    void add(long embeddingId, long entityId, long generation, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + vector.length);
+        }
+
+        int node = size;
+        ensureCapacity(node + 1);
+        vectors[node] = normalize(vector.clone());
+        embeddingIds[node] = embeddingId;
+        entityIds[node] = entityId;
+        nodesByEntity.computeIfAbsent(entityId, id -> new ArrayList<>()).add(node);
+        maxGeneration = Math.max(maxGeneration, generation);
+
+        int level = randomLevel();
+        neighbors[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            neighbors[node][l] = new int[0];
+        }
+        size++;
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return;
+        }
+
+        float[] query = vectors[node];
+        int current = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            current = greedyClosest(query, current, l);
+        }
+
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            List<Candidate> candidates = searchLayer(query, current, efConstruction, l);
+            int[] selected = new int[Math.min(m, candidates.size())];
+            for (int i = 0; i < selected.length; i++) {
+                selected[i] = candidates.get(i).node;
+            }
+            neighbors[node][l] = selected;
+
+            int maxConnections = l == 0 ? maxM0 : m;
+            for (int neighbor : selected) {
+                connect(neighbor, node, l, maxConnections);
+            }
+            current = candidates.get(0).node;
+        }
+
+        if (level > maxLevel) {
+            maxLevel = level;
+            entryPoint = node;
+        }
+    }
+
+    void removeEntity(long entityId) {
+        List<Integer> nodes = nodesByEntity.remove(entityId);
+        if (nodes == null) {
+            return;
+        }
+        for (int node : nodes) {
+            if (!deleted.get(node)) {
+                deleted.set(node);
+                deletedCount++;
+            }
+        }
+    }
+
+    /**
+     * Approximate k nearest neighbours; ef trades recall for latency like pgvector's hnsw.ef_search
+     */
+    List<VectorMatch> search(float[] queryVector, int k, int ef) {
+        if (entryPoint < 0 || k <= 0) {
+            return List.of();
+        }
+
+        float[] query = normalize(queryVector.clone());
+        int current = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            current = greedyClosest(query, current, l);
+        }
+
+        // Tombstoned nodes still route the search but are dropped from the results
+        int effectiveEf = Math.max(ef, k) + Math.min(deletedCount, k);
+        List<Candidate> candidates = searchLayer(query, current, effectiveEf, 0);
+
+        List<VectorMatch> matches = new ArrayList<>(k);
+        for (Candidate candidate : candidates) {
+            if (deleted.get(candidate.node)) {
+                continue;
+            }
+            matches.add(toMatch(candidate));
+            if (matches.size() == k) {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Brute-force k nearest neighbours over all live vectors
+     */
+    List<VectorMatch> exactSearch(float[] queryVector, int k) {
+        float[] query = normalize(queryVector.clone());
+        PriorityQueue<Candidate> best = new PriorityQueue<>(k + 1, (a, b) -> Float.compare(b.distance, a.distance));
+        for (int node = 0; node < size; node++) {
+            if (deleted.get(node)) {
+                continue;
+            }
+            float distance = distance(query, vectors[node]);
+            if (best.size() < k) {
+                best.add(new Candidate(node, distance));
+            } else if (distance < best.peek().distance) {
+                best.poll();
+                best.add(new Candidate(node, distance));
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(best);
+        sorted.sort((a, b) -> Float.compare(a.distance, b.distance));
+        return sorted.stream().map(this::toMatch).toList();
+    }
+
+    /**
+     * Rebuild the graph from live vectors only, dropping tombstones
+     */
+    HnswGraph compact() {
+        HnswGraph compacted = new HnswGraph(dimensions, m, efConstruction);
+        for (int node = 0; node < size; node++) {
+            if (!deleted.get(node)) {
+                compacted.add(embeddingIds[node], entityIds[node], 0L, vectors[node]);
+            }
+        }
+        compacted.maxGeneration = maxGeneration;
+        return compacted;
+    }
+
+    void writeTo(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(dimensions);
+        out.writeInt(m);
+        out.writeInt(efConstruction);
+        out.writeInt(size);
+        out.writeInt(entryPoint);
+        out.writeInt(maxLevel);
+        out.writeLong(maxGeneration);
+
+        for (int node = 0; node < size; node++) {
+            out.writeLong(embeddingIds[node]);
+            out.writeLong(entityIds[node]);
+            out.writeBoolean(deleted.get(node));
+            for (float value : vectors[node]) {
+                out.writeFloat(value);
+            }
+            out.writeInt(neighbors[node].length);
+            for (int[] levelNeighbors : neighbors[node]) {
+                out.writeInt(levelNeighbors.length);
+                for (int neighbor : levelNeighbors) {
+                    out.writeInt(neighbor);
+                }
+            }
+        }
+    }
+
+    static HnswGraph readFrom(DataInputStream in) throws IOException {
+        if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+            throw new IOException("Not an HNSW snapshot or unsupported version");
+        }
+
+        HnswGraph graph = new HnswGraph(in.readInt(), in.readInt(), in.readInt());
+        int count = in.readInt();
+        graph.ensureCapacity(count);
+        graph.entryPoint = in.readInt();
+        graph.maxLevel = in.readInt();
+        graph.maxGeneration = in.readLong();
+
+        for (int node = 0; node < count; node++) {
+            graph.embeddingIds[node] = in.readLong();
+            graph.entityIds[node] = in.readLong();
+            if (in.readBoolean()) {
+                graph.deleted.set(node);
+                graph.deletedCount++;
+            } else {
+                graph.nodesByEntity.computeIfAbsent(graph.entityIds[node], id -> new ArrayList<>()).add(node);
+            }
+
+            float[] vector = new float[graph.dimensions];
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] = in.readFloat();
+            }
+            graph.vectors[node] = vector;
+
+            int levels = in.readInt();
+            graph.neighbors[node] = new int[levels][];
+            for (int l = 0; l < levels; l++) {
+                int[] levelNeighbors = new int[in.readInt()];
+                for (int i = 0; i < levelNeighbors.length; i++) {
+                    levelNeighbors[i] = in.readInt();
+                }
+                graph.neighbors[node][l] = levelNeighbors;
+            }
+        }
+        graph.size = count;
+        return graph;
+    }
+
+    private int greedyClosest(float[] query, int start, int level) {
+        int current = start;
+        float currentDistance = distance(query, vectors[current]);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            for (int neighbor : neighbors[current][level]) {
+                float d = distance(query, vectors[neighbor]);
+                if (d < currentDistance) {
+                    current = neighbor;
+                    currentDistance = d;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Best-first search of one layer, returning up to ef candidates ordered by ascending distance
+     */
+    private List<Candidate> searchLayer(float[] query, int entry, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        PriorityQueue<Candidate> frontier = new PriorityQueue<>((a, b) -> Float.compare(a.distance, b.distance));
+        PriorityQueue<Candidate> results = new PriorityQueue<>((a, b) -> Float.compare(b.distance, a.distance));
+
+        Candidate start = new Candidate(entry, distance(query, vectors[entry]));
+        visited.set(entry);
+        frontier.add(start);
+        results.add(start);
+
+        while (!frontier.isEmpty()) {
+            Candidate closest = frontier.poll();
+            if (results.size() >= ef && closest.distance > results.peek().distance) {
+                break;
+            }
+            for (int neighbor : neighbors[closest.node][level]) {
+                if (visited.get(neighbor)) {
+                    continue;
+                }
+                visited.set(neighbor);
+                float d = distance(query, vectors[neighbor]);
+                if (results.size() < ef || d < results.peek().distance) {
+                    Candidate candidate = new Candidate(neighbor, d);
+                    frontier.add(candidate);
+                    results.add(candidate);
+                    if (results.size() > ef) {
+                        results.poll();
+                    }
+                }
+            }
+        }
+
+        List<Candidate> sorted = new ArrayList<>(results);
+        sorted.sort((a, b) -> Float.compare(a.distance, b.distance));
+        return sorted;
+    }
+
+    /**
+     * Add a back-link from node to newNeighbor, keeping only the closest links when the list is full
+     */
+    private void connect(int node, int newNeighbor, int level, int maxConnections) {
+        int[] current = neighbors[node][level];
+        if (current.length < maxConnections) {
+            int[] extended = Arrays.copyOf(current, current.length + 1);
+            extended[current.length] = newNeighbor;
+            neighbors[node][level] = extended;
+            return;
+        }
+
+        float[] base = vectors[node];
+        Candidate[] all = new Candidate[current.length + 1];
+        for (int i = 0; i < current.length; i++) {
+            all[i] = new Candidate(current[i], distance(base, vectors[current[i]]));
+        }
+        all[current.length] = new Candidate(newNeighbor, distance(base, vectors[newNeighbor]));
+        Arrays.sort(all, (a, b) -> Float.compare(a.distance, b.distance));
+
+        int[] pruned = new int[maxConnections];
+        for (int i = 0; i < maxConnections; i++) {
+            pruned[i] = all[i].node;
+        }
+        neighbors[node][level] = pruned;
+    }
+
+    private int randomLevel() {
+        return (int) Math.floor(-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= vectors.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, vectors.length * 2);
+        vectors = Arrays.copyOf(vectors, newCapacity);
+        embeddingIds = Arrays.copyOf(embeddingIds, newCapacity);
+        entityIds = Arrays.copyOf(entityIds, newCapacity);
+        neighbors = Arrays.copyOf(neighbors, newCapacity);
+    }
+
+    private VectorMatch toMatch(Candidate candidate) {
+        return new VectorMatch(embeddingIds[candidate.node], entityIds[candidate.node], candidate.distance);
+    }
+
+    static float distance(float[] a, float[] b) {
+        // Four independent accumulators let the JIT overlap the multiply-adds
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        int upper = a.length & ~3;
+        for (; i < upper; i += 4) {
+            s0 += a[i] * b[i];
+            s1 += a[i + 1] * b[i + 1];
+            s2 += a[i + 2] * b[i + 2];
+            s3 += a[i + 3] * b[i + 3];
+        }
+        for (; i < a.length; i++) {
+            s0 += a[i] * b[i];
+        }
+        return 1f - (s0 + s1 + s2 + s3);
+    }
+
+    static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        if (norm > 0) {
+            float inverse = (float) (1.0 / Math.sqrt(norm));
+            for (int i = 0; i < vector.length; i++) {
+                vector[i] *= inverse;
+            }
+        }
+        return vector;
+    }
+
+    private record Candidate(int node, float distance) {
+    }
+}
@@ -0,0 +1,342 @@
+package com.insurance.rag.index;
+
+import com.insurance.common.entity.VectorEmbedding;
+import com.insurance.rag.dto.VectorMatch;
+import com.insurance.rag.dto.VectorSearchFilter;
+import com.insurance.rag.dto.VectorSearchProfile;
+import com.insurance.rag.repository.VectorEmbeddingRepository;
+import com.insurance.rag.repository.VectorEmbeddingRepositoryCustom.EntityTypeStats;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process HNSW index for PRODUCT embeddings, enabled with app.rag.vector-index.product.backend=hnsw.
+ * The graph is loaded from a local snapshot when it still matches vector_embeddings, otherwise rebuilt
+ * from the database, and kept current from embedding store/delete events. Writes this instance gets no
+ * event for, such as those of other instances, are caught by a periodic staleness check that rebuilds
+ * the graph. Until it is loaded, queries fall through to {@link PostgresVectorIndex}.
+ */
+@Component
+@Order(0)
+@ConditionalOnProperty(name = "app.rag.vector-index.product.backend", havingValue = "hnsw")
+@RequiredArgsConstructor
+@Slf4j
+public class HnswVectorIndex implements VectorIndex {
+
+    private static final VectorEmbedding.EntityType ENTITY_TYPE = VectorEmbedding.EntityType.PRODUCT;
+
+    private final VectorEmbeddingRepository vectorEmbeddingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile HnswGraph graph;
+    private volatile boolean dirty;
+
+    @Value("${app.rag.vector-index.product.m:16}")
+    private int m;
+
+    @Value("${app.rag.vector-index.product.ef-construction:100}")
+    private int efConstruction;
+
+    @Value("${app.rag.vector-index.product.snapshot-path:./storage/index/product-hnsw.bin}")
+    private String snapshotPath;
+
+    @Override
+    public boolean supports(VectorEmbedding.EntityType entityType, VectorSearchFilter filter) {
+        // The graph holds no product attributes; filtered queries go to Postgres
+        return entityType == ENTITY_TYPE && graph != null && (filter == null || filter.isEmpty());
+    }
+
+    @Override
+    public List<VectorMatch> search(
+        VectorEmbedding.EntityType entityType,
+        float[] queryEmbedding,
+        int limit,
+        VectorSearchProfile profile,
+        VectorSearchFilter filter
+    ) {
+        lock.readLock().lock();
+        try {
+            if (profile == VectorSearchProfile.EXACT) {
+                return graph.exactSearch(queryEmbedding, limit);
+            }
+            VectorSearchProfile effective = profile != null ? profile : VectorSearchProfile.BALANCED;
+            return graph.search(queryEmbedding, limit, effective.getEfSearch());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        HnswGraph loaded = loadSnapshot();
+        if (loaded == null || isStale(loaded)) {
+            loaded = rebuildFromDatabase();
+            writeSnapshot(loaded);
+        }
+
+        lock.writeLock().lock();
+        try {
+            graph = loaded;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // Writes that committed while the graph was being built were not seen by it
+        if (isStale(loaded)) {
+            log.info("Product vectors changed during index load, rebuilding");
+            HnswGraph rebuilt = rebuildFromDatabase();
+            lock.writeLock().lock();
+            try {
+                graph = rebuilt;
+                dirty = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        log.info("HNSW product index ready with {} vectors", graph.liveCount());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmbeddingsStored(EmbeddingsStoredEvent event) {
+        if (graph == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            for (VectorEmbedding embedding : event.embeddings()) {
+                if (embedding.getEntityType() == ENTITY_TYPE && embedding.getId() != null) {
+                    graph.add(embedding.getId(), embedding.getEntityId(), generation(embedding), embedding.getEmbedding());
+                    dirty = true;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmbeddingsDeleted(EmbeddingsDeletedEvent event) {
+        if (graph == null || event.entityType() != ENTITY_TYPE) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            graph.removeEntity(event.entityId());
+            if (graph.needsCompaction()) {
+                graph = graph.compact();
+                log.info("Compacted HNSW product index to {} vectors", graph.liveCount());
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Replaces the entity's nodes with its current rows, read back from the database
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityEmbeddingsReplaced(EntityEmbeddingsReplacedEvent event) {
+        if (graph == null || event.entityType() != ENTITY_TYPE) {
+            return;
+        }
+
+        List<VectorEmbedding> embeddings = new ArrayList<>();
+        readTransaction().executeWithoutResult(status ->
+            vectorEmbeddingRepository.forEachEmbedding(ENTITY_TYPE, event.entityId(), embeddings::add));
+
+        lock.writeLock().lock();
+        try {
+            graph.removeEntity(event.entityId());
+            for (VectorEmbedding embedding : embeddings) {
+                if (embedding.getEmbedding() != null) {
+                    graph.add(embedding.getId(), embedding.getEntityId(), generation(embedding), embedding.getEmbedding());
+                }
+            }
+            if (graph.needsCompaction()) {
+                graph = graph.compact();
+            }
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the graph after vector_embeddings was replaced wholesale; searches use the old graph
+     * until the new one is swapped in
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmbeddingsReplaced(EmbeddingsReplacedEvent event) {
+        if (graph == null) {
+            return;
+        }
+
+        HnswGraph rebuilt = rebuildFromDatabase();
+        // Writes committing during the rebuild were applied to the old graph only
+        if (isStale(rebuilt)) {
+            rebuilt = rebuildFromDatabase();
+        }
+        lock.writeLock().lock();
+        try {
+            graph = rebuilt;
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Rebuilt HNSW product index after embeddings were replaced: {} vectors", rebuilt.liveCount());
+    }
+
+    /**
+     * Rebuilds the graph when it no longer matches vector_embeddings; searches use the old graph until
+     * the new one is swapped in
+     */
+    @Scheduled(
+        fixedDelayString = "${app.rag.vector-index.product.refresh-interval:PT1M}",
+        initialDelayString = "${app.rag.vector-index.product.refresh-interval:PT1M}"
+    )
+    public void refreshIfStale() {
+        HnswGraph current = graph;
+        if (current == null || !isStale(current)) {
+            return;
+        }
+
+        HnswGraph rebuilt = rebuildFromDatabase();
+        lock.writeLock().lock();
+        try {
+            graph = rebuilt;
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Rebuilt stale HNSW product index: {} vectors", rebuilt.liveCount());
+    }
+
+    @Scheduled(fixedDelayString = "${app.rag.vector-index.product.snapshot-interval:PT10M}")
+    public void snapshotIfDirty() {
+        if (graph == null || !dirty) {
+            return;
+        }
+
+        lock.readLock().lock();
+        try {
+            dirty = false;
+            writeSnapshot(graph);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        snapshotIfDirty();
+    }
+
+    private boolean isStale(HnswGraph candidate) {
+        EntityTypeStats stats = vectorEmbeddingRepository.getEntityTypeStats(ENTITY_TYPE);
+        lock.readLock().lock();
+        try {
+            return stats.count() != candidate.liveCount() || stats.maxGeneration() != candidate.maxGeneration();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * A transaction of its own: after-commit listeners still have the finished transaction bound
+     */
+    private TransactionTemplate readTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private static long generation(VectorEmbedding embedding) {
+        return embedding.getGeneration() != null ? embedding.getGeneration() : 0L;
+    }
+
+    private HnswGraph rebuildFromDatabase() {
+        long start = System.currentTimeMillis();
+        HnswGraph[] built = new HnswGraph[1];
+
+        transactionTemplate.executeWithoutResult(status ->
+            vectorEmbeddingRepository.forEachEmbedding(ENTITY_TYPE, embedding -> {
+                if (embedding.getEmbedding() == null) {
+                    return;
+                }
+                if (built[0] == null) {
+                    built[0] = new HnswGraph(embedding.getEmbedding().length, m, efConstruction);
+                }
+                built[0].add(embedding.getId(), embedding.getEntityId(), generation(embedding), embedding.getEmbedding());
+            }));
+
+        HnswGraph result = built[0] != null ? built[0] : new HnswGraph(1536, m, efConstruction);
+        log.info("Built HNSW product index with {} vectors in {} ms",
+            result.liveCount(), System.currentTimeMillis() - start);
+        return result;
+    }
+
+    private HnswGraph loadSnapshot() {
+        Path path = Paths.get(snapshotPath);
+        if (!Files.exists(path)) {
+            return null;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            HnswGraph loaded = HnswGraph.readFrom(in);
+            log.info("Loaded HNSW product index snapshot with {} vectors from {}", loaded.liveCount(), path);
+            return loaded;
+        } catch (IOException e) {
+            log.warn("Ignoring unreadable HNSW snapshot {}: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private void writeSnapshot(HnswGraph snapshot) {
+        Path path = Paths.get(snapshotPath).toAbsolutePath();
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+
+        try {
+            Files.createDirectories(path.getParent());
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                snapshot.writeTo(out);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Wrote HNSW product index snapshot to {}", path);
+        } catch (IOException e) {
+            log.error("Failed to write HNSW snapshot to {}", path, e);
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.insurance.rag.index;
+
+import com.insurance.common.entity.VectorEmbedding;
+import com.insurance.rag.dto.EmbeddingQuantization;
+import com.insurance.rag.dto.VectorMatch;
+import com.insurance.rag.dto.VectorSearchFilter;
+import com.insurance.rag.dto.VectorSearchProfile;
+import com.insurance.rag.repository.VectorEmbeddingRepository;
+import com.insurance.rag.service.QuantizationSettingsService;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+/**
+ * Default backend: pgvector search in the database. Supports every entity type and is
+ * ordered last so it serves whatever no other backend claims. The first pass uses the
+ * quantized index selected by {@link QuantizationSettingsService}.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class PostgresVectorIndex implements VectorIndex {
+
+    private final VectorEmbeddingRepository vectorEmbeddingRepository;
+    private final QuantizationSettingsService quantizationSettingsService;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public PostgresVectorIndex(
+        VectorEmbeddingRepository vectorEmbeddingRepository,
+        QuantizationSettingsService quantizationSettingsService,
+        PlatformTransactionManager transactionManager
+    ) {
+        this.vectorEmbeddingRepository = vectorEmbeddingRepository;
+        this.quantizationSettingsService = quantizationSettingsService;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public boolean supports(VectorEmbedding.EntityType entityType, VectorSearchFilter filter) {
+        return true;
+    }
+
+    @Override
+    public List<VectorMatch> search(
+        VectorEmbedding.EntityType entityType,
+        float[] queryEmbedding,
+        int limit,
+        VectorSearchProfile profile,
+        VectorSearchFilter filter
+    ) {
+        EmbeddingQuantization quantization = quantizationSettingsService.getMode();
+
+        // The search profile is applied with transaction-local settings, so the query needs a transaction
+        return readOnlyTransaction.execute(status -> vectorEmbeddingRepository.findNearestByEntityType(
+            queryEmbedding,
+            entityType.name(),
+            limit,
+            profile,
+            quantization,
+            filter
+        ));
+    }
+}
@@ -0,0 +1,455 @@
+package com.insurance.rag.index;
+
+import com.insurance.common.entity.VectorEmbedding;
+import com.insurance.rag.dto.VectorMatch;
+import com.insurance.rag.dto.VectorSearchFilter;
+import com.insurance.rag.dto.VectorSearchProfile;
+import com.insurance.rag.repository.VectorEmbeddingRepository;
+import com.insurance.rag.repository.VectorEmbeddingRepositoryCustom.EntityTypeStats;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Off-heap exact-search backend for DOC_CHUNK embeddings, enabled with
+ * app.rag.vector-index.doc-chunk.backend=segment. Vectors live in memory-mapped {@link VectorSegment}
+ * files, so the corpus can outgrow the heap and queries never touch the database. Segments are
+ * reopened at startup when they still match vector_embeddings, otherwise rebuilt, and kept current
+ * from embedding store/delete/replace events; events arriving during the load are queued and
+ * replayed after it. A snapshot restore triggers a full rebuild. Until they are loaded, queries fall through to
+ * {@link PostgresVectorIndex}.
+ */
+@Component
+@Order(1)
+@ConditionalOnProperty(name = "app.rag.vector-index.doc-chunk.backend", havingValue = "segment")
+@RequiredArgsConstructor
+@Slf4j
+public class SegmentVectorIndex implements VectorIndex {
+
+    private static final VectorEmbedding.EntityType ENTITY_TYPE = VectorEmbedding.EntityType.DOC_CHUNK;
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private final VectorEmbeddingRepository vectorEmbeddingRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<VectorSegment> segments = new ArrayList<>();
+    private long nextSequence;
+
+    /** Embedding events received before the segments are loaded, replayed in order once they are */
+    private final List<Object> pendingEvents = new ArrayList<>();
+    private volatile boolean loaded;
+    private boolean loadFailed;
+
+    /** Highest generation in the segments when loading finished; newer rows cannot be in them yet */
+    private long loadedMaxGeneration;
+
+    @Value("${app.rag.vector-index.doc-chunk.directory:./storage/index/doc-chunk-segments}")
+    private String directory;
+
+    @Value("${app.rag.vector-index.doc-chunk.segment-capacity:100000}")
+    private int segmentCapacity;
+
+    @Override
+    public boolean supports(VectorEmbedding.EntityType entityType, VectorSearchFilter filter) {
+        // The sidecar carries the product id, so only product filters can be answered here
+        boolean supportedFilter = filter == null
+            || (filter.getCategoryId() == null && filter.getInsurer() == null && filter.getPlanType() == null);
+        return entityType == ENTITY_TYPE && loaded && supportedFilter;
+    }
+
+    @Override
+    public List<VectorMatch> search(
+        VectorEmbedding.EntityType entityType,
+        float[] queryEmbedding,
+        int limit,
+        VectorSearchProfile profile,
+        VectorSearchFilter filter
+    ) {
+        // Every profile is served exactly; a full scan of mapped memory is already cheap enough
+        float[] query = HnswGraph.normalize(queryEmbedding.clone());
+        Long productId = filter != null ? filter.getProductId() : null;
+        Comparator<VectorMatch> byDistanceDescending = Comparator.comparingDouble(VectorMatch::distance).reversed();
+
+        lock.readLock().lock();
+        try {
+            // Segments written at another dimension are left over from a doc-chunk-dimensions change
+            PriorityQueue<VectorMatch> top = segments.parallelStream()
+                .filter(segment -> segment.dimensions() == query.length)
+                .map(segment -> {
+                    PriorityQueue<VectorMatch> segmentTop = new PriorityQueue<>(byDistanceDescending);
+                    segment.scan(query, limit, productId, segmentTop);
+                    return segmentTop;
+                })
+                .reduce(new PriorityQueue<>(byDistanceDescending), (left, right) -> {
+                    PriorityQueue<VectorMatch> merged = new PriorityQueue<>(byDistanceDescending);
+                    Stream.concat(left.stream(), right.stream()).forEach(match -> {
+                        merged.add(match);
+                        if (merged.size() > limit) {
+                            merged.poll();
+                        }
+                    });
+                    return merged;
+                });
+
+            List<VectorMatch> results = new ArrayList<>(top);
+            results.sort(Comparator.comparingDouble(VectorMatch::distance));
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        lock.writeLock().lock();
+        try {
+            openSegments();
+            if (isStale()) {
+                rebuildFromDatabase();
+            }
+            replayPendingEvents();
+        } catch (IOException e) {
+            failLoad(e);
+            return;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Segment DOC_CHUNK index ready with {} vectors in {} segments", liveCount(), segments.size());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmbeddingsStored(EmbeddingsStoredEvent event) {
+        if (deferUntilLoaded(event)) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            applyStored(event);
+        } catch (IOException e) {
+            // Marks the index stale; the next startup rebuilds it from the database
+            log.error("Failed to append DOC_CHUNK vectors to segments", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmbeddingsDeleted(EmbeddingsDeletedEvent event) {
+        if (event.entityType() != ENTITY_TYPE || deferUntilLoaded(event)) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            applyDeleted(event);
+        } catch (IOException e) {
+            log.error("Failed to compact DOC_CHUNK vector segments", e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEntityEmbeddingsReplaced(EntityEmbeddingsReplacedEvent event) {
+        if (event.entityType() != ENTITY_TYPE || deferUntilLoaded(event)) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            applyEntityReplaced(event);
+        } catch (IOException e) {
+            log.error("Failed to reload DOC_CHUNK vectors of entity {}", event.entityId(), e);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Rebuilds the segments after vector_embeddings was replaced wholesale. Searches fall through to
+     * Postgres meanwhile, and embedding events arriving during the rebuild are queued as at startup.
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onEmbeddingsReplaced(EmbeddingsReplacedEvent event) {
+        synchronized (pendingEvents) {
+            if (!loaded) {
+                if (!loadFailed) {
+                    pendingEvents.add(event);
+                }
+                return;
+            }
+            loaded = false;
+        }
+
+        lock.writeLock().lock();
+        try {
+            rebuildFromDatabase();
+            replayPendingEvents();
+        } catch (IOException e) {
+            failLoad(e);
+            return;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Rebuilt DOC_CHUNK segments after embeddings were replaced: {} vectors in {} segments",
+            liveCount(), segments.size());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        lock.writeLock().lock();
+        try {
+            segments.forEach(VectorSegment::force);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Queues the event while segments are loading and drops it if loading failed. Returns false once
+     * loaded, when the caller applies it.
+     */
+    private boolean deferUntilLoaded(Object event) {
+        synchronized (pendingEvents) {
+            if (loaded) {
+                return false;
+            }
+            if (!loadFailed) {
+                pendingEvents.add(event);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Applies the events queued while loading, then marks the index loaded. Writes committing during
+     * the load may also have been read by a rebuild, which {@link #applyStored} skips.
+     */
+    private void replayPendingEvents() throws IOException {
+        loadedMaxGeneration = maxGeneration();
+        while (true) {
+            List<Object> events;
+            synchronized (pendingEvents) {
+                if (pendingEvents.isEmpty()) {
+                    loaded = true;
+                    return;
+                }
+                events = new ArrayList<>(pendingEvents);
+                pendingEvents.clear();
+            }
+            log.info("Replaying {} embedding events received while DOC_CHUNK segments were loading", events.size());
+            for (Object event : events) {
+                if (event instanceof EmbeddingsStoredEvent stored) {
+                    applyStored(stored);
+                } else if (event instanceof EmbeddingsDeletedEvent deleted) {
+                    applyDeleted(deleted);
+                } else if (event instanceof EntityEmbeddingsReplacedEvent replaced) {
+                    applyEntityReplaced(replaced);
+                } else {
+                    rebuildFromDatabase();
+                    loadedMaxGeneration = maxGeneration();
+                }
+            }
+        }
+    }
+
+    private void failLoad(IOException e) {
+        synchronized (pendingEvents) {
+            loadFailed = true;
+            pendingEvents.clear();
+        }
+        log.error("Failed to load DOC_CHUNK vector segments, searches will use Postgres", e);
+    }
+
+    private void applyStored(EmbeddingsStoredEvent event) throws IOException {
+        // Rows no newer than the load may already have been read from the database
+        Set<Long> maybeLoaded = new HashSet<>();
+        for (VectorEmbedding embedding : event.embeddings()) {
+            if (embedding.getEntityType() == ENTITY_TYPE && embedding.getId() != null
+                    && generation(embedding) <= loadedMaxGeneration) {
+                maybeLoaded.add(embedding.getId());
+            }
+        }
+        Set<Long> present = new HashSet<>();
+        if (!maybeLoaded.isEmpty()) {
+            for (VectorSegment segment : segments) {
+                segment.findLive(maybeLoaded, present);
+            }
+        }
+
+        for (VectorEmbedding embedding : event.embeddings()) {
+            if (embedding.getEntityType() == ENTITY_TYPE && embedding.getId() != null && !present.contains(embedding.getId())) {
+                append(embedding);
+            }
+        }
+    }
+
+    private void applyDeleted(EmbeddingsDeletedEvent event) throws IOException {
+        ListIterator<VectorSegment> iterator = segments.listIterator();
+        while (iterator.hasNext()) {
+            VectorSegment segment = iterator.next();
+            if (segment.removeEntity(event.entityId()) == 0) {
+                continue;
+            }
+            if (segment.liveCount() == 0) {
+                segment.delete();
+                iterator.remove();
+            } else if (segment.needsCompaction()) {
+                iterator.set(compact(segment));
+            }
+        }
+    }
+
+    /**
+     * Drops the entity's records and appends its current rows, streamed from the database. Reading
+     * whatever is committed now makes this safe to replay, and to run after a newer write.
+     */
+    private void applyEntityReplaced(EntityEmbeddingsReplacedEvent event) throws IOException {
+        applyDeleted(new EmbeddingsDeletedEvent(event.entityType(), event.entityId()));
+        try {
+            readTransaction().executeWithoutResult(status ->
+                vectorEmbeddingRepository.forEachEmbedding(ENTITY_TYPE, event.entityId(), embedding -> {
+                    try {
+                        append(embedding);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private void openSegments() throws IOException {
+        Path dir = Paths.get(directory);
+        Files.createDirectories(dir);
+
+        List<String> names;
+        try (Stream<Path> files = Files.list(dir)) {
+            names = files
+                .map(path -> path.getFileName().toString())
+                .filter(file -> file.startsWith(SEGMENT_PREFIX) && file.endsWith(".ids"))
+                .map(file -> file.substring(0, file.length() - ".ids".length()))
+                .sorted()
+                .toList();
+        }
+
+        for (String name : names) {
+            segments.add(VectorSegment.open(dir, name));
+            nextSequence = Math.max(nextSequence, Long.parseLong(name.substring(SEGMENT_PREFIX.length())) + 1);
+        }
+    }
+
+    private boolean isStale() {
+        EntityTypeStats stats = vectorEmbeddingRepository.getEntityTypeStats(ENTITY_TYPE);
+        return stats.count() != liveCount() || stats.maxGeneration() != maxGeneration();
+    }
+
+    private void rebuildFromDatabase() throws IOException {
+        long start = System.currentTimeMillis();
+        for (VectorSegment segment : segments) {
+            segment.delete();
+        }
+        segments.clear();
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                vectorEmbeddingRepository.forEachEmbedding(ENTITY_TYPE, embedding -> {
+                    try {
+                        append(embedding);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        log.info("Built DOC_CHUNK vector segments with {} vectors in {} ms",
+            liveCount(), System.currentTimeMillis() - start);
+    }
+
+    private void append(VectorEmbedding embedding) throws IOException {
+        if (embedding.getEmbedding() == null) {
+            return;
+        }
+
+        VectorSegment active = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (active == null || active.isFull() || active.dimensions() != embedding.getEmbedding().length) {
+            active = VectorSegment.create(Paths.get(directory), nextSegmentName(),
+                embedding.getEmbedding().length, segmentCapacity);
+            segments.add(active);
+        }
+        active.append(embedding.getId(), embedding.getEntityId(), productId(embedding), generation(embedding),
+            embedding.getEmbedding());
+    }
+
+    private VectorSegment compact(VectorSegment segment) throws IOException {
+        VectorSegment compacted = segment.compactTo(Paths.get(directory), nextSegmentName());
+        compacted.force();
+        segment.delete();
+        log.info("Compacted vector segment {} into {} with {} vectors",
+            segment.name(), compacted.name(), compacted.liveCount());
+        return compacted;
+    }
+
+    /**
+     * A transaction of its own: after-commit listeners still have the finished transaction bound
+     */
+    private TransactionTemplate readTransaction() {
+        TransactionTemplate template = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        template.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        template.setReadOnly(true);
+        return template;
+    }
+
+    private String nextSegmentName() {
+        return String.format("%s%06d", SEGMENT_PREFIX, nextSequence++);
+    }
+
+    private long maxGeneration() {
+        return segments.stream().mapToLong(VectorSegment::maxGeneration).max().orElse(0);
+    }
+
+    private int liveCount() {
+        return segments.stream().mapToInt(VectorSegment::liveCount).sum();
+    }
+
+    private static long generation(VectorEmbedding embedding) {
+        return embedding.getGeneration() != null ? embedding.getGeneration() : 0L;
+    }
+
+    private static long productId(VectorEmbedding embedding) {
+        Object productId = embedding.getMetadataJson() != null ? embedding.getMetadataJson().get("productId") : null;
+        return productId instanceof Number number ? number.longValue() : 0L;
+    }
+}
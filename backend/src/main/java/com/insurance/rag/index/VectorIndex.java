@@ -0,0 +1,33 @@
+package com.insurance.rag.index;
+
+import com.insurance.common.entity.VectorEmbedding;
+import com.insurance.rag.dto.VectorMatch;
+import com.insurance.rag.dto.VectorSearchFilter;
+import com.insurance.rag.dto.VectorSearchProfile;
+
+import java.util.List;
+
+/**
+ * Retrieval backend for nearest-neighbour search over stored embeddings.
+ * Postgres remains the source of truth; alternative backends keep derived copies in sync
+ * by listening for {@link EmbeddingsStoredEvent} and {@link EmbeddingsDeletedEvent}.
+ * EmbeddingService routes each query to the first index, in @Order, that supports the entity type.
+ */
+public interface VectorIndex {
+
+    /**
+     * Whether this index can answer a query for the entity type with the given filter (null for none)
+     */
+    boolean supports(VectorEmbedding.EntityType entityType, VectorSearchFilter filter);
+
+    /**
+     * Nearest neighbours among rows matching the filter; the limit applies after filtering
+     */
+    List<VectorMatch> search(
+        VectorEmbedding.EntityType entityType,
+        float[] queryEmbedding,
+        int limit,
+        VectorSearchProfile profile,
+        VectorSearchFilter filter
+    );
+}
@@ -0,0 +1,291 @@
+package com.insurance.rag.index;
+
+import com.insurance.rag.dto.VectorMatch;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Append-only, memory-mapped segment of normalized float32 vectors.
+ * <p>
+ * {@code <name>.vec} holds fixed-stride little-endian records of {@code dimensions} floats.
+ * {@code <name>.ids} is the sidecar: a header (magic, version, dimensions, capacity, count, and at
+ * offset 24 the highest vector_embeddings generation appended) followed by one 32-byte record per
+ * vector (embedding id, entity id, product id, flags). The record count is written last, so a torn
+ * append is simply not visible. Deletions set a tombstone flag in place;
+ * {@link #compactTo} rewrites the live records into a new segment. Live rows are also indexed on the
+ * heap by entity id and embedding id, so deletes and presence checks need no scan.
+ * Not thread-safe: {@link SegmentVectorIndex} guards segments with a read/write lock.
+ */
+class VectorSegment {
+
+    private static final int MAGIC = 0x56534547;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 32;
+    private static final int COUNT_OFFSET = 16;
+    private static final int MAX_GENERATION_OFFSET = 24;
+    private static final int ID_RECORD_BYTES = 32;
+    private static final long FLAG_DELETED = 1L;
+
+    private final String name;
+    private final Path vectorPath;
+    private final Path idsPath;
+    private final int dimensions;
+    private final int capacity;
+    private final MappedByteBuffer vectorBuffer;
+    private final FloatBuffer vectors;
+    private final MappedByteBuffer ids;
+
+    private final Map<Long, List<Integer>> rowsByEntity = new HashMap<>();
+    private final Map<Long, Integer> rowsByEmbeddingId = new HashMap<>();
+
+    private int count;
+    private int deletedCount;
+    private long maxGeneration;
+
+    private VectorSegment(String name, Path directory, int dimensions, int capacity,
+                          MappedByteBuffer vectorBuffer, MappedByteBuffer ids) {
+        this.name = name;
+        this.vectorPath = directory.resolve(name + ".vec");
+        this.idsPath = directory.resolve(name + ".ids");
+        this.dimensions = dimensions;
+        this.capacity = capacity;
+        this.vectorBuffer = vectorBuffer;
+        this.vectors = vectorBuffer.order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer();
+        this.ids = ids;
+        this.ids.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    static VectorSegment create(Path directory, String name, int dimensions, int capacity) throws IOException {
+        long vectorBytes = (long) capacity * dimensions * Float.BYTES;
+        long idBytes = HEADER_BYTES + (long) capacity * ID_RECORD_BYTES;
+        if (vectorBytes > Integer.MAX_VALUE || idBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment capacity " + capacity + " exceeds the 2 GB mapping limit");
+        }
+
+        Files.createDirectories(directory);
+        MappedByteBuffer vectorBuffer = map(directory.resolve(name + ".vec"), vectorBytes);
+        MappedByteBuffer ids = map(directory.resolve(name + ".ids"), idBytes);
+
+        VectorSegment segment = new VectorSegment(name, directory, dimensions, capacity, vectorBuffer, ids);
+        ids.putInt(0, MAGIC);
+        ids.putInt(4, VERSION);
+        ids.putInt(8, dimensions);
+        ids.putInt(12, capacity);
+        ids.putInt(COUNT_OFFSET, 0);
+        ids.putLong(MAX_GENERATION_OFFSET, 0L);
+        return segment;
+    }
+
+    static VectorSegment open(Path directory, String name) throws IOException {
+        Path idsPath = directory.resolve(name + ".ids");
+        MappedByteBuffer ids = map(idsPath, Files.size(idsPath));
+        ids.order(ByteOrder.LITTLE_ENDIAN);
+        if (ids.getInt(0) != MAGIC || ids.getInt(4) != VERSION) {
+            throw new IOException("Not a vector segment: " + idsPath);
+        }
+
+        int dimensions = ids.getInt(8);
+        int capacity = ids.getInt(12);
+        MappedByteBuffer vectorBuffer = map(directory.resolve(name + ".vec"), (long) capacity * dimensions * Float.BYTES);
+
+        VectorSegment segment = new VectorSegment(name, directory, dimensions, capacity, vectorBuffer, ids);
+        segment.count = ids.getInt(COUNT_OFFSET);
+        segment.maxGeneration = ids.getLong(MAX_GENERATION_OFFSET);
+        for (int row = 0; row < segment.count; row++) {
+            if (segment.isDeleted(row)) {
+                segment.deletedCount++;
+            } else {
+                segment.indexRow(row);
+            }
+        }
+        return segment;
+    }
+
+    String name() {
+        return name;
+    }
+
+    int dimensions() {
+        return dimensions;
+    }
+
+    boolean isFull() {
+        return count >= capacity;
+    }
+
+    int liveCount() {
+        return count - deletedCount;
+    }
+
+    long maxGeneration() {
+        return maxGeneration;
+    }
+
+    boolean needsCompaction() {
+        return deletedCount > 16 && deletedCount > count / 4;
+    }
+
+    /** Appends a vector; it is normalized so cosine distance reduces to 1 - dot product. */
+    void append(long embeddingId, long entityId, long productId, long generation, float[] vector) {
+        if (vector.length != dimensions) {
+            throw new IllegalArgumentException("Expected " + dimensions + " dimensions but got " + vector.length);
+        }
+        if (isFull()) {
+            throw new IllegalStateException("Segment " + name + " is full");
+        }
+
+        int row = count;
+        vectors.put(row * dimensions, HnswGraph.normalize(vector.clone()));
+
+        int offset = idOffset(row);
+        ids.putLong(offset, embeddingId);
+        ids.putLong(offset + 8, entityId);
+        ids.putLong(offset + 16, productId);
+        ids.putLong(offset + 24, 0L);
+
+        raiseMaxGeneration(generation);
+        count++;
+        ids.putInt(COUNT_OFFSET, count);
+        indexRow(row);
+    }
+
+    /** Tombstones every record of the entity and returns how many were removed. */
+    int removeEntity(long entityId) {
+        List<Integer> rows = rowsByEntity.remove(entityId);
+        if (rows == null) {
+            return 0;
+        }
+        for (int row : rows) {
+            int offset = idOffset(row);
+            ids.putLong(offset + 24, ids.getLong(offset + 24) | FLAG_DELETED);
+            rowsByEmbeddingId.remove(embeddingId(row));
+        }
+        deletedCount += rows.size();
+        return rows.size();
+    }
+
+    /** Adds to {@code found} those of {@code embeddingIds} held by live records. */
+    void findLive(Set<Long> embeddingIds, Set<Long> found) {
+        for (Long embeddingId : embeddingIds) {
+            if (rowsByEmbeddingId.containsKey(embeddingId)) {
+                found.add(embeddingId);
+            }
+        }
+    }
+
+    /**
+     * Exact scan of the live records, optionally only those of one product, offering each to a
+     * bounded max-heap on distance. The query must already be normalized.
+     */
+    void scan(float[] query, int limit, Long productId, PriorityQueue<VectorMatch> top) {
+        for (int row = 0; row < count; row++) {
+            if (isDeleted(row) || (productId != null && productId(row) != productId)) {
+                continue;
+            }
+
+            double distance = 1.0 - dot(query, row * dimensions);
+            if (top.size() < limit) {
+                top.add(new VectorMatch(embeddingId(row), entityId(row), distance));
+            } else if (distance < top.peek().distance()) {
+                top.poll();
+                top.add(new VectorMatch(embeddingId(row), entityId(row), distance));
+            }
+        }
+    }
+
+    /** Copies the live records into a new sealed segment sized to fit them. */
+    VectorSegment compactTo(Path directory, String newName) throws IOException {
+        VectorSegment compacted = create(directory, newName, dimensions, Math.max(liveCount(), 1));
+        float[] vector = new float[dimensions];
+        for (int row = 0; row < count; row++) {
+            if (isDeleted(row)) {
+                continue;
+            }
+            vectors.get(row * dimensions, vector);
+            int offset = idOffset(row);
+            compacted.append(ids.getLong(offset), ids.getLong(offset + 8), ids.getLong(offset + 16), 0L, vector);
+        }
+        compacted.raiseMaxGeneration(maxGeneration);
+        return compacted;
+    }
+
+    void force() {
+        vectorBuffer.force();
+        ids.force();
+    }
+
+    /** Deletes the backing files. The mapping stays valid until it is garbage collected. */
+    void delete() throws IOException {
+        Files.deleteIfExists(vectorPath);
+        Files.deleteIfExists(idsPath);
+    }
+
+    private float dot(float[] query, int base) {
+        // Four independent accumulators let the JIT overlap the multiply-adds
+        float s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int i = 0;
+        int upper = dimensions & ~3;
+        for (; i < upper; i += 4) {
+            s0 += query[i] * vectors.get(base + i);
+            s1 += query[i + 1] * vectors.get(base + i + 1);
+            s2 += query[i + 2] * vectors.get(base + i + 2);
+            s3 += query[i + 3] * vectors.get(base + i + 3);
+        }
+        for (; i < dimensions; i++) {
+            s0 += query[i] * vectors.get(base + i);
+        }
+        return s0 + s1 + s2 + s3;
+    }
+
+    private void raiseMaxGeneration(long generation) {
+        if (generation > maxGeneration) {
+            maxGeneration = generation;
+            ids.putLong(MAX_GENERATION_OFFSET, generation);
+        }
+    }
+
+    private void indexRow(int row) {
+        rowsByEntity.computeIfAbsent(entityId(row), id -> new ArrayList<>()).add(row);
+        rowsByEmbeddingId.put(embeddingId(row), row);
+    }
+
+    private long embeddingId(int row) {
+        return ids.getLong(idOffset(row));
+    }
+
+    private long entityId(int row) {
+        return ids.getLong(idOffset(row) + 8);
+    }
+
+    private long productId(int row) {
+        return ids.getLong(idOffset(row) + 16);
+    }
+
+    private boolean isDeleted(int row) {
+        return (ids.getLong(idOffset(row) + 24) & FLAG_DELETED) != 0;
+    }
+
+    private static int idOffset(int row) {
+        return HEADER_BYTES + row * ID_RECORD_BYTES;
+    }
+
+    private static MappedByteBuffer map(Path path, long size) throws IOException {
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.insurance.rag.llm;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.ai.openai.OpenAiChatOptions;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One {@link GuardedChatClient} per {@link LlmProfile}, built once at startup instead of per request.
+ * Each profile reads {@code app.llm.profiles.<key>.model} (default: the Spring AI chat model) and
+ * {@code app.llm.profiles.<key>.temperature}, and {@code app.llm.profiles.<key>.semantic-cache} opts
+ * it into near-duplicate response reuse (off by default); streaming timeouts are shared under
+ * {@code app.llm.stream}. All of them share the pooled HTTP client from
+ * {@link com.insurance.rag.config.LlmHttpClientConfig} and the {@link LlmCallGuard}.
+ */
+@Component
+@Slf4j
+public class ChatClients {
+
+    private final Map<LlmProfile, GuardedChatClient> clients = new EnumMap<>(LlmProfile.class);
+
+    public ChatClients(ObjectProvider<ChatClient.Builder> chatClientBuilders, LlmCallGuard guard, Environment environment) {
+        String defaultModel = environment.getProperty("spring.ai.openai.chat.options.model", "gpt-4o");
+        Duration firstTokenTimeout = environment.getProperty(
+            "app.llm.stream.first-token-timeout", Duration.class, Duration.ofSeconds(10));
+        Duration stallTimeout = environment.getProperty("app.llm.stream.stall-timeout", Duration.class, Duration.ofSeconds(5));
+        for (LlmProfile profile : LlmProfile.values()) {
+            String prefix = "app.llm.profiles." + profile.key() + ".";
+            String model = environment.getProperty(prefix + "model", defaultModel);
+            double temperature = environment.getProperty(prefix + "temperature", Double.class, profile.defaultTemperature());
+            boolean semanticCache = environment.getProperty(prefix + "semantic-cache", Boolean.class, false);
+
+            // The builder bean is prototype-scoped, so each profile configures its own
+            ChatClient chatClient = chatClientBuilders.getObject()
+                .defaultOptions(OpenAiChatOptions.builder()
+                    .withModel(model)
+                    .withTemperature(temperature)
+                    .build())
+                .build();
+            clients.put(profile, new GuardedChatClient(
+                profile, model, chatClient, guard, semanticCache, firstTokenTimeout, stallTimeout));
+            log.info("LLM profile {} uses model {} at temperature {}", profile.key(), model, temperature);
+        }
+    }
+
+    public GuardedChatClient get(LlmProfile profile) {
+        return clients.get(profile);
+    }
+}
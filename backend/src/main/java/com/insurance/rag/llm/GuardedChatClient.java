@@ -0,0 +1,98 @@
+package com.insurance.rag.llm;
+
+import org.springframework.ai.chat.client.ChatClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+/**
+ * A configured {@link ChatClient} for one profile whose calls pass through the shared
+ * {@link LlmCallGuard}. A call rejected by the guard throws
+ * {@link java.util.concurrent.RejectedExecutionException} before any request is sent.
+ */
+public final class GuardedChatClient {
+
+    private final LlmProfile profile;
+    private final String model;
+    private final ChatClient chatClient;
+    private final LlmCallGuard guard;
+    private final boolean semanticCache;
+    private final Duration firstTokenTimeout;
+    private final Duration stallTimeout;
+
+    GuardedChatClient(
+        LlmProfile profile,
+        String model,
+        ChatClient chatClient,
+        LlmCallGuard guard,
+        boolean semanticCache,
+        Duration firstTokenTimeout,
+        Duration stallTimeout
+    ) {
+        this.profile = profile;
+        this.model = model;
+        this.chatClient = chatClient;
+        this.guard = guard;
+        this.semanticCache = semanticCache;
+        this.firstTokenTimeout = firstTokenTimeout;
+        this.stallTimeout = stallTimeout;
+    }
+
+    public LlmProfile profile() {
+        return profile;
+    }
+
+    public String model() {
+        return model;
+    }
+
+    /**
+     * Whether a response to a near-identical prompt may be reused for this profile's prompts
+     */
+    public boolean semanticCache() {
+        return semanticCache;
+    }
+
+    /**
+     * The completion for a user prompt
+     */
+    public String call(String prompt) {
+        LlmCallGuard.Permit permit = guard.acquire();
+        try {
+            String content = chatClient.prompt()
+                .user(prompt)
+                .call()
+                .content();
+            permit.success();
+            return content;
+        } catch (RuntimeException e) {
+            permit.failure();
+            throw e;
+        } finally {
+            permit.release();
+        }
+    }
+
+    /**
+     * Completion tokens for a user prompt as they arrive. The guard slot is taken on subscription
+     * and held until the stream completes, fails or is cancelled. The stream fails with a
+     * {@link java.util.concurrent.TimeoutException} when the first token takes longer than
+     * {@code app.llm.stream.first-token-timeout} or a later one longer than {@code stall-timeout};
+     * like other errors that counts as a failure for the circuit breaker. A stream cancelled by
+     * its subscriber counts as neither success nor failure.
+     */
+    public Flux<String> stream(String prompt) {
+        return Flux.defer(() -> {
+            LlmCallGuard.Permit permit = guard.acquire();
+            return chatClient.prompt()
+                .user(prompt)
+                .stream()
+                .content()
+                .timeout(Mono.delay(firstTokenTimeout), token -> Mono.delay(stallTimeout))
+                .doOnComplete(permit::success)
+                .doOnError(error -> permit.failure())
+                .doFinally(signal -> permit.release());
+        });
+    }
+}
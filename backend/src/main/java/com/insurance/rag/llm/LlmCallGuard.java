@@ -0,0 +1,210 @@
+package com.insurance.rag.llm;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bulkhead and circuit breaker shared by every LLM call, since they all go to the same provider.
+ * <p>
+ * The bulkhead caps calls in flight; a caller waits at most {@code app.llm.bulkhead.max-wait} for a
+ * slot. The breaker opens when at least {@code failure-rate-threshold} of the last
+ * {@code window-size} calls failed (once {@code minimum-calls} have been seen), rejects every call
+ * for {@code open-duration}, then lets a single trial call through: success closes it, failure
+ * opens it again. Rejections throw {@link RejectedExecutionException} straight away, so callers
+ * reach their fallback without touching the network. Exported as llm.bulkhead.in-flight,
+ * llm.circuit-breaker.state (0 closed, 1 open, 2 half open) and llm.calls.rejected by reason.
+ */
+@Component
+@Slf4j
+public class LlmCallGuard {
+
+    enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final Semaphore bulkhead;
+    private final Duration maxWait;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+
+    /** Outcomes of the last calls while closed, true for failures, as a ring buffer */
+    private final boolean[] window;
+    private int windowNext;
+    private int windowCount;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    private final Counter bulkheadRejections;
+    private final Counter circuitRejections;
+
+    public LlmCallGuard(
+        MeterRegistry meterRegistry,
+        @Value("${app.llm.bulkhead.max-concurrent-calls:16}") int maxConcurrentCalls,
+        @Value("${app.llm.bulkhead.max-wait:PT0.5S}") Duration maxWait,
+        @Value("${app.llm.circuit-breaker.window-size:20}") int windowSize,
+        @Value("${app.llm.circuit-breaker.minimum-calls:10}") int minimumCalls,
+        @Value("${app.llm.circuit-breaker.failure-rate-threshold:0.5}") double failureRateThreshold,
+        @Value("${app.llm.circuit-breaker.open-duration:PT30S}") Duration openDuration
+    ) {
+        this.bulkhead = new Semaphore(maxConcurrentCalls);
+        this.maxWait = maxWait;
+        this.window = new boolean[windowSize];
+        this.minimumCalls = Math.min(minimumCalls, windowSize);
+        this.failureRateThreshold = failureRateThreshold;
+        this.openNanos = openDuration.toNanos();
+
+        Gauge.builder("llm.bulkhead.in-flight", bulkhead, permits -> maxConcurrentCalls - permits.availablePermits())
+            .description("LLM calls in flight")
+            .register(meterRegistry);
+        Gauge.builder("llm.circuit-breaker.state", this, guard -> guard.state().ordinal())
+            .description("LLM circuit breaker state: 0 closed, 1 open, 2 half open")
+            .register(meterRegistry);
+        this.bulkheadRejections = Counter.builder("llm.calls.rejected").tag("reason", "bulkhead").register(meterRegistry);
+        this.circuitRejections = Counter.builder("llm.calls.rejected").tag("reason", "circuit-open").register(meterRegistry);
+    }
+
+    /**
+     * Admit one call, or throw {@link RejectedExecutionException} when the breaker is open or no
+     * bulkhead slot frees up in time. The caller must report the outcome and then release the permit.
+     */
+    public Permit acquire() {
+        boolean trial = admit();
+        boolean acquired;
+        try {
+            acquired = bulkhead.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abandonTrial(trial);
+            throw new RejectedExecutionException("Interrupted while waiting for an LLM call slot", e);
+        }
+        if (!acquired) {
+            abandonTrial(trial);
+            bulkheadRejections.increment();
+            throw new RejectedExecutionException("Too many LLM calls in flight");
+        }
+        return new Permit(trial);
+    }
+
+    synchronized State state() {
+        if (state == State.OPEN && System.nanoTime() - openedAt >= openNanos) {
+            state = State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    private synchronized boolean admit() {
+        State current = state();
+        if (current == State.CLOSED) {
+            return false;
+        }
+        if (current == State.HALF_OPEN && !trialInFlight) {
+            trialInFlight = true;
+            return true;
+        }
+        circuitRejections.increment();
+        throw new RejectedExecutionException("LLM circuit breaker is open");
+    }
+
+    private synchronized void abandonTrial(boolean trial) {
+        if (trial) {
+            trialInFlight = false;
+        }
+    }
+
+    private synchronized void record(boolean trial, boolean failed) {
+        if (trial) {
+            trialInFlight = false;
+            if (failed) {
+                open();
+            } else {
+                log.info("LLM circuit breaker closed after a successful trial call");
+                state = State.CLOSED;
+                resetWindow();
+            }
+            return;
+        }
+        if (state != State.CLOSED) {
+            // Started before the breaker opened; its outcome says nothing new
+            return;
+        }
+
+        if (windowCount == window.length) {
+            windowFailures -= window[windowNext] ? 1 : 0;
+        } else {
+            windowCount++;
+        }
+        window[windowNext] = failed;
+        windowFailures += failed ? 1 : 0;
+        windowNext = (windowNext + 1) % window.length;
+
+        if (windowCount >= minimumCalls && (double) windowFailures / windowCount >= failureRateThreshold) {
+            log.warn("LLM circuit breaker opened: {} of the last {} calls failed", windowFailures, windowCount);
+            open();
+        }
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAt = System.nanoTime();
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        windowNext = 0;
+        windowCount = 0;
+        windowFailures = 0;
+    }
+
+    /**
+     * One admitted call. The first of success, failure or release counts; later ones are ignored,
+     * so a stream can report its outcome and still release on every termination path.
+     */
+    public final class Permit {
+
+        private final boolean trial;
+        private final AtomicBoolean done = new AtomicBoolean();
+
+        private Permit(boolean trial) {
+            this.trial = trial;
+        }
+
+        public void success() {
+            finish(false, true);
+        }
+
+        public void failure() {
+            finish(true, true);
+        }
+
+        /**
+         * Give the slot back without an outcome, e.g. when the caller cancelled the call
+         */
+        public void release() {
+            finish(false, false);
+        }
+
+        private void finish(boolean failed, boolean outcome) {
+            if (!done.compareAndSet(false, true)) {
+                return;
+            }
+            bulkhead.release();
+            if (outcome) {
+                record(trial, failed);
+            } else {
+                abandonTrial(trial);
+            }
+        }
+    }
+}
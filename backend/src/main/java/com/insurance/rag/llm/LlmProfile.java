@@ -0,0 +1,26 @@
+package com.insurance.rag.llm;
+
+/**
+ * The kinds of completion the application asks for. Each profile gets its own model and
+ * temperature under {@code app.llm.profiles.<key>} and its own entries in the response cache.
+ */
+public enum LlmProfile {
+    NARRATIVE("narrative", 0.7),
+    NEEDS_EXTRACTION("needs-extraction", 0.2);
+
+    private final String key;
+    private final double defaultTemperature;
+
+    LlmProfile(String key, double defaultTemperature) {
+        this.key = key;
+        this.defaultTemperature = defaultTemperature;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    double defaultTemperature() {
+        return defaultTemperature;
+    }
+}
@@ -0,0 +1,9 @@
+package com.insurance.rag.repository;
+
+import com.insurance.common.entity.EmbeddingCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface EmbeddingCacheRepository extends JpaRepository<EmbeddingCacheEntry, String>, EmbeddingCacheRepositoryCustom {
+}
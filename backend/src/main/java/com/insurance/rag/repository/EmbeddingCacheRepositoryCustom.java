@@ -0,0 +1,13 @@
+package com.insurance.rag.repository;
+
+import com.insurance.common.entity.EmbeddingCacheEntry;
+
+import java.util.List;
+
+public interface EmbeddingCacheRepositoryCustom {
+
+    /**
+     * Insert entries in a single JDBC batch, skipping hashes that are already cached
+     */
+    int insertIgnoringConflicts(List<EmbeddingCacheEntry> entries);
+}
@@ -0,0 +1,33 @@
+package com.insurance.rag.repository;
+
+import com.insurance.common.entity.EmbeddingCacheEntry;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class EmbeddingCacheRepositoryImpl implements EmbeddingCacheRepositoryCustom {
+
+    private static final String INSERT_SQL =
+        "INSERT INTO embedding_cache (content_hash, model, dimensions, embedding) VALUES (?, ?, ?, ?) " +
+        "ON CONFLICT (content_hash) DO NOTHING";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public int insertIgnoringConflicts(List<EmbeddingCacheEntry> entries) {
+        if (entries.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_SQL, entries, entries.size(), (ps, entry) -> {
+            ps.setString(1, entry.getContentHash());
+            ps.setString(2, entry.getModel());
+            ps.setInt(3, entry.getDimensions());
+            ps.setBytes(4, entry.getEmbedding());
+        });
+
+        return entries.size();
+    }
+}
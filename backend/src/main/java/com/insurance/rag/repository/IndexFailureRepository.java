@@ -0,0 +1,17 @@
+package com.insurance.rag.repository;
+
+import com.insurance.common.entity.IndexFailure;
+import com.insurance.common.entity.VectorEmbedding;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface IndexFailureRepository extends JpaRepository<IndexFailure, Long> {
+
+    List<IndexFailure> findByEntityType(VectorEmbedding.EntityType entityType);
+
+    Optional<IndexFailure> findByEntityTypeAndEntityId(VectorEmbedding.EntityType entityType, Long entityId);
+}
@@ -0,0 +1,13 @@
+package com.insurance.rag.repository;
+
+import com.insurance.common.entity.IndexTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface IndexTombstoneRepository extends JpaRepository<IndexTombstone, Long> {
+
+    List<IndexTombstone> findTop500ByOrderByIdAsc();
+}
@@ -0,0 +1,10 @@
+package com.insurance.rag.repository;
+
+import com.insurance.common.entity.IndexWatermark;
+import com.insurance.common.entity.VectorEmbedding;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface IndexWatermarkRepository extends JpaRepository<IndexWatermark, VectorEmbedding.EntityType> {
+}
@@ -0,0 +1,14 @@
+package com.insurance.rag.repository;
+
+import com.insurance.common.entity.LlmResponseCacheEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface LlmResponseCacheRepository extends JpaRepository<LlmResponseCacheEntry, String>, LlmResponseCacheRepositoryCustom {
+
+    Optional<LlmResponseCacheEntry> findByPromptHashAndExpiresAtAfter(String promptHash, LocalDateTime now);
+}
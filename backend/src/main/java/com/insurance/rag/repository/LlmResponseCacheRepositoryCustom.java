@@ -0,0 +1,26 @@
+package com.insurance.rag.repository;
+
+import com.insurance.common.entity.LlmResponseCacheEntry;
+
+import java.util.Optional;
+
+public interface LlmResponseCacheRepositoryCustom {
+
+    /**
+     * Insert or replace the entry for its prompt hash
+     */
+    void upsert(LlmResponseCacheEntry entry);
+
+    /**
+     * The unexpired response whose prompt embedding is closest to the given one, if it is at least
+     * minSimilarity (cosine) and was produced for the same purpose and model. Must run inside a
+     * transaction: the HNSW scan is made iterative with a transaction-local setting, so entries of
+     * other purposes and models cannot crowd the match out of the index's candidate list.
+     */
+    Optional<String> findMostSimilarResponse(String purpose, String model, float[] promptEmbedding, double minSimilarity);
+
+    /**
+     * Delete expired entries, then the oldest ones beyond maxRows. Returns the number deleted.
+     */
+    int evict(long maxRows);
+}
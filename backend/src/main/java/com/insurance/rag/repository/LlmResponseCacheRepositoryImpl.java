@@ -0,0 +1,73 @@
+package com.insurance.rag.repository;
+
+import com.insurance.common.entity.LlmResponseCacheEntry;
+import com.pgvector.PGvector;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.List;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class LlmResponseCacheRepositoryImpl implements LlmResponseCacheRepositoryCustom {
+
+    private static final String UPSERT_SQL =
+        "INSERT INTO llm_response_cache (prompt_hash, purpose, model, response, prompt_embedding, expires_at) " +
+        "VALUES (?, ?, ?, ?, ?, ?) ON CONFLICT (prompt_hash) DO UPDATE SET response = EXCLUDED.response, " +
+        "prompt_embedding = EXCLUDED.prompt_embedding, created_at = CURRENT_TIMESTAMP, expires_at = EXCLUDED.expires_at";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void upsert(LlmResponseCacheEntry entry) {
+        jdbcTemplate.update(connection -> {
+            var ps = connection.prepareStatement(UPSERT_SQL);
+            ps.setString(1, entry.getPromptHash());
+            ps.setString(2, entry.getPurpose());
+            ps.setString(3, entry.getModel());
+            ps.setString(4, entry.getResponse());
+            if (entry.getPromptEmbedding() != null) {
+                ps.setObject(5, new PGvector(entry.getPromptEmbedding()));
+            } else {
+                ps.setNull(5, Types.OTHER);
+            }
+            ps.setTimestamp(6, Timestamp.valueOf(entry.getExpiresAt()));
+            return ps;
+        });
+    }
+
+    @Override
+    public Optional<String> findMostSimilarResponse(
+        String purpose,
+        String model,
+        float[] promptEmbedding,
+        double minSimilarity
+    ) {
+        PGvector vector = new PGvector(promptEmbedding);
+        jdbcTemplate.queryForObject("SELECT set_config('hnsw.iterative_scan', 'strict_order', true)", String.class);
+        List<String> responses = jdbcTemplate.query(
+            "SELECT response FROM llm_response_cache " +
+            "WHERE purpose = ? AND model = ? AND expires_at > CURRENT_TIMESTAMP AND prompt_embedding IS NOT NULL " +
+            "AND prompt_embedding <=> ? <= ? ORDER BY prompt_embedding <=> ? LIMIT 1",
+            (rs, rowNum) -> rs.getString("response"),
+            purpose,
+            model,
+            vector,
+            1.0 - minSimilarity,
+            vector
+        );
+        return responses.stream().findFirst();
+    }
+
+    @Override
+    public int evict(long maxRows) {
+        int expired = jdbcTemplate.update("DELETE FROM llm_response_cache WHERE expires_at <= CURRENT_TIMESTAMP");
+        int overflow = jdbcTemplate.update(
+            "DELETE FROM llm_response_cache WHERE prompt_hash IN " +
+            "(SELECT prompt_hash FROM llm_response_cache ORDER BY created_at DESC OFFSET ?)",
+            maxRows);
+        return expired + overflow;
+    }
+}
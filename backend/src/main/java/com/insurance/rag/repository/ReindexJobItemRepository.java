@@ -0,0 +1,42 @@
+package com.insurance.rag.repository;
+
+import com.insurance.common.entity.ReindexJobItem;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ReindexJobItemRepository extends JpaRepository<ReindexJobItem, Long> {
+
+    List<ReindexJobItem> findByJobIdAndStatusOrderById(Long jobId, ReindexJobItem.ItemStatus status);
+
+    long countByJobIdAndStatus(Long jobId, ReindexJobItem.ItemStatus status);
+
+    @Query("SELECT i.status, COUNT(i) FROM ReindexJobItem i WHERE i.jobId = :jobId GROUP BY i.status")
+    List<Object[]> countByStatus(@Param("jobId") Long jobId);
+
+    @Modifying
+    @Query(value = "INSERT INTO reindex_job_items (job_id, entity_type, entity_id, status) " +
+                   "SELECT :jobId, 'PRODUCT', id, 'PENDING' FROM products ORDER BY id", nativeQuery = true)
+    int enqueueAllProducts(@Param("jobId") Long jobId);
+
+    @Modifying
+    @Query(value = "INSERT INTO reindex_job_items (job_id, entity_type, entity_id, status) " +
+                   "SELECT :jobId, 'DOC_CHUNK', id, 'PENDING' FROM product_documents ORDER BY id", nativeQuery = true)
+    int enqueueAllDocuments(@Param("jobId") Long jobId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReindexJobItem i SET i.status = :status, i.error = :error, i.completedAt = :completedAt " +
+           "WHERE i.id = :id")
+    int markCompleted(@Param("id") Long id,
+                      @Param("status") ReindexJobItem.ItemStatus status,
+                      @Param("error") String error,
+                      @Param("completedAt") LocalDateTime completedAt);
+}
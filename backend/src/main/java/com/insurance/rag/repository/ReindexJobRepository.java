@@ -0,0 +1,45 @@
+package com.insurance.rag.repository;
+
+import com.insurance.common.entity.ReindexJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ReindexJobRepository extends JpaRepository<ReindexJob, Long> {
+
+    List<ReindexJob> findByStatusIn(Collection<ReindexJob.JobStatus> statuses);
+
+    /**
+     * Take the lease of an active job that nobody holds or whose holder stopped renewing it;
+     * returns 0 when another instance holds it
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReindexJob j SET j.claimedBy = :owner, j.heartbeatAt = :now " +
+           "WHERE j.id = :id AND j.status IN :statuses " +
+           "AND (j.claimedBy IS NULL OR j.heartbeatAt IS NULL OR j.heartbeatAt < :expiredBefore)")
+    int claim(@Param("id") Long id,
+              @Param("owner") String owner,
+              @Param("now") LocalDateTime now,
+              @Param("expiredBefore") LocalDateTime expiredBefore,
+              @Param("statuses") Collection<ReindexJob.JobStatus> statuses);
+
+    /** Renew a held lease; returns 0 when the lease was lost to another instance */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReindexJob j SET j.heartbeatAt = :now WHERE j.id = :id AND j.claimedBy = :owner")
+    int renewLease(@Param("id") Long id, @Param("owner") String owner, @Param("now") LocalDateTime now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ReindexJob j SET j.claimedBy = NULL, j.heartbeatAt = NULL WHERE j.id = :id AND j.claimedBy = :owner")
+    int releaseLease(@Param("id") Long id, @Param("owner") String owner);
+}
@@ -0,0 +1,26 @@
+package com.insurance.rag.repository;
+
+import com.insurance.common.entity.ScheduledLock;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ScheduledLockRepository extends JpaRepository<ScheduledLock, String>, ScheduledLockRepositoryCustom {
+
+    /** Move a held lock's expiry; returns 0 when the lock expired and was taken by someone else */
+    @Transactional
+    @Modifying
+    @Query("UPDATE ScheduledLock l SET l.lockedUntil = :lockedUntil WHERE l.name = :name AND l.lockedBy = :owner")
+    int extend(@Param("name") String name, @Param("owner") String owner, @Param("lockedUntil") LocalDateTime lockedUntil);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE ScheduledLock l SET l.lockedUntil = :now WHERE l.name = :name AND l.lockedBy = :owner")
+    int unlock(@Param("name") String name, @Param("owner") String owner, @Param("now") LocalDateTime now);
+}
@@ -0,0 +1,12 @@
+package com.insurance.rag.repository;
+
+import java.time.LocalDateTime;
+
+public interface ScheduledLockRepositoryCustom {
+
+    /**
+     * Take the named lock until the given time if it is free or its previous holder's time ran
+     * out; returns false while someone else holds it
+     */
+    boolean tryLock(String name, String owner, LocalDateTime now, LocalDateTime lockedUntil);
+}
@@ -0,0 +1,24 @@
+package com.insurance.rag.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+
+@RequiredArgsConstructor
+public class ScheduledLockRepositoryImpl implements ScheduledLockRepositoryCustom {
+
+    private static final String TRY_LOCK_SQL =
+        "INSERT INTO scheduled_locks (name, locked_until, locked_at, locked_by) VALUES (?, ?, ?, ?) " +
+        "ON CONFLICT (name) DO UPDATE SET locked_until = EXCLUDED.locked_until, " +
+        "locked_at = EXCLUDED.locked_at, locked_by = EXCLUDED.locked_by " +
+        "WHERE scheduled_locks.locked_until <= EXCLUDED.locked_at";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public boolean tryLock(String name, String owner, LocalDateTime now, LocalDateTime lockedUntil) {
+        return jdbcTemplate.update(TRY_LOCK_SQL, name, Timestamp.valueOf(lockedUntil), Timestamp.valueOf(now), owner) == 1;
+    }
+}
@@ -0,0 +1,160 @@
+package com.insurance.rag.repository;
+
+import com.insurance.common.entity.VectorEmbedding;
+import com.insurance.rag.dto.EmbeddingDto;
+import com.insurance.rag.dto.EmbeddingQuantization;
+import com.insurance.rag.dto.VectorMatch;
+import com.insurance.rag.dto.VectorSearchFilter;
+import com.insurance.rag.dto.VectorSearchProfile;
+import com.insurance.rag.snapshot.VectorSnapshotReader;
+import com.insurance.rag.snapshot.VectorSnapshotRecord;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * JDBC-backed operations on vector_embeddings that Spring Data JPA cannot express efficiently.
+ * Vectors are bound as PGvector parameters rather than formatted strings.
+ */
+public interface VectorEmbeddingRepositoryCustom {
+
+    /**
+     * Insert or overwrite, by (entity type, entity id, chunk index), all embeddings in a single JDBC
+     * batch, setting their ids and generations. An overwritten row keeps its id. Each vector goes to
+     * the column for its dimension (1536, 512 or 256).
+     */
+    int batchUpsert(List<VectorEmbedding> embeddings);
+
+    /**
+     * Write embeddings to vector_embedding_stage under a stage id, in a single JDBC batch. Staged rows
+     * are not searchable until {@link #upsertFromStage} moves them into vector_embeddings.
+     */
+    int stageEmbeddings(UUID stageId, List<VectorEmbedding> embeddings);
+
+    /**
+     * Insert or overwrite, as {@link #batchUpsert} does, every row staged under the stage id.
+     * Returns the number of rows written.
+     */
+    int upsertFromStage(UUID stageId);
+
+    int deleteStage(UUID stageId);
+
+    /**
+     * Remove staged rows older than the cutoff, left behind by runs that failed before cleaning up
+     */
+    int deleteStagedBefore(LocalDateTime cutoff);
+
+    /**
+     * Remove an entity's rows at or past a chunk index, i.e. those a shorter re-index did not overwrite
+     */
+    int deleteChunksFrom(VectorEmbedding.EntityType entityType, Long entityId, int fromChunkIndex);
+
+    /**
+     * Merge attributes into the metadata of the DOC_CHUNK rows whose metadata productId matches, except
+     * rows that already hold them. Returns the number of rows updated.
+     */
+    int updateChunkProductMetadata(Long productId, Map<String, Object> attributes);
+
+    /**
+     * Nearest neighbours across all entity types as (id, entity type, entity id, distance), plus the
+     * metadata when requested. Neither the vector nor the chunk text is read. The query's dimension
+     * selects the vector column searched, so only rows stored at that dimension are found.
+     */
+    List<EmbeddingDto> findNearest(float[] queryEmbedding, int limit, boolean includeMetadata);
+
+    /**
+     * Chunk text for the given embedding ids, for callers that need it after ranking
+     */
+    Map<Long, String> findChunkTextByIds(Collection<Long> ids);
+
+    /**
+     * metadata_json.productId for the given DOC_CHUNK embedding ids; rows without one are omitted
+     */
+    Map<Long, Long> findChunkProductIds(Collection<Long> ids);
+
+    /**
+     * The first (chunk index 0) vector of each given entity, keyed by entity id. Used to compare
+     * ranked candidates with each other after search.
+     */
+    Map<Long, float[]> findLeadingVectors(VectorEmbedding.EntityType entityType, Collection<Long> entityIds);
+
+    /**
+     * Nearest neighbours of a specific entity type as (id, entity id, distance) only. The query's
+     * dimension selects the vector column searched.
+     */
+    List<VectorMatch> findNearestByEntityType(
+        float[] queryEmbedding,
+        String entityType,
+        int limit,
+        VectorSearchProfile profile
+    );
+
+    /**
+     * Nearest neighbours among rows whose metadata matches the filter (null for none). Quantized modes
+     * search the compact index and rescore the over-fetched candidates by full-precision cosine distance;
+     * NONE and the EXACT profile search the full vectors.
+     */
+    List<VectorMatch> findNearestByEntityType(
+        float[] queryEmbedding,
+        String entityType,
+        int limit,
+        VectorSearchProfile profile,
+        EmbeddingQuantization quantization,
+        VectorSearchFilter filter
+    );
+
+    /**
+     * Stream every embedding of an entity type without its chunk text. Must run inside a
+     * transaction so the driver can use a cursor instead of buffering the whole result.
+     */
+    void forEachEmbedding(VectorEmbedding.EntityType entityType, Consumer<VectorEmbedding> consumer);
+
+    /**
+     * Stream the embeddings of one entity, as {@link #forEachEmbedding(VectorEmbedding.EntityType, Consumer)}
+     * does for a whole entity type
+     */
+    void forEachEmbedding(VectorEmbedding.EntityType entityType, Long entityId, Consumer<VectorEmbedding> consumer);
+
+    /**
+     * Stream every row, in id order, as snapshot records. Must run inside a transaction so the
+     * driver can use a cursor.
+     */
+    void forEachSnapshotRecord(Consumer<VectorSnapshotRecord> consumer);
+
+    /**
+     * Bulk-load snapshot records with COPY ... (FORMAT BINARY) into a temporary staging table, then
+     * move them into vector_embeddings, replacing its rows when replace is set, keeping their ids,
+     * and move the id sequence past them. Returns the number of rows loaded. Must run inside a
+     * transaction; readers keep seeing the previous rows until it commits.
+     */
+    long restoreFromSnapshot(VectorSnapshotReader reader, boolean replace);
+
+    /**
+     * Up to limit rows with a full-dimension embedding and chunk text, with ids above afterId in id
+     * order, for keyset-paged scans
+     */
+    List<VectorEmbedding> findFullEmbeddingsAfter(long afterId, int limit);
+
+    /**
+     * Row count and highest generation for an entity type, used to detect stale derived indexes
+     */
+    EntityTypeStats getEntityTypeStats(VectorEmbedding.EntityType entityType);
+
+    record EntityTypeStats(long count, long maxGeneration) {
+    }
+
+    /**
+     * Whether an index of that name exists on vector_embeddings
+     */
+    boolean hasIndex(String indexName);
+
+    /**
+     * Apply hnsw.ef_search / ivfflat.probes for the rest of the current transaction.
+     * Must be called inside a transaction; outside one the settings would not reach the next query.
+     */
+    void applySearchProfile(VectorSearchProfile profile, int limit);
+}
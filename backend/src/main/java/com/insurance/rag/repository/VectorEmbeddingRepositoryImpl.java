@@ -0,0 +1,632 @@
+package com.insurance.rag.repository;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.insurance.common.entity.VectorEmbedding;
+import com.insurance.common.type.PgVectorType;
+import com.insurance.rag.dto.EmbeddingDto;
+import com.insurance.rag.dto.EmbeddingQuantization;
+import com.insurance.rag.dto.VectorMatch;
+import com.insurance.rag.dto.VectorSearchFilter;
+import com.insurance.rag.dto.VectorSearchProfile;
+import com.insurance.rag.snapshot.VectorSnapshotReader;
+import com.insurance.rag.snapshot.VectorSnapshotRecord;
+import com.pgvector.PGvector;
+import lombok.RequiredArgsConstructor;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+@RequiredArgsConstructor
+public class VectorEmbeddingRepositoryImpl implements VectorEmbeddingRepositoryCustom {
+
+    /**
+     * Overwrites the row at the same (entity_type, entity_id, chunk_index), keeping its id. The row
+     * takes a new generation, so derived indexes that compare max(generation) notice the change.
+     */
+    private static final String UPSERT_SQL =
+        "INSERT INTO vector_embeddings (entity_type, entity_id, chunk_index, chunk_text, embedding, embedding_512, " +
+        "embedding_256, metadata_json) VALUES (?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb)) " +
+        "ON CONFLICT (entity_type, entity_id, chunk_index) DO UPDATE SET " +
+        "chunk_text = EXCLUDED.chunk_text, embedding = EXCLUDED.embedding, embedding_512 = EXCLUDED.embedding_512, " +
+        "embedding_256 = EXCLUDED.embedding_256, metadata_json = EXCLUDED.metadata_json, " +
+        "generation = nextval('vector_embeddings_generation_seq')";
+
+    private static final String STAGE_INSERT_SQL =
+        "INSERT INTO vector_embedding_stage (stage_id, entity_type, entity_id, chunk_index, chunk_text, embedding, " +
+        "embedding_512, embedding_256, metadata_json) VALUES (?, ?, ?, ?, ?, ?, ?, ?, CAST(? AS jsonb))";
+
+    /** Same overwrite as UPSERT_SQL, for all chunks staged under one stage id */
+    private static final String UPSERT_FROM_STAGE_SQL =
+        "INSERT INTO vector_embeddings (entity_type, entity_id, chunk_index, chunk_text, embedding, embedding_512, " +
+        "embedding_256, metadata_json) SELECT entity_type, entity_id, chunk_index, chunk_text, embedding, " +
+        "embedding_512, embedding_256, metadata_json FROM vector_embedding_stage WHERE stage_id = ? " +
+        "ORDER BY chunk_index " +
+        "ON CONFLICT (entity_type, entity_id, chunk_index) DO UPDATE SET " +
+        "chunk_text = EXCLUDED.chunk_text, embedding = EXCLUDED.embedding, embedding_512 = EXCLUDED.embedding_512, " +
+        "embedding_256 = EXCLUDED.embedding_256, metadata_json = EXCLUDED.metadata_json, " +
+        "generation = nextval('vector_embeddings_generation_seq')";
+
+    /** Vector column per stored dimension; see V20 */
+    private static final Map<Integer, String> VECTOR_COLUMNS = Map.of(
+        1536, "embedding",
+        512, "embedding_512",
+        256, "embedding_256"
+    );
+
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    /** pgvector rejects a larger hnsw.ef_search */
+    private static final int MAX_EF_SEARCH = 1000;
+
+    /** Column order of the binary COPY rows written by writeCopyRow */
+    private static final String SNAPSHOT_COLUMNS =
+        "id, entity_type, entity_id, chunk_index, chunk_text, embedding, embedding_512, embedding_256, " +
+        "metadata_json, created_at";
+
+    private static final String STAGING_TABLE = "vector_embeddings_import";
+
+    private static final byte[] COPY_SIGNATURE = "PGCOPY\n\377\r\n\0".getBytes(StandardCharsets.ISO_8859_1);
+
+    private static final int COPY_BUFFER_BYTES = 1 << 16;
+
+    private static final LocalDateTime PG_EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private static final RowMapper<VectorMatch> VECTOR_MATCH_MAPPER = (rs, rowNum) ->
+        new VectorMatch(rs.getLong("id"), rs.getLong("entity_id"), rs.getDouble("distance"));
+
+    /** Must match vector_embeddings.embedding and the quantized index expressions in V16 */
+    private static final int DIMENSIONS = 1536;
+
+    private static final TypeReference<Map<String, Object>> METADATA_TYPE = new TypeReference<>() {};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    public int batchUpsert(List<VectorEmbedding> embeddings) {
+        if (embeddings.isEmpty()) {
+            return 0;
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+            connection -> connection.prepareStatement(UPSERT_SQL, new String[] {"id", "generation"}),
+            new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    setChunkValues(ps, 1, embeddings.get(i));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return embeddings.size();
+                }
+            },
+            keyHolder
+        );
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < embeddings.size() && i < keys.size(); i++) {
+            embeddings.get(i).setId(((Number) keys.get(i).get("id")).longValue());
+            embeddings.get(i).setGeneration(((Number) keys.get(i).get("generation")).longValue());
+        }
+
+        return embeddings.size();
+    }
+
+    @Override
+    public int stageEmbeddings(UUID stageId, List<VectorEmbedding> embeddings) {
+        if (embeddings.isEmpty()) {
+            return 0;
+        }
+
+        jdbcTemplate.batchUpdate(STAGE_INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ps.setObject(1, stageId);
+                setChunkValues(ps, 2, embeddings.get(i));
+            }
+
+            @Override
+            public int getBatchSize() {
+                return embeddings.size();
+            }
+        });
+        return embeddings.size();
+    }
+
+    @Override
+    public int upsertFromStage(UUID stageId) {
+        return jdbcTemplate.update(UPSERT_FROM_STAGE_SQL, stageId);
+    }
+
+    @Override
+    public int deleteStage(UUID stageId) {
+        return jdbcTemplate.update("DELETE FROM vector_embedding_stage WHERE stage_id = ?", stageId);
+    }
+
+    @Override
+    public int deleteStagedBefore(LocalDateTime cutoff) {
+        return jdbcTemplate.update("DELETE FROM vector_embedding_stage WHERE created_at < ?", Timestamp.valueOf(cutoff));
+    }
+
+    @Override
+    public int deleteChunksFrom(VectorEmbedding.EntityType entityType, Long entityId, int fromChunkIndex) {
+        return jdbcTemplate.update(
+            "DELETE FROM vector_embeddings WHERE entity_type = ? AND entity_id = ? AND chunk_index >= ?",
+            entityType.name(),
+            entityId,
+            fromChunkIndex
+        );
+    }
+
+    @Override
+    public int updateChunkProductMetadata(Long productId, Map<String, Object> attributes) {
+        // The productId containment uses the jsonb_path_ops index from V19; rows already current are
+        // skipped, so re-indexing an unchanged product writes nothing
+        String attributesJson = toJson(attributes);
+        return jdbcTemplate.update(
+            "UPDATE vector_embeddings SET metadata_json = metadata_json || CAST(? AS jsonb) " +
+            "WHERE entity_type = ? AND metadata_json @> CAST(? AS jsonb) AND NOT metadata_json @> CAST(? AS jsonb)",
+            attributesJson,
+            VectorEmbedding.EntityType.DOC_CHUNK.name(),
+            toJson(Map.of("productId", productId)),
+            attributesJson
+        );
+    }
+
+    @Override
+    public List<EmbeddingDto> findNearest(float[] queryEmbedding, int limit, boolean includeMetadata) {
+        String metadataColumn = includeMetadata ? ", metadata_json" : "";
+        String column = vectorColumn(queryEmbedding.length);
+        return jdbcTemplate.query(
+            "SELECT id, entity_type, entity_id" + metadataColumn + ", " + column + " <=> ? AS distance " +
+            "FROM vector_embeddings WHERE " + column + " IS NOT NULL ORDER BY distance LIMIT ?",
+            (rs, rowNum) -> {
+                double distance = rs.getDouble("distance");
+                return EmbeddingDto.builder()
+                    .id(rs.getLong("id"))
+                    .entityType(VectorEmbedding.EntityType.valueOf(rs.getString("entity_type")))
+                    .entityId(rs.getLong("entity_id"))
+                    .metadata(includeMetadata ? fromJson(rs.getString("metadata_json")) : null)
+                    .distance(distance)
+                    .similarity(1.0 - distance)
+                    .build();
+            },
+            new PGvector(queryEmbedding),
+            limit
+        );
+    }
+
+    @Override
+    public Map<Long, String> findChunkTextByIds(Collection<Long> ids) {
+        Map<Long, String> chunkText = new HashMap<>();
+        if (ids.isEmpty()) {
+            return chunkText;
+        }
+
+        jdbcTemplate.query(
+            "SELECT id, chunk_text FROM vector_embeddings WHERE id = ANY(?)",
+            (RowCallbackHandler) rs -> chunkText.put(rs.getLong("id"), rs.getString("chunk_text")),
+            (Object) ids.toArray(new Long[0])
+        );
+        return chunkText;
+    }
+
+    @Override
+    public Map<Long, Long> findChunkProductIds(Collection<Long> ids) {
+        Map<Long, Long> productIds = new HashMap<>();
+        if (ids.isEmpty()) {
+            return productIds;
+        }
+
+        jdbcTemplate.query(
+            "SELECT id, (metadata_json ->> 'productId')::bigint AS product_id FROM vector_embeddings " +
+            "WHERE id = ANY(?) AND metadata_json ->> 'productId' IS NOT NULL",
+            (RowCallbackHandler) rs -> productIds.put(rs.getLong("id"), rs.getLong("product_id")),
+            (Object) ids.toArray(new Long[0])
+        );
+        return productIds;
+    }
+
+    @Override
+    public Map<Long, float[]> findLeadingVectors(VectorEmbedding.EntityType entityType, Collection<Long> entityIds) {
+        Map<Long, float[]> vectors = new HashMap<>();
+        if (entityIds.isEmpty()) {
+            return vectors;
+        }
+
+        jdbcTemplate.query(
+            "SELECT entity_id, COALESCE(embedding, embedding_512, embedding_256) AS embedding FROM vector_embeddings " +
+            "WHERE entity_type = ? AND entity_id = ANY(?) AND chunk_index = 0",
+            (RowCallbackHandler) rs -> vectors.put(rs.getLong("entity_id"), PgVectorType.toArray(rs.getObject("embedding"))),
+            entityType.name(),
+            entityIds.toArray(new Long[0])
+        );
+        return vectors;
+    }
+
+    @Override
+    public List<VectorMatch> findNearestByEntityType(
+        float[] queryEmbedding,
+        String entityType,
+        int limit,
+        VectorSearchProfile profile
+    ) {
+        applySearchProfile(profile, limit);
+        return jdbcTemplate.query(
+            "SELECT id, entity_id, " + vectorColumn(queryEmbedding.length) + " <=> ? AS distance FROM vector_embeddings " +
+            "WHERE entity_type = ? ORDER BY distance LIMIT ?",
+            VECTOR_MATCH_MAPPER,
+            new PGvector(queryEmbedding),
+            entityType,
+            limit
+        );
+    }
+
+    @Override
+    public List<VectorMatch> findNearestByEntityType(
+        float[] queryEmbedding,
+        String entityType,
+        int limit,
+        VectorSearchProfile profile,
+        EmbeddingQuantization quantization,
+        VectorSearchFilter filter
+    ) {
+        boolean filtered = filter != null && !filter.isEmpty();
+        // Filters are applied inside the index scan, so top-k is computed over eligible rows only
+        String filterClause = filtered ? "AND metadata_json @> CAST(? AS jsonb) " : "";
+        PGvector query = new PGvector(queryEmbedding);
+        String column = vectorColumn(queryEmbedding.length);
+        List<Object> params = new ArrayList<>();
+
+        // Quantized indexes only exist for full-dimension vectors; reduced ones are already compact
+        if (quantization == null || quantization == EmbeddingQuantization.NONE
+                || profile == VectorSearchProfile.EXACT || queryEmbedding.length != DIMENSIONS) {
+            applySearchProfile(profile, limit);
+            applyFilteredScan(filtered);
+            params.add(query);
+            params.add(entityType);
+            if (filtered) {
+                params.add(toJson(filter.toMetadataContainment()));
+            }
+            params.add(limit);
+            return jdbcTemplate.query(
+                "SELECT id, entity_id, " + column + " <=> ? AS distance FROM vector_embeddings " +
+                "WHERE entity_type = ? " + filterClause + "ORDER BY distance LIMIT ?",
+                VECTOR_MATCH_MAPPER,
+                params.toArray()
+            );
+        }
+
+        int candidates = limit * quantization.getCandidateMultiplier();
+        applySearchProfile(profile, candidates);
+        applyFilteredScan(filtered);
+
+        // The inner ORDER BY must match the index expression exactly for the planner to use it
+        String candidateOrder = quantization == EmbeddingQuantization.HALF
+            ? "embedding::halfvec(" + DIMENSIONS + ") <=> CAST(? AS vector)::halfvec(" + DIMENSIONS + ")"
+            : "binary_quantize(embedding)::bit(" + DIMENSIONS + ") <~> binary_quantize(CAST(? AS vector))";
+
+        params.add(query);
+        params.add(entityType);
+        if (filtered) {
+            params.add(toJson(filter.toMetadataContainment()));
+        }
+        params.add(query);
+        params.add(candidates);
+        params.add(limit);
+        return jdbcTemplate.query(
+            "SELECT id, entity_id, embedding <=> ? AS distance FROM (" +
+            "SELECT id, entity_id, embedding FROM vector_embeddings WHERE entity_type = ? " + filterClause +
+            "ORDER BY " + candidateOrder + " LIMIT ?) candidates " +
+            "ORDER BY distance LIMIT ?",
+            VECTOR_MATCH_MAPPER,
+            params.toArray()
+        );
+    }
+
+    @Override
+    public void forEachEmbedding(VectorEmbedding.EntityType entityType, Consumer<VectorEmbedding> consumer) {
+        forEachEmbedding(entityType, null, consumer);
+    }
+
+    @Override
+    public void forEachEmbedding(VectorEmbedding.EntityType entityType, Long entityId, Consumer<VectorEmbedding> consumer) {
+        jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                    "SELECT id, entity_type, entity_id, COALESCE(embedding, embedding_512, embedding_256) AS embedding, " +
+                    "metadata_json, generation FROM vector_embeddings WHERE entity_type = ? " +
+                    (entityId != null ? "AND entity_id = ? " : "") + "ORDER BY id");
+                ps.setString(1, entityType.name());
+                if (entityId != null) {
+                    ps.setLong(2, entityId);
+                }
+                ps.setFetchSize(STREAM_FETCH_SIZE);
+                return ps;
+            },
+            rs -> {
+                consumer.accept(VectorEmbedding.builder()
+                    .id(rs.getLong("id"))
+                    .entityType(entityType)
+                    .entityId(rs.getLong("entity_id"))
+                    .embedding(PgVectorType.toArray(rs.getObject("embedding")))
+                    .metadataJson(fromJson(rs.getString("metadata_json")))
+                    .generation(rs.getLong("generation"))
+                    .build());
+            }
+        );
+    }
+
+    @Override
+    public void forEachSnapshotRecord(Consumer<VectorSnapshotRecord> consumer) {
+        jdbcTemplate.query(
+            connection -> {
+                PreparedStatement ps = connection.prepareStatement(
+                    "SELECT id, entity_type, entity_id, chunk_index, chunk_text, " +
+                    "COALESCE(embedding, embedding_512, embedding_256) AS embedding, " +
+                    "metadata_json::text AS metadata_json, created_at FROM vector_embeddings ORDER BY id");
+                ps.setFetchSize(STREAM_FETCH_SIZE);
+                return ps;
+            },
+            rs -> {
+                Timestamp createdAt = rs.getTimestamp("created_at");
+                consumer.accept(new VectorSnapshotRecord(
+                    rs.getLong("id"),
+                    VectorEmbedding.EntityType.valueOf(rs.getString("entity_type")),
+                    rs.getLong("entity_id"),
+                    rs.getInt("chunk_index"),
+                    rs.getString("chunk_text"),
+                    PgVectorType.toArray(rs.getObject("embedding")),
+                    rs.getString("metadata_json"),
+                    createdAt != null ? createdAt.toLocalDateTime() : null
+                ));
+            }
+        );
+    }
+
+    @Override
+    public long restoreFromSnapshot(VectorSnapshotReader reader, boolean replace) {
+        // COPY into an index-free staging table is fast and holds no lock on vector_embeddings;
+        // the move below takes only row locks, so searches keep running on the old rows meanwhile
+        jdbcTemplate.execute("CREATE TEMP TABLE " + STAGING_TABLE +
+            " (LIKE vector_embeddings INCLUDING DEFAULTS) ON COMMIT DROP");
+
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            PGConnection pgConnection = connection.unwrap(PGConnection.class);
+            long copied = 0;
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new PGCopyOutputStream(pgConnection, "COPY " + STAGING_TABLE + " (" + SNAPSHOT_COLUMNS +
+                        ") FROM STDIN (FORMAT BINARY)"), COPY_BUFFER_BYTES))) {
+                out.write(COPY_SIGNATURE);
+                out.writeInt(0);
+                out.writeInt(0);
+
+                VectorSnapshotRecord record;
+                while ((record = reader.next()) != null) {
+                    writeCopyRow(out, record);
+                    copied++;
+                }
+                out.writeShort(-1);
+            } catch (IOException e) {
+                throw new RuntimeException("Failed to import vector snapshot", e);
+            }
+            return copied;
+        });
+
+        if (replace) {
+            jdbcTemplate.update("DELETE FROM vector_embeddings");
+        }
+        jdbcTemplate.update("INSERT INTO vector_embeddings (" + SNAPSHOT_COLUMNS + ") " +
+            "SELECT " + SNAPSHOT_COLUMNS + " FROM " + STAGING_TABLE);
+
+        jdbcTemplate.queryForObject(
+            "SELECT setval(pg_get_serial_sequence('vector_embeddings', 'id'), COALESCE(MAX(id), 0) + 1, false) " +
+            "FROM vector_embeddings",
+            Long.class);
+        return rows != null ? rows : 0;
+    }
+
+    @Override
+    public List<VectorEmbedding> findFullEmbeddingsAfter(long afterId, int limit) {
+        return jdbcTemplate.query(
+            "SELECT id, entity_type, entity_id, chunk_text, embedding FROM vector_embeddings " +
+            "WHERE id > ? AND embedding IS NOT NULL AND chunk_text IS NOT NULL ORDER BY id LIMIT ?",
+            (rs, rowNum) -> VectorEmbedding.builder()
+                .id(rs.getLong("id"))
+                .entityType(VectorEmbedding.EntityType.valueOf(rs.getString("entity_type")))
+                .entityId(rs.getLong("entity_id"))
+                .chunkText(rs.getString("chunk_text"))
+                .embedding(PgVectorType.toArray(rs.getObject("embedding")))
+                .build(),
+            afterId,
+            limit
+        );
+    }
+
+    /**
+     * One tuple in PostgreSQL's binary COPY format: a field count, then each field as a byte length
+     * (-1 for null) followed by the type's binary send representation
+     */
+    private void writeCopyRow(DataOutputStream out, VectorSnapshotRecord record) throws IOException {
+        out.writeShort(10);
+
+        out.writeInt(8);
+        out.writeLong(record.id());
+        writeCopyText(out, record.entityType().name());
+        out.writeInt(8);
+        out.writeLong(record.entityId());
+        out.writeInt(4);
+        out.writeInt(record.chunkIndex());
+        writeCopyText(out, record.chunkText());
+
+        // vector_send: dimension and an unused int16, then big-endian float4 values
+        String column = record.embedding() != null ? vectorColumn(record.embedding().length) : null;
+        for (String vectorColumn : List.of("embedding", "embedding_512", "embedding_256")) {
+            if (!vectorColumn.equals(column)) {
+                out.writeInt(-1);
+                continue;
+            }
+            float[] vector = record.embedding();
+            out.writeInt(4 + vector.length * Float.BYTES);
+            out.writeShort(vector.length);
+            out.writeShort(0);
+            for (float value : vector) {
+                out.writeFloat(value);
+            }
+        }
+
+        // jsonb_send: a version byte, then the JSON text
+        if (record.metadataJson() == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] json = record.metadataJson().getBytes(StandardCharsets.UTF_8);
+            out.writeInt(json.length + 1);
+            out.writeByte(1);
+            out.write(json);
+        }
+
+        // timestamp_send: microseconds since 2000-01-01
+        LocalDateTime createdAt = record.createdAt() != null ? record.createdAt() : LocalDateTime.now();
+        out.writeInt(8);
+        out.writeLong(ChronoUnit.MICROS.between(PG_EPOCH, createdAt));
+    }
+
+    private static void writeCopyText(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public EntityTypeStats getEntityTypeStats(VectorEmbedding.EntityType entityType) {
+        return jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) AS row_count, COALESCE(MAX(generation), 0) AS max_generation " +
+            "FROM vector_embeddings WHERE entity_type = ?",
+            (rs, rowNum) -> new EntityTypeStats(rs.getLong("row_count"), rs.getLong("max_generation")),
+            entityType.name()
+        );
+    }
+
+    @Override
+    public boolean hasIndex(String indexName) {
+        Boolean exists = jdbcTemplate.queryForObject(
+            "SELECT EXISTS (SELECT 1 FROM pg_indexes WHERE tablename = 'vector_embeddings' AND indexname = ?)",
+            Boolean.class,
+            indexName
+        );
+        return Boolean.TRUE.equals(exists);
+    }
+
+    @Override
+    public void applySearchProfile(VectorSearchProfile profile, int limit) {
+        if (profile == VectorSearchProfile.EXACT) {
+            jdbcTemplate.queryForObject("SELECT set_config('enable_indexscan', 'off', true)", String.class);
+            return;
+        }
+        // ef_search below the limit would truncate the result set, up to what pgvector accepts
+        int efSearch = Math.min(Math.max(profile.getEfSearch(), limit), MAX_EF_SEARCH);
+        jdbcTemplate.queryForObject(
+            "SELECT set_config('hnsw.ef_search', ?, true) || set_config('ivfflat.probes', ?, true)",
+            String.class,
+            String.valueOf(efSearch),
+            String.valueOf(profile.getProbes())
+        );
+    }
+
+    /**
+     * Let HNSW keep scanning past filtered-out neighbours (pgvector 0.8+) so a selective filter
+     * still fills the limit. strict_order keeps results exactly ordered by distance.
+     */
+    private void applyFilteredScan(boolean filtered) {
+        if (filtered) {
+            jdbcTemplate.queryForObject("SELECT set_config('hnsw.iterative_scan', 'strict_order', true)", String.class);
+        }
+    }
+
+    private static String vectorColumn(int dimensions) {
+        String column = VECTOR_COLUMNS.get(dimensions);
+        if (column == null) {
+            throw new IllegalArgumentException("Unsupported embedding dimension: " + dimensions);
+        }
+        return column;
+    }
+
+    /**
+     * Binds entity type, entity id, chunk index, chunk text, the three vector columns and the metadata
+     * from parameter index first on. Exactly one vector column is set, matching the embedding's dimension.
+     */
+    private void setChunkValues(PreparedStatement ps, int first, VectorEmbedding embedding) throws SQLException {
+        ps.setString(first, embedding.getEntityType().name());
+        ps.setLong(first + 1, embedding.getEntityId());
+        ps.setInt(first + 2, embedding.getChunkIndex() != null ? embedding.getChunkIndex() : 0);
+        ps.setString(first + 3, embedding.getChunkText());
+        String column = vectorColumn(embedding.getEmbedding().length);
+        PGvector vector = new PGvector(embedding.getEmbedding());
+        setVector(ps, first + 4, column.equals("embedding") ? vector : null);
+        setVector(ps, first + 5, column.equals("embedding_512") ? vector : null);
+        setVector(ps, first + 6, column.equals("embedding_256") ? vector : null);
+        ps.setString(first + 7, toJson(embedding.getMetadataJson()));
+    }
+
+    private static void setVector(PreparedStatement ps, int index, PGvector vector) throws SQLException {
+        if (vector != null) {
+            ps.setObject(index, vector);
+        } else {
+            ps.setNull(index, Types.OTHER);
+        }
+    }
+
+    private String toJson(Map<String, Object> metadata) {
+        if (metadata == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(metadata);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize embedding metadata", e);
+        }
+    }
+
+    private Map<String, Object> fromJson(String json) {
+        if (json == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(json, METADATA_TYPE);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to deserialize embedding metadata", e);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.insurance.rag.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.insurance.common.entity.EmbeddingCacheEntry;
+import com.insurance.rag.repository.EmbeddingCacheRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Content-addressed embedding cache: an in-process LRU in front of the embedding_cache table.
+ * Keys are SHA-256 hashes of (model name, chunk text), so unchanged chunks are never re-embedded
+ * and switching models naturally invalidates every entry.
+ */
+@Service
+@Slf4j
+public class EmbeddingCacheService {
+
+    private static final int LOOKUP_BATCH_SIZE = 1000;
+
+    private final EmbeddingCacheRepository embeddingCacheRepository;
+    private final String modelName;
+    private final Cache<String, float[]> memoryCache;
+
+    public EmbeddingCacheService(
+        EmbeddingCacheRepository embeddingCacheRepository,
+        @Value("${spring.ai.openai.embedding.options.model:text-embedding-3-small}") String modelName,
+        @Value("${app.rag.embedding.cache.max-memory-mb:64}") long maxMemoryMb
+    ) {
+        this.embeddingCacheRepository = embeddingCacheRepository;
+        this.modelName = modelName;
+        this.memoryCache = Caffeine.newBuilder()
+            .maximumWeight(maxMemoryMb * 1024 * 1024)
+            .weigher((String key, float[] value) -> value.length * Float.BYTES)
+            .build();
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    /**
+     * Cache key for a chunk of text under the configured embedding model
+     */
+    public String hash(String text) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(modelName.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(text.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Look up cached embeddings, checking memory first and then the database
+     */
+    public Map<String, float[]> getAll(Collection<String> hashes) {
+        Map<String, float[]> found = new HashMap<>(memoryCache.getAllPresent(hashes));
+
+        List<String> missing = hashes.stream()
+            .filter(hash -> !found.containsKey(hash))
+            .distinct()
+            .toList();
+
+        for (int start = 0; start < missing.size(); start += LOOKUP_BATCH_SIZE) {
+            List<String> batch = missing.subList(start, Math.min(start + LOOKUP_BATCH_SIZE, missing.size()));
+            for (EmbeddingCacheEntry entry : embeddingCacheRepository.findAllById(batch)) {
+                float[] embedding = decode(entry.getEmbedding());
+                found.put(entry.getContentHash(), embedding);
+                memoryCache.put(entry.getContentHash(), embedding);
+            }
+        }
+
+        log.debug("Embedding cache resolved {} of {} hashes", found.size(), hashes.size());
+        return found;
+    }
+
+    /**
+     * Add freshly generated embeddings to both cache tiers
+     */
+    public void putAll(Map<String, float[]> embeddings) {
+        if (embeddings.isEmpty()) {
+            return;
+        }
+
+        memoryCache.putAll(embeddings);
+
+        List<EmbeddingCacheEntry> entries = new ArrayList<>(embeddings.size());
+        embeddings.forEach((hash, embedding) -> entries.add(EmbeddingCacheEntry.builder()
+            .contentHash(hash)
+            .model(modelName)
+            .dimensions(embedding.length)
+            .embedding(encode(embedding))
+            .build()));
+
+        embeddingCacheRepository.insertIgnoringConflicts(entries);
+    }
+
+    private byte[] encode(float[] embedding) {
+        ByteBuffer buffer = ByteBuffer.allocate(embedding.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.asFloatBuffer().put(embedding);
+        return buffer.array();
+    }
+
+    private float[] decode(byte[] bytes) {
+        float[] embedding = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(embedding);
+        return embedding;
+    }
+}
@@ -1,31 +1,82 @@
 package com.insurance.rag.service;
 
 import com.insurance.common.entity.VectorEmbedding;
+import com.insurance.rag.dto.ChunkSpec;
+import com.insurance.rag.dto.EmbeddingDto;
+import com.insurance.rag.dto.VectorMatch;
+import com.insurance.rag.dto.VectorSearchFilter;
+import com.insurance.rag.dto.VectorSearchProfile;
+import com.insurance.rag.index.EmbeddingsDeletedEvent;
+import com.insurance.rag.index.EmbeddingsStoredEvent;
+import com.insurance.rag.index.EntityEmbeddingsReplacedEvent;
+import com.insurance.rag.index.VectorIndex;
 import com.insurance.rag.repository.VectorEmbeddingRepository;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.ai.embedding.Embedding;
 import org.springframework.ai.embedding.EmbeddingModel;
 import org.springframework.ai.embedding.EmbeddingRequest;
 import org.springframework.ai.embedding.EmbeddingResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmbeddingService {
 
+    /** Stored sizes below the full 1536, each in its own column; see app.rag.embedding.doc-chunk-dimensions */
+    private static final List<Integer> REDUCED_DIMENSIONS = List.of(512, 256);
+
     private final EmbeddingModel embeddingModel;
     private final VectorEmbeddingRepository vectorEmbeddingRepository;
+    private final EmbeddingCacheService embeddingCacheService;
+    private final QueryEmbeddingCache queryEmbeddingCache;
+    private final List<VectorIndex> vectorIndexes;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.rag.embedding.batch-size:64}")
+    private int batchSize;
+
+    @Value("${app.rag.embedding.max-batch-chars:100000}")
+    private int maxBatchChars;
+
+    @Value("${app.rag.embedding.doc-chunk-dimensions:1536}")
+    private int docChunkDimensions;
+
+    @Value("${app.rag.embedding.stage-retention:PT24H}")
+    private Duration stageRetention;
+
+    @PostConstruct
+    void validateDimensions() {
+        if (!Set.of(1536, 512, 256).contains(docChunkDimensions)) {
+            throw new IllegalStateException(
+                "app.rag.embedding.doc-chunk-dimensions must be 1536, 512 or 256, got " + docChunkDimensions);
+        }
+    }
 
     /**
      * Generate embedding for a text using Spring AI
      */
-    public List<Double> generateEmbedding(String text) {
+    public float[] generateEmbedding(String text) {
         log.debug("Generating embedding for text of length: {}", text.length());
 
         EmbeddingRequest request = new EmbeddingRequest(List.of(text), null);
@@ -35,93 +86,395 @@ public class EmbeddingService {
             throw new RuntimeException("Failed to generate embedding");
         }
 
-        // Convert float[] to List<Double>
-        float[] embedding = response.getResults().get(0).getOutput();
-        List<Double> embeddingList = new ArrayList<>(embedding.length);
-        for (float value : embedding) {
-            embeddingList.add((double) value);
+        return response.getResults().get(0).getOutput();
+    }
+
+    /**
+     * Generate embeddings for several texts in one model call, preserving input order
+     */
+    public List<float[]> generateEmbeddings(List<String> texts) {
+        log.debug("Generating embeddings for batch of {} texts", texts.size());
+
+        EmbeddingRequest request = new EmbeddingRequest(texts, null);
+        EmbeddingResponse response = embeddingModel.call(request);
+
+        if (response.getResults().size() != texts.size()) {
+            throw new RuntimeException("Failed to generate embeddings: expected " + texts.size() +
+                " results but got " + response.getResults().size());
+        }
+
+        List<Embedding> results = new ArrayList<>(response.getResults());
+        results.sort(Comparator.comparing(Embedding::getIndex));
+
+        List<float[]> embeddings = new ArrayList<>(results.size());
+        for (Embedding result : results) {
+            embeddings.add(result.getOutput());
         }
-        return embeddingList;
+        return embeddings;
     }
 
     /**
-     * Store embedding in vector database
+     * Store the single embedding of an entity (chunk index 0)
      */
-    @Transactional
     public VectorEmbedding storeEmbedding(
         VectorEmbedding.EntityType entityType,
         Long entityId,
         String chunkText,
         Map<String, Object> metadata
     ) {
-        List<Double> embedding = generateEmbedding(chunkText);
-        String embeddingString = formatEmbeddingForPostgres(embedding);
+        float[] embedding = resolveEmbeddings(List.of(chunkText)).get(0);
 
         VectorEmbedding vectorEmbedding = VectorEmbedding.builder()
             .entityType(entityType)
             .entityId(entityId)
+            .chunkIndex(0)
             .chunkText(chunkText)
-            .embedding(embeddingString)
+            .embedding(reduce(embedding, entityType))
             .metadataJson(metadata)
             .build();
 
-        VectorEmbedding saved = vectorEmbeddingRepository.save(vectorEmbedding);
+        write(List.of(vectorEmbedding));
         log.info("Stored embedding for {} with id {}", entityType, entityId);
 
-        return saved;
+        return vectorEmbedding;
     }
 
     /**
-     * Find similar content using vector similarity search
+     * Embed and upsert many chunks with a single JDBC batch. Embeddings come from the
+     * content-hash cache where possible; only new or changed chunks are sent to the model.
+     * Model calls run before any transaction is opened, so a slow embedding request never
+     * holds a pooled connection.
      */
-    @Transactional(readOnly = true)
-    public List<VectorEmbedding> findSimilar(String queryText, int limit) {
-        List<Double> queryEmbedding = generateEmbedding(queryText);
-        String embeddingString = formatEmbeddingForPostgres(queryEmbedding);
+    public int storeEmbeddings(List<ChunkSpec> chunks) {
+        if (chunks.isEmpty()) {
+            return 0;
+        }
+
+        int stored = write(prepareEmbeddings(chunks));
+        log.info("Stored {} embeddings", stored);
+
+        return stored;
+    }
+
+    /**
+     * Embed chunks without storing them, for callers that write a whole entity at once through
+     * {@link #stageEmbeddings}. No transaction is opened.
+     */
+    public List<VectorEmbedding> prepareEmbeddings(List<ChunkSpec> chunks) {
+        List<float[]> vectors = resolveEmbeddings(chunks.stream().map(ChunkSpec::getChunkText).toList());
+
+        List<VectorEmbedding> embeddings = new ArrayList<>(chunks.size());
+        for (int i = 0; i < chunks.size(); i++) {
+            ChunkSpec chunk = chunks.get(i);
+            embeddings.add(VectorEmbedding.builder()
+                .entityType(chunk.getEntityType())
+                .entityId(chunk.getEntityId())
+                .chunkIndex(chunk.getChunkIndex())
+                .chunkText(chunk.getChunkText())
+                .embedding(reduce(vectors.get(i), chunk.getEntityType()))
+                .metadataJson(chunk.getMetadata())
+                .build());
+        }
+        return embeddings;
+    }
+
+    /**
+     * Write one batch of an entity's new chunks to the staging table in its own short transaction, so
+     * an entity with many chunks is never held in memory whole. Staged chunks are not searchable until
+     * {@link #replaceFromStage}.
+     */
+    public void stageEmbeddings(UUID stageId, List<VectorEmbedding> embeddings) {
+        transactionTemplate.executeWithoutResult(status -> vectorEmbeddingRepository.stageEmbeddings(stageId, embeddings));
+    }
+
+    /**
+     * Make the chunks staged under stageId, numbered from 0, an entity's only embeddings in one
+     * transaction: they overwrite the rows at their index and rows past them are deleted, so searches
+     * see either the old version of the entity or the new one, never a mix.
+     */
+    public int replaceFromStage(UUID stageId, VectorEmbedding.EntityType entityType, Long entityId, int chunkCount) {
+        Integer stored = transactionTemplate.execute(status -> {
+            int rows = vectorEmbeddingRepository.upsertFromStage(stageId);
+            int deleted = vectorEmbeddingRepository.deleteChunksFrom(entityType, entityId, chunkCount);
+            if (deleted > 0) {
+                log.info("Deleted {} stale embeddings for {} with id {}", deleted, entityType, entityId);
+            }
+            vectorEmbeddingRepository.deleteStage(stageId);
+            eventPublisher.publishEvent(new EntityEmbeddingsReplacedEvent(entityType, entityId));
+            return rows;
+        });
+        log.info("Replaced embeddings for {} with id {}: {} chunks", entityType, entityId, chunkCount);
+        return stored != null ? stored : 0;
+    }
+
+    /**
+     * Drop the chunks of a run that failed before {@link #replaceFromStage}. Failures are only logged;
+     * {@link #purgeAbandonedStages} removes whatever is left.
+     */
+    public void discardStage(UUID stageId) {
+        try {
+            vectorEmbeddingRepository.deleteStage(stageId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to discard staged embeddings {}", stageId, e);
+        }
+    }
+
+    @Scheduled(
+        fixedDelayString = "${app.rag.embedding.stage-retention:PT24H}",
+        initialDelayString = "${app.rag.embedding.stage-retention:PT24H}"
+    )
+    public void purgeAbandonedStages() {
+        int purged = vectorEmbeddingRepository.deleteStagedBefore(LocalDateTime.now().minus(stageRetention));
+        if (purged > 0) {
+            log.info("Purged {} abandoned staged embeddings", purged);
+        }
+    }
+
+    /**
+     * Upsert embeddings in one short transaction. An entity whose chunk 0 is in the batch is being
+     * re-indexed from the start, so in-process indexes first drop what they hold for it.
+     */
+    private int write(List<VectorEmbedding> embeddings) {
+        Integer stored = transactionTemplate.execute(status -> {
+            // JDBC upsert, since reduced vectors live in a different column than the entity maps
+            int rows = vectorEmbeddingRepository.batchUpsert(embeddings);
+            embeddings.stream()
+                .filter(embedding -> embedding.getChunkIndex() == 0)
+                .forEach(embedding -> eventPublisher.publishEvent(
+                    new EmbeddingsDeletedEvent(embedding.getEntityType(), embedding.getEntityId())));
+            eventPublisher.publishEvent(new EmbeddingsStoredEvent(embeddings));
+            return rows;
+        });
+        return stored != null ? stored : 0;
+    }
+
+    /**
+     * Resolve embeddings for texts through the embedding cache. Cache misses are packed into
+     * model requests bounded by app.rag.embedding.batch-size and app.rag.embedding.max-batch-chars.
+     */
+    private List<float[]> resolveEmbeddings(List<String> texts) {
+        List<String> hashes = texts.stream().map(embeddingCacheService::hash).toList();
+        Map<String, float[]> resolved = new HashMap<>(embeddingCacheService.getAll(hashes));
+        int cacheHits = resolved.size();
+
+        Map<String, String> misses = new LinkedHashMap<>();
+        for (int i = 0; i < texts.size(); i++) {
+            if (!resolved.containsKey(hashes.get(i))) {
+                misses.putIfAbsent(hashes.get(i), texts.get(i));
+            }
+        }
+
+        List<String> missHashes = new ArrayList<>(misses.keySet());
+        Map<String, float[]> generated = new HashMap<>();
+        int requests = 0;
+
+        int start = 0;
+        while (start < missHashes.size()) {
+            int end = start;
+            int chars = 0;
+            while (end < missHashes.size() && end - start < batchSize) {
+                int length = misses.get(missHashes.get(end)).length();
+                if (end > start && chars + length > maxBatchChars) {
+                    break;
+                }
+                chars += length;
+                end++;
+            }
 
-        return vectorEmbeddingRepository.findSimilarByEmbedding(embeddingString, limit);
+            List<String> batch = missHashes.subList(start, end);
+            List<float[]> vectors = generateEmbeddings(batch.stream().map(misses::get).toList());
+            requests++;
+
+            for (int i = 0; i < batch.size(); i++) {
+                generated.put(batch.get(i), vectors.get(i));
+            }
+
+            start = end;
+        }
+
+        embeddingCacheService.putAll(generated);
+        resolved.putAll(generated);
+
+        log.debug("Resolved {} embeddings: {} cached, {} generated in {} requests",
+            texts.size(), cacheHits, generated.size(), requests);
+
+        List<float[]> embeddings = new ArrayList<>(texts.size());
+        for (String hash : hashes) {
+            embeddings.add(resolved.get(hash));
+        }
+        return embeddings;
+    }
+
+    /**
+     * Find similar content using vector similarity search. Results carry ids, distances and
+     * metadata; chunk text is only loaded for the final hits when includeText is set. No transaction
+     * is held while the query is embedded.
+     */
+    public List<EmbeddingDto> findSimilar(String queryText, int limit, boolean includeText) {
+        float[] query = embedQuery(queryText);
+        List<EmbeddingDto> results = new ArrayList<>(vectorEmbeddingRepository.findNearest(query, limit, true));
+        // DOC_CHUNK rows stored at a reduced dimension live in their own column and need a truncated query
+        for (int dimensions : REDUCED_DIMENSIONS) {
+            if (dimensions < query.length) {
+                results.addAll(vectorEmbeddingRepository.findNearest(truncate(query, dimensions), limit, true));
+            }
+        }
+        results.sort(Comparator.comparingDouble(EmbeddingDto::getDistance));
+        if (results.size() > limit) {
+            results = new ArrayList<>(results.subList(0, limit));
+        }
+        if (includeText) {
+            attachChunkText(results);
+        }
+        return results;
     }
 
     /**
      * Find similar content of a specific entity type
      */
-    @Transactional(readOnly = true)
-    public List<VectorEmbedding> findSimilarByType(
+    public List<EmbeddingDto> findSimilarByType(
         String queryText,
         VectorEmbedding.EntityType entityType,
         int limit
     ) {
-        List<Double> queryEmbedding = generateEmbedding(queryText);
-        String embeddingString = formatEmbeddingForPostgres(queryEmbedding);
+        return findSimilarByType(queryText, entityType, limit, VectorSearchProfile.BALANCED);
+    }
 
-        return vectorEmbeddingRepository.findSimilarByEmbeddingAndEntityType(
-            embeddingString,
-            entityType.name(),
-            limit
+    /**
+     * Find similar content of a specific entity type with an explicit recall/latency profile,
+     * loading only the chunk text of the ranked matches
+     */
+    public List<EmbeddingDto> findSimilarByType(
+        String queryText,
+        VectorEmbedding.EntityType entityType,
+        int limit,
+        VectorSearchProfile profile
+    ) {
+        List<EmbeddingDto> results = findSimilarMatches(queryText, entityType, limit, profile).stream()
+            .map(match -> EmbeddingDto.builder()
+                .id(match.embeddingId())
+                .entityType(entityType)
+                .entityId(match.entityId())
+                .distance(match.distance())
+                .similarity(1.0 - match.distance())
+                .build())
+            .toList();
+        attachChunkText(results);
+        return results;
+    }
+
+    /**
+     * Fill in chunk text for results that were ranked without it
+     */
+    public void attachChunkText(List<EmbeddingDto> results) {
+        Map<Long, String> chunkText = vectorEmbeddingRepository.findChunkTextByIds(
+            results.stream().map(EmbeddingDto::getId).toList());
+        results.forEach(result -> result.setChunkText(chunkText.get(result.getId())));
+    }
+
+    /**
+     * Find the nearest embeddings of an entity type as lightweight matches, using whichever
+     * vector index backend is configured for that type
+     */
+    public List<VectorMatch> findSimilarMatches(
+        String queryText,
+        VectorEmbedding.EntityType entityType,
+        int limit,
+        VectorSearchProfile profile
+    ) {
+        return findSimilarMatches(queryText, entityType, limit, profile, null);
+    }
+
+    /**
+     * Find the nearest embeddings among those matching a metadata filter. The filter is applied
+     * inside the search, so up to {@code limit} matches come back even when it is selective.
+     */
+    public List<VectorMatch> findSimilarMatches(
+        String queryText,
+        VectorEmbedding.EntityType entityType,
+        int limit,
+        VectorSearchProfile profile,
+        VectorSearchFilter filter
+    ) {
+        return findNearestMatches(embedQuery(queryText), entityType, limit, profile, filter);
+    }
+
+    /**
+     * Same as {@link #findSimilarMatches} for an already embedded query, so one embedding can
+     * serve several searches
+     */
+    public List<VectorMatch> findNearestMatches(
+        float[] queryEmbedding,
+        VectorEmbedding.EntityType entityType,
+        int limit,
+        VectorSearchProfile profile,
+        VectorSearchFilter filter
+    ) {
+        VectorSearchFilter effectiveFilter = filter != null && !filter.isEmpty() ? filter : null;
+        VectorIndex index = vectorIndexes.stream()
+            .filter(candidate -> candidate.supports(entityType, effectiveFilter))
+            .findFirst()
+            .orElseThrow(() -> new IllegalStateException("No vector index supports " + entityType));
+
+        return index.search(
+            entityType,
+            reduce(queryEmbedding, entityType),
+            limit,
+            profile != null ? profile : VectorSearchProfile.BALANCED,
+            effectiveFilter
         );
     }
 
+    /**
+     * Merge a product's current attributes into the metadata of its DOC_CHUNK rows, skipping rows that
+     * already match. Vectors and generations are left alone, so in-process indexes need no update.
+     */
+    public int refreshChunkProductMetadata(Long productId, Map<String, Object> attributes) {
+        return vectorEmbeddingRepository.updateChunkProductMetadata(productId, attributes);
+    }
+
     /**
      * Delete embeddings for an entity
      */
     @Transactional
     public void deleteEmbeddings(VectorEmbedding.EntityType entityType, Long entityId) {
         vectorEmbeddingRepository.deleteByEntityTypeAndEntityId(entityType, entityId);
+        eventPublisher.publishEvent(new EmbeddingsDeletedEvent(entityType, entityId));
         log.info("Deleted embeddings for {} with id {}", entityType, entityId);
     }
 
     /**
-     * Format embedding as PostgreSQL vector format: [0.1, 0.2, 0.3, ...]
+     * Matryoshka truncation for DOC_CHUNK vectors: keep the leading app.rag.embedding.doc-chunk-dimensions
+     * components and re-normalize. text-embedding-3 models are trained so this prefix is itself a usable
+     * embedding; doing it here rather than through the API's dimensions option lets one cached full
+     * vector serve every configured size.
      */
-    private String formatEmbeddingForPostgres(List<Double> embedding) {
-        StringBuilder sb = new StringBuilder("[");
-        for (int i = 0; i < embedding.size(); i++) {
-            if (i > 0) {
-                sb.append(",");
+    private float[] reduce(float[] embedding, VectorEmbedding.EntityType entityType) {
+        if (entityType != VectorEmbedding.EntityType.DOC_CHUNK || docChunkDimensions >= embedding.length) {
+            return embedding;
+        }
+        return truncate(embedding, docChunkDimensions);
+    }
+
+    private static float[] truncate(float[] embedding, int dimensions) {
+        float[] reduced = Arrays.copyOf(embedding, dimensions);
+        double norm = 0;
+        for (float value : reduced) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        if (norm > 0) {
+            for (int i = 0; i < reduced.length; i++) {
+                reduced[i] = (float) (reduced[i] / norm);
             }
-            sb.append(embedding.get(i));
         }
-        sb.append("]");
-        return sb.toString();
+        return reduced;
+    }
+
+    /**
+     * Embed a search query, reusing cached embeddings for repeated queries
+     */
+    public float[] embedQuery(String queryText) {
+        return queryEmbeddingCache.get(queryText, this::generateEmbedding);
     }
 }
@@ -0,0 +1,172 @@
+package com.insurance.rag.service;
+
+import com.insurance.common.entity.VectorEmbedding;
+import com.insurance.rag.dto.ProductHit;
+import com.insurance.rag.dto.VectorMatch;
+import com.insurance.rag.dto.VectorSearchFilter;
+import com.insurance.rag.dto.VectorSearchProfile;
+import com.insurance.rag.ranking.MaximalMarginalRelevance;
+import com.insurance.rag.repository.VectorEmbeddingRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Retrieves products from both PRODUCT embeddings and their document chunks. The two searches run
+ * concurrently against one query embedding; chunk hits are mapped to products through
+ * metadata_json.productId and the two rankings are combined with reciprocal-rank fusion.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class HybridRetrievalService {
+
+    private final EmbeddingService embeddingService;
+    private final VectorEmbeddingRepository vectorEmbeddingRepository;
+
+    private final ExecutorService searchExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${app.rag.hybrid.rrf-k:60}")
+    private int rrfK;
+
+    @Value("${app.rag.hybrid.product-weight:1.0}")
+    private double productWeight;
+
+    @Value("${app.rag.hybrid.chunk-weight:1.0}")
+    private double chunkWeight;
+
+    @Value("${app.rag.hybrid.chunk-candidates-multiplier:3}")
+    private int chunkCandidatesMultiplier;
+
+    /**
+     * Products ranked by fused PRODUCT and DOC_CHUNK similarity, best first
+     */
+    public List<ProductHit> retrieveProducts(
+        String queryText,
+        int limit,
+        VectorSearchProfile profile,
+        VectorSearchFilter filter
+    ) {
+        float[] queryEmbedding = embeddingService.embedQuery(queryText);
+
+        CompletableFuture<List<VectorMatch>> productSearch = CompletableFuture.supplyAsync(() ->
+            embeddingService.findNearestMatches(
+                queryEmbedding, VectorEmbedding.EntityType.PRODUCT, limit, profile, filter),
+            searchExecutor);
+        // Several chunks usually belong to the same product, so over-fetch to reach enough distinct products
+        CompletableFuture<List<VectorMatch>> chunkSearch = CompletableFuture.supplyAsync(() ->
+            embeddingService.findNearestMatches(
+                queryEmbedding, VectorEmbedding.EntityType.DOC_CHUNK, limit * chunkCandidatesMultiplier, profile, filter),
+            searchExecutor);
+
+        List<VectorMatch> productMatches = productSearch.join();
+        List<VectorMatch> chunkMatches = chunkSearch.join();
+
+        List<ProductHit> hits = fuse(productMatches, chunkMatches);
+        log.debug("Hybrid retrieval fused {} product and {} chunk matches into {} products",
+            productMatches.size(), chunkMatches.size(), hits.size());
+
+        return hits.size() > limit ? hits.subList(0, limit) : hits;
+    }
+
+    /**
+     * Text of each hit's best chunk, keyed by embedding id, for use as citations
+     */
+    public Map<Long, String> loadCitationText(List<ProductHit> hits) {
+        return vectorEmbeddingRepository.findChunkTextByIds(hits.stream()
+            .filter(hit -> hit.bestChunk() != null)
+            .map(hit -> hit.bestChunk().embeddingId())
+            .toList());
+    }
+
+    /**
+     * Re-rank hits with Maximal Marginal Relevance over their PRODUCT embeddings, keeping {@code limit}.
+     * Fused scores are scaled to (0, 1] as relevance; {@code diversity} is 1 - lambda, so 0 keeps
+     * the fused order and higher values push near-duplicate products down.
+     */
+    public List<ProductHit> diversify(List<ProductHit> hits, int limit, double diversity) {
+        if (hits.size() <= 1 || diversity <= 0) {
+            return hits.size() > limit ? hits.subList(0, limit) : hits;
+        }
+
+        Map<Long, float[]> vectors = vectorEmbeddingRepository.findLeadingVectors(
+            VectorEmbedding.EntityType.PRODUCT, hits.stream().map(ProductHit::productId).toList());
+        int dimensions = vectors.values().stream().findFirst().map(vector -> vector.length).orElse(0);
+        if (dimensions == 0) {
+            return hits.size() > limit ? hits.subList(0, limit) : hits;
+        }
+
+        // Products without a PRODUCT embedding (found only through their documents) stay as zero
+        // vectors, i.e. similar to nothing
+        float[] packed = new float[hits.size() * dimensions];
+        double[] relevance = new double[hits.size()];
+        double topScore = hits.get(0).score();
+        for (int i = 0; i < hits.size(); i++) {
+            ProductHit hit = hits.get(i);
+            float[] vector = vectors.get(hit.productId());
+            if (vector != null && vector.length == dimensions) {
+                System.arraycopy(vector, 0, packed, i * dimensions, dimensions);
+            }
+            relevance[i] = topScore > 0 ? hit.score() / topScore : 0;
+        }
+
+        int[] order = MaximalMarginalRelevance.select(packed, dimensions, relevance, 1 - diversity, limit);
+        List<ProductHit> diversified = new ArrayList<>(order.length);
+        for (int index : order) {
+            diversified.add(hits.get(index));
+        }
+        return diversified;
+    }
+
+    private List<ProductHit> fuse(List<VectorMatch> productMatches, List<VectorMatch> chunkMatches) {
+        Map<Long, Integer> productRanks = new LinkedHashMap<>();
+        for (VectorMatch match : productMatches) {
+            productRanks.putIfAbsent(match.entityId(), productRanks.size() + 1);
+        }
+
+        // A product's chunk rank is that of its closest chunk; chunk matches arrive sorted by distance
+        Map<Long, Long> chunkProducts = vectorEmbeddingRepository.findChunkProductIds(
+            chunkMatches.stream().map(VectorMatch::embeddingId).toList());
+        Map<Long, Integer> chunkRanks = new LinkedHashMap<>();
+        Map<Long, VectorMatch> bestChunks = new HashMap<>();
+        for (VectorMatch match : chunkMatches) {
+            Long productId = chunkProducts.get(match.embeddingId());
+            if (productId != null && !chunkRanks.containsKey(productId)) {
+                chunkRanks.put(productId, chunkRanks.size() + 1);
+                bestChunks.put(productId, match);
+            }
+        }
+
+        Map<Long, Double> scores = new LinkedHashMap<>();
+        productRanks.forEach((productId, rank) -> scores.merge(productId, productWeight / (rrfK + rank), Double::sum));
+        chunkRanks.forEach((productId, rank) -> scores.merge(productId, chunkWeight / (rrfK + rank), Double::sum));
+
+        List<ProductHit> hits = new ArrayList<>(scores.size());
+        scores.forEach((productId, score) -> hits.add(new ProductHit(
+            productId,
+            score,
+            productRanks.get(productId),
+            chunkRanks.get(productId),
+            bestChunks.get(productId)
+        )));
+        hits.sort(Comparator.comparingDouble(ProductHit::score).reversed());
+        return hits;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        searchExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,249 @@
+package com.insurance.rag.service;
+
+import com.insurance.common.entity.IndexFailure;
+import com.insurance.common.entity.IndexTombstone;
+import com.insurance.common.entity.IndexWatermark;
+import com.insurance.common.entity.VectorEmbedding;
+import com.insurance.products.repository.ProductDocumentRepository;
+import com.insurance.products.repository.ProductRepository;
+import com.insurance.rag.repository.IndexFailureRepository;
+import com.insurance.rag.repository.IndexTombstoneRepository;
+import com.insurance.rag.repository.IndexWatermarkRepository;
+import com.insurance.rag.repository.ScheduledLockRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Keeps the vector store in sync with catalog edits without a full rebuild. Each run indexes
+ * products updated and documents created since the previous run for that entity type, retries
+ * entities that failed before (see index_failures), and removes embeddings of deleted products and
+ * documents recorded in index_tombstones. One run at a time across the cluster, guarded by a row
+ * in scheduled_locks.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class IncrementalIndexingService {
+
+    private static final LocalDateTime NEVER_INDEXED = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final String LOCK_NAME = "incremental-indexing";
+
+    private final ProductIndexingService productIndexingService;
+    private final EmbeddingService embeddingService;
+    private final ReindexJobService reindexJobService;
+    private final ProductRepository productRepository;
+    private final ProductDocumentRepository productDocumentRepository;
+    private final IndexWatermarkRepository indexWatermarkRepository;
+    private final IndexFailureRepository indexFailureRepository;
+    private final IndexTombstoneRepository indexTombstoneRepository;
+    private final ScheduledLockRepository scheduledLockRepository;
+
+    @Value("${app.rag.incremental.enabled:true}")
+    private boolean enabled;
+
+    /**
+     * Rows changed slightly before the previous watermark are re-selected to tolerate clock skew
+     * and transactions that committed after the previous run read the table
+     */
+    @Value("${app.rag.incremental.overlap:PT1M}")
+    private Duration overlap;
+
+    /** Failed attempts, across runs, before an entity is dead-lettered */
+    @Value("${app.rag.incremental.max-attempts:5}")
+    private int maxAttempts;
+
+    /** How long the run lock outlives its last extension, bounding how long a crashed run blocks others */
+    @Value("${app.rag.incremental.lock-timeout:PT10M}")
+    private Duration lockTimeout;
+
+    @Scheduled(
+        fixedDelayString = "${app.rag.incremental.interval:PT2M}",
+        initialDelayString = "${app.rag.incremental.interval:PT2M}"
+    )
+    public void scheduledRun() {
+        if (!enabled) {
+            return;
+        }
+        if (reindexJobService.hasActiveJob()) {
+            log.debug("Skipping incremental indexing while a full reindex job is active");
+            return;
+        }
+        runIncremental();
+    }
+
+    /**
+     * Index everything that changed since the last watermark and purge embeddings of deleted entities
+     */
+    public Map<String, Integer> runIncremental() {
+        RunLock lock = new RunLock(UUID.randomUUID().toString());
+        if (!lock.tryAcquire()) {
+            log.info("Incremental indexing already in progress");
+            return Map.of();
+        }
+
+        try {
+            Map<String, Integer> result = new HashMap<>();
+
+            result.put("productsIndexed", indexChanged(
+                VectorEmbedding.EntityType.PRODUCT,
+                productRepository::findIdsUpdatedAfter,
+                productIndexingService::indexProductById,
+                lock
+            ));
+            result.put("documentsIndexed", indexChanged(
+                VectorEmbedding.EntityType.DOC_CHUNK,
+                productDocumentRepository::findIdsExtractedAfter,
+                productIndexingService::indexDocumentById,
+                lock
+            ));
+            Map<VectorEmbedding.EntityType, Integer> removed = removeDeleted(lock);
+            result.put("productsRemoved", removed.getOrDefault(VectorEmbedding.EntityType.PRODUCT, 0));
+            result.put("documentsRemoved", removed.getOrDefault(VectorEmbedding.EntityType.DOC_CHUNK, 0));
+
+            if (result.values().stream().anyMatch(count -> count > 0)) {
+                log.info("Incremental indexing complete: {}", result);
+            }
+            return result;
+        } finally {
+            lock.release();
+        }
+    }
+
+    /**
+     * Index entities changed since the watermark plus earlier failures still being retried. The
+     * watermark always advances to the run's start; failures are tracked per entity instead, so one
+     * entity that keeps failing does not pin the whole window.
+     */
+    private int indexChanged(
+        VectorEmbedding.EntityType entityType,
+        Function<LocalDateTime, List<Long>> changedSince,
+        Consumer<Long> indexer,
+        RunLock lock
+    ) {
+        LocalDateTime runStartedAt = LocalDateTime.now();
+        LocalDateTime watermark = indexWatermarkRepository.findById(entityType)
+            .map(IndexWatermark::getLastIndexedAt)
+            .orElse(NEVER_INDEXED);
+
+        Map<Long, IndexFailure> failures = new HashMap<>();
+        for (IndexFailure failure : indexFailureRepository.findByEntityType(entityType)) {
+            failures.put(failure.getEntityId(), failure);
+        }
+
+        // Dead-lettered entities come back only when they change again
+        Set<Long> ids = new LinkedHashSet<>(changedSince.apply(watermark.minus(overlap)));
+        failures.values().stream()
+            .filter(failure -> failure.getStatus() == IndexFailure.FailureStatus.RETRYING)
+            .forEach(failure -> ids.add(failure.getEntityId()));
+
+        int indexed = 0;
+        for (Long id : ids) {
+            lock.keepAlive();
+            IndexFailure failure = failures.get(id);
+            try {
+                indexer.accept(id);
+                indexed++;
+                if (failure != null) {
+                    indexFailureRepository.delete(failure);
+                }
+            } catch (Exception e) {
+                log.error("Incremental indexing failed for {} {}", entityType, id, e);
+                recordFailure(entityType, id, failure, e);
+            }
+        }
+
+        indexWatermarkRepository.save(IndexWatermark.builder()
+            .entityType(entityType)
+            .lastIndexedAt(runStartedAt)
+            .build());
+
+        return indexed;
+    }
+
+    private void recordFailure(VectorEmbedding.EntityType entityType, Long id, IndexFailure failure, Exception error) {
+        if (failure == null) {
+            failure = IndexFailure.builder().entityType(entityType).entityId(id).attempts(0).build();
+        }
+        failure.setAttempts(failure.getAttempts() + 1);
+        failure.setLastError(error.getMessage());
+        failure.setLastAttemptAt(LocalDateTime.now());
+        if (failure.getAttempts() >= maxAttempts) {
+            if (failure.getStatus() != IndexFailure.FailureStatus.DEAD_LETTER) {
+                log.warn("Giving up on {} {} after {} failed indexing attempts", entityType, id, failure.getAttempts());
+            }
+            failure.setStatus(IndexFailure.FailureStatus.DEAD_LETTER);
+        } else {
+            failure.setStatus(IndexFailure.FailureStatus.RETRYING);
+        }
+        indexFailureRepository.save(failure);
+    }
+
+    /**
+     * Purge the embeddings of products and documents deleted since the last run, oldest first
+     */
+    private Map<VectorEmbedding.EntityType, Integer> removeDeleted(RunLock lock) {
+        Map<VectorEmbedding.EntityType, Integer> removed = new HashMap<>();
+        List<IndexTombstone> tombstones;
+        while (!(tombstones = indexTombstoneRepository.findTop500ByOrderByIdAsc()).isEmpty()) {
+            for (IndexTombstone tombstone : tombstones) {
+                embeddingService.deleteEmbeddings(tombstone.getEntityType(), tombstone.getEntityId());
+                removed.merge(tombstone.getEntityType(), 1, Integer::sum);
+            }
+            indexTombstoneRepository.deleteAllInBatch(tombstones);
+            lock.keepAlive();
+        }
+        return removed;
+    }
+
+    /**
+     * A run's hold on the cluster-wide lock. It is extended once half of lock-timeout has passed,
+     * so a long run keeps it while a crashed one releases it within lock-timeout.
+     */
+    private final class RunLock {
+
+        private final String owner;
+        private LocalDateTime extendedAt;
+
+        private RunLock(String owner) {
+            this.owner = owner;
+        }
+
+        boolean tryAcquire() {
+            LocalDateTime now = LocalDateTime.now();
+            if (!scheduledLockRepository.tryLock(LOCK_NAME, owner, now, now.plus(lockTimeout))) {
+                return false;
+            }
+            extendedAt = now;
+            return true;
+        }
+
+        void keepAlive() {
+            LocalDateTime now = LocalDateTime.now();
+            if (Duration.between(extendedAt, now).compareTo(lockTimeout.dividedBy(2)) < 0) {
+                return;
+            }
+            if (scheduledLockRepository.extend(LOCK_NAME, owner, now.plus(lockTimeout)) == 0) {
+                throw new RuntimeException("Incremental indexing lock was taken over by another run");
+            }
+            extendedAt = now;
+        }
+
+        void release() {
+            scheduledLockRepository.unlock(LOCK_NAME, owner, LocalDateTime.now());
+        }
+    }
+}
@@ -0,0 +1,263 @@
+package com.insurance.rag.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.insurance.common.entity.LlmResponseCacheEntry;
+import com.insurance.rag.llm.GuardedChatClient;
+import com.insurance.rag.repository.LlmResponseCacheRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Cache of LLM completions: an in-process LRU in front of the llm_response_cache table, so hits
+ * survive restarts and are shared between instances. Keys are SHA-256 hashes of (the client's
+ * model, its profile as purpose, prompt with whitespace collapsed), so a model switch invalidates
+ * every entry.
+ * <p>
+ * For clients whose profile sets {@code semantic-cache} (see {@link com.insurance.rag.llm.ChatClients}),
+ * a prompt missing both tiers is embedded and answered from the most similar cached prompt of the
+ * same purpose and model, if it is at least {@code app.rag.response-cache.semantic.min-similarity}
+ * (cosine) close. Only profiles whose answers may be reused for a slightly different prompt should
+ * opt in; neither current one does, since a changed number or need in the prompt must change the
+ * answer.
+ * <p>
+ * Cache failures never fail the caller: lookups fall through to the model and writes happen in the
+ * background. Blank responses are not cached, and fallbacks are never seen here since callers
+ * produce them after the client throws. Hits and misses are counted in
+ * {@code llm.response-cache.requests} by purpose and result (memory, database, semantic or miss).
+ */
+@Service
+@Slf4j
+public class LlmResponseCache {
+
+    private static final String CACHE_NAME = "llm.response-cache";
+
+    private final LlmResponseCacheRepository repository;
+    private final EmbeddingService embeddingService;
+    private final MeterRegistry meterRegistry;
+    private final Duration ttl;
+    private final Cache<String, String> memoryCache;
+    private final TransactionTemplate readOnlyTransaction;
+
+    /** Database writes run off the caller's thread, which may be an HTTP client's event loop */
+    private final ExecutorService writeExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${app.rag.response-cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${app.rag.response-cache.max-rows:100000}")
+    private long maxRows;
+
+    @Value("${app.rag.response-cache.semantic.min-similarity:0.97}")
+    private double minSimilarity;
+
+    public LlmResponseCache(
+        LlmResponseCacheRepository repository,
+        EmbeddingService embeddingService,
+        MeterRegistry meterRegistry,
+        PlatformTransactionManager transactionManager,
+        @Value("${app.rag.response-cache.max-entries:1000}") long maxEntries,
+        @Value("${app.rag.response-cache.ttl:PT24H}") Duration ttl
+    ) {
+        this.repository = repository;
+        this.embeddingService = embeddingService;
+        this.meterRegistry = meterRegistry;
+        this.ttl = ttl;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.memoryCache = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, memoryCache, CACHE_NAME);
+    }
+
+    /**
+     * The cached completion for the prompt, else a new one from the client, which is then cached.
+     * Exceptions from the client propagate and nothing is cached.
+     */
+    public String call(GuardedChatClient client, String prompt) {
+        if (!enabled) {
+            return client.call(prompt);
+        }
+        Lookup lookup = lookup(client, prompt);
+        if (lookup.response() != null) {
+            return lookup.response();
+        }
+        String response = client.call(prompt);
+        store(lookup, response);
+        return response;
+    }
+
+    /**
+     * The cached completion as a single element, else the client's token stream, cached once it
+     * completes so a failed or cancelled stream leaves nothing behind. The lookup runs on the
+     * subscribing thread.
+     */
+    public Flux<String> stream(GuardedChatClient client, String prompt) {
+        if (!enabled) {
+            return client.stream(prompt);
+        }
+        return Flux.defer(() -> {
+            Lookup lookup = lookup(client, prompt);
+            if (lookup.response() != null) {
+                return Flux.just(lookup.response());
+            }
+            StringBuilder response = new StringBuilder();
+            return client.stream(prompt)
+                .doOnNext(response::append)
+                .doOnComplete(() -> store(lookup, response.toString()));
+        });
+    }
+
+    @Scheduled(
+        fixedDelayString = "${app.rag.response-cache.cleanup-interval:PT1H}",
+        initialDelayString = "${app.rag.response-cache.cleanup-interval:PT1H}"
+    )
+    public void evictExpired() {
+        if (!enabled) {
+            return;
+        }
+        int deleted = repository.evict(maxRows);
+        if (deleted > 0) {
+            log.info("Evicted {} LLM response cache entries", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        writeExecutor.shutdown();
+    }
+
+    private Lookup lookup(GuardedChatClient client, String prompt) {
+        String purpose = client.profile().key();
+        String model = client.model();
+        String normalized = normalize(prompt);
+        String key = hash(model, purpose, normalized);
+        boolean semantic = client.semanticCache();
+
+        String response = memoryCache.getIfPresent(key);
+        if (response != null) {
+            count(purpose, "memory");
+            return new Lookup(purpose, model, key, normalized, semantic, null, response);
+        }
+
+        try {
+            response = repository.findByPromptHashAndExpiresAtAfter(key, LocalDateTime.now())
+                .map(LlmResponseCacheEntry::getResponse)
+                .orElse(null);
+            if (response != null) {
+                memoryCache.put(key, response);
+                count(purpose, "database");
+                return new Lookup(purpose, model, key, normalized, semantic, null, response);
+            }
+
+            if (semantic) {
+                float[] embedding = embeddingService.embedQuery(normalized);
+                response = readOnlyTransaction.execute(status ->
+                    repository.findMostSimilarResponse(purpose, model, embedding, minSimilarity).orElse(null));
+                if (response != null) {
+                    // Only the memory tier remembers the match; the table keeps the original prompt
+                    memoryCache.put(key, response);
+                    count(purpose, "semantic");
+                    return new Lookup(purpose, model, key, normalized, semantic, embedding, response);
+                }
+                count(purpose, "miss");
+                return new Lookup(purpose, model, key, normalized, semantic, embedding, null);
+            }
+        } catch (RuntimeException e) {
+            log.warn("LLM response cache lookup failed for {}, calling the model: {}", purpose, e.toString());
+        }
+
+        count(purpose, "miss");
+        return new Lookup(purpose, model, key, normalized, semantic, null, null);
+    }
+
+    private void store(Lookup lookup, String response) {
+        if (response == null || response.isBlank()) {
+            return;
+        }
+        memoryCache.put(lookup.key(), response);
+
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        writeExecutor.execute(() -> {
+            try {
+                float[] embedding = lookup.embedding();
+                if (embedding == null && lookup.semantic()) {
+                    embedding = embeddingService.embedQuery(lookup.normalizedPrompt());
+                }
+                repository.upsert(LlmResponseCacheEntry.builder()
+                    .promptHash(lookup.key())
+                    .purpose(lookup.purpose())
+                    .model(lookup.model())
+                    .response(response)
+                    .promptEmbedding(embedding)
+                    .expiresAt(expiresAt)
+                    .build());
+            } catch (RuntimeException e) {
+                log.warn("Failed to persist LLM response cache entry for {}: {}", lookup.purpose(), e.toString());
+            }
+        });
+    }
+
+    private static String hash(String model, String purpose, String normalizedPrompt) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(model.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(purpose.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(normalizedPrompt.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private void count(String purpose, String result) {
+        Counter.builder("llm.response-cache.requests")
+            .description("LLM response cache lookups by result")
+            .tag("purpose", purpose)
+            .tag("result", result)
+            .register(meterRegistry)
+            .increment();
+    }
+
+    private static String normalize(String prompt) {
+        return prompt.trim().replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Outcome of a lookup, carrying what a following store can reuse
+     */
+    private record Lookup(
+        String purpose,
+        String model,
+        String key,
+        String normalizedPrompt,
+        boolean semantic,
+        float[] embedding,
+        String response
+    ) {
+    }
+}
@@ -5,47 +5,73 @@ import com.insurance.common.entity.ProductDocument;
 import com.insurance.common.entity.VectorEmbedding;
 import com.insurance.products.repository.ProductRepository;
 import com.insurance.products.repository.ProductDocumentRepository;
+import com.insurance.products.service.DocumentExtractionService;
+import com.insurance.products.service.DocumentStorageService;
+import com.insurance.rag.dto.ChunkSpec;
+import com.insurance.rag.extraction.DocumentChunkStream;
+import com.insurance.rag.extraction.StreamingChunkExtractor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.tika.metadata.Metadata;
-import org.apache.tika.parser.AutoDetectParser;
-import org.apache.tika.parser.ParseContext;
-import org.apache.tika.parser.Parser;
-import org.apache.tika.sax.BodyContentHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
-import java.io.File;
-import java.io.FileInputStream;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.UUID;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Builds embeddings for products and their documents. Entities are read in short transactions and
+ * embedding model calls run outside any transaction. Product batches are then upserted in their own
+ * short transaction. A document's chunks are staged batch by batch as they are embedded and swapped in
+ * together in one transaction, so searches never see it half re-indexed and memory does not grow with
+ * its length. A long reindex holds a pooled connection only while it is actually writing.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class ProductIndexingService {
 
+    private static final int CHUNK_SIZE = 1000;
+
     private final EmbeddingService embeddingService;
     private final ProductRepository productRepository;
     private final ProductDocumentRepository productDocumentRepository;
+    private final StreamingChunkExtractor streamingChunkExtractor;
+    private final DocumentStorageService storageService;
+    private final DocumentExtractionService documentExtractionService;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${app.rag.embedding.batch-size:64}")
+    private int batchSize;
 
     /**
-     * Index all products in the vector database
+     * Index all products in the vector database, embedding up to app.rag.embedding.batch-size products per model call
      */
-    @Transactional
     public int indexAllProducts() {
         log.info("Starting to index all products");
 
-        List<Product> products = productRepository.findAll();
+        List<ProductSource> products = transactionTemplate.execute(status ->
+            productRepository.findAll().stream().map(this::loadProductSource).toList());
         int indexed = 0;
 
-        for (Product product : products) {
+        for (int start = 0; start < products.size(); start += batchSize) {
+            List<ProductSource> batch = products.subList(start, Math.min(start + batchSize, products.size()));
+            List<ChunkSpec> chunks = batch.stream().map(ProductSource::chunk).toList();
             try {
-                indexProduct(product);
-                indexed++;
+                indexed += embeddingService.storeEmbeddings(chunks);
+                batch.forEach(this::refreshChunkMetadata);
             } catch (Exception e) {
-                log.error("Failed to index product: {}", product.getId(), e);
+                log.error("Failed to index products: {}", chunks.stream().map(ChunkSpec::getEntityId).toList(), e);
             }
         }
 
@@ -54,54 +80,88 @@ public class ProductIndexingService {
     }
 
     /**
-     * Index a single product
+     * Load and index a single product; products deleted in the meantime are skipped. The product's one
+     * embedding (chunk index 0) is overwritten in place rather than deleted and re-inserted, and the
+     * product attributes copied into its document chunks are brought up to date.
      */
-    @Transactional
-    public void indexProduct(Product product) {
-        log.info("Indexing product: {} - {}", product.getId(), product.getName());
+    public void indexProductById(Long productId) {
+        ProductSource product = transactionTemplate.execute(status ->
+            productRepository.findById(productId).map(this::loadProductSource).orElse(null));
+        if (product == null) {
+            log.info("Product {} no longer exists, skipping indexing", productId);
+            return;
+        }
 
-        // Delete existing embeddings for this product
-        embeddingService.deleteEmbeddings(VectorEmbedding.EntityType.PRODUCT, product.getId());
+        log.info("Indexing product: {} - {}", productId, product.chunkAttributes().get("productName"));
+        embeddingService.storeEmbeddings(List.of(product.chunk()));
+        refreshChunkMetadata(product);
+        log.info("Indexed product: {}", productId);
+    }
 
-        // Create text representation of product
-        String productText = createProductText(product);
+    /**
+     * A product's embedding input together with the attributes its document chunks carry, read while
+     * the loading transaction is still open
+     */
+    private record ProductSource(ChunkSpec chunk, Map<String, Object> chunkAttributes) {
+    }
 
-        // Create metadata
-        Map<String, Object> metadata = new HashMap<>();
+    private ProductSource loadProductSource(Product product) {
+        return new ProductSource(createProductChunkSpec(product), chunkAttributes(product));
+    }
+
+    /**
+     * Document chunks copy product attributes at indexing time; rewrite them in place after a product
+     * edit instead of re-embedding the documents
+     */
+    private void refreshChunkMetadata(ProductSource product) {
+        int updated = embeddingService.refreshChunkProductMetadata(product.chunk().getEntityId(), product.chunkAttributes());
+        if (updated > 0) {
+            log.info("Refreshed product attributes of {} document chunks for product {}", updated, product.chunk().getEntityId());
+        }
+    }
+
+    /**
+     * Product attributes stored with each document chunk, so filtered searches restrict chunks the same
+     * way as products
+     */
+    private static Map<String, Object> chunkAttributes(Product product) {
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("productName", product.getName());
+        attributes.put("insurer", product.getInsurer());
+        attributes.put("planType", product.getPlanType());
+        attributes.put("categoryId", product.getCategory().getId());
+        return attributes;
+    }
+
+    private ChunkSpec createProductChunkSpec(Product product) {
+        Map<String, Object> metadata = new HashMap<>(chunkAttributes(product));
         metadata.put("productId", product.getId());
-        metadata.put("productName", product.getName());
-        metadata.put("insurer", product.getInsurer());
-        metadata.put("planType", product.getPlanType());
-        metadata.put("categoryId", product.getCategory().getId());
         metadata.put("categoryName", product.getCategory().getName());
 
-        // Store embedding
-        embeddingService.storeEmbedding(
-            VectorEmbedding.EntityType.PRODUCT,
-            product.getId(),
-            productText,
-            metadata
-        );
-
-        log.info("Indexed product: {}", product.getId());
+        return ChunkSpec.builder()
+            .entityType(VectorEmbedding.EntityType.PRODUCT)
+            .entityId(product.getId())
+            .chunkIndex(0)
+            .chunkText(createProductText(product))
+            .metadata(metadata)
+            .build();
     }
 
     /**
-     * Index all product documents
+     * Index all product documents, each on its own
      */
-    @Transactional
     public int indexAllDocuments() {
         log.info("Starting to index all product documents");
 
-        List<ProductDocument> documents = productDocumentRepository.findAll();
+        List<Long> documentIds = productDocumentRepository.findAllIds();
         int indexed = 0;
 
-        for (ProductDocument document : documents) {
+        for (Long documentId : documentIds) {
             try {
-                indexDocument(document);
+                indexDocumentById(documentId);
                 indexed++;
             } catch (Exception e) {
-                log.error("Failed to index document: {}", document.getId(), e);
+                log.error("Failed to index document: {}", documentId, e);
             }
         }
 
@@ -110,65 +170,120 @@ public class ProductIndexingService {
     }
 
     /**
-     * Index a single product document
+     * Load and index a single document; documents deleted in the meantime are skipped
      */
-    @Transactional
-    public void indexDocument(ProductDocument document) {
+    public void indexDocumentById(Long documentId) {
+        DocumentSource source = transactionTemplate.execute(status ->
+            productDocumentRepository.findById(documentId).map(this::loadSource).orElse(null));
+        if (source == null) {
+            log.info("Document {} no longer exists, skipping indexing", documentId);
+            return;
+        }
+        indexDocument(source);
+    }
+
+    /**
+     * Index a single product document. Chunks are embedded and staged batch by batch as the text is
+     * read, then replace the document's previous chunks in one transaction.
+     */
+    private void indexDocument(DocumentSource source) {
+        ProductDocument document = source.document();
         log.info("Indexing document: {} - {}", document.getId(), document.getFilename());
 
-        // Delete existing embeddings for this document
-        embeddingService.deleteEmbeddings(VectorEmbedding.EntityType.DOC_CHUNK, document.getId());
+        // Stored text is reused when possible; only documents without it are parsed again
+        boolean storedText = hasStoredText(document);
+        if (!storedText && document.getExtractionStatus() == ProductDocument.ExtractionStatus.PENDING) {
+            // Incremental indexing picks the document up once its upload extraction finishes
+            log.info("Document {} is still being extracted, skipping indexing", document.getId());
+            embeddingService.deleteEmbeddings(VectorEmbedding.EntityType.DOC_CHUNK, document.getId());
+            return;
+        }
+        if (!storedText && document.getExtractionStatus() == ProductDocument.ExtractionStatus.QUARANTINED) {
+            log.warn("Document {} is quarantined after repeated parse timeouts, skipping indexing", document.getId());
+            embeddingService.deleteEmbeddings(VectorEmbedding.EntityType.DOC_CHUNK, document.getId());
+            return;
+        }
+        String backfillTextPath = storedText ? null : document.getStoragePath() + ".txt";
+
+        // Chunks arrive while the text is still being read; each full batch is embedded and staged straight away
+        UUID stageId = UUID.randomUUID();
+        int chunkCount = 0;
+        List<ChunkSpec> batch = new ArrayList<>(batchSize);
+        try (DocumentChunkStream chunks = openChunks(document, backfillTextPath)) {
+            if (chunks == null) {
+                embeddingService.deleteEmbeddings(VectorEmbedding.EntityType.DOC_CHUNK, document.getId());
+                return;
+            }
+            while (chunks.hasNext()) {
+                batch.add(createChunkSpec(source, chunks.next(), chunkCount++));
+                if (batch.size() == batchSize) {
+                    embeddingService.stageEmbeddings(stageId, embeddingService.prepareEmbeddings(batch));
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            embeddingService.discardStage(stageId);
+            log.error("Failed to extract text from document: {}", document.getId(), e);
+            if (e.getCause() instanceof TimeoutException) {
+                documentExtractionService.recordParseFailure(document.getId(), e.getCause());
+            }
+            throw new RuntimeException("Failed to extract text from document: " + document.getId(), e);
+        }
 
-        // Extract text from document
-        String extractedText = extractTextFromDocument(document);
+        if (backfillTextPath != null) {
+            // Keep the full text so the next reindex can skip parsing
+            transactionTemplate.executeWithoutResult(status ->
+                productDocumentRepository.findById(document.getId()).ifPresent(stored -> {
+                    stored.setExtractedTextPath(backfillTextPath);
+                    productDocumentRepository.save(stored);
+                }));
+        }
 
-        if (extractedText == null || extractedText.isEmpty()) {
+        if (chunkCount == 0) {
+            embeddingService.deleteEmbeddings(VectorEmbedding.EntityType.DOC_CHUNK, document.getId());
             log.warn("No text extracted from document: {}", document.getId());
             return;
         }
 
-        // Split text into chunks
-        List<String> chunks = splitIntoChunks(extractedText, 1000);
-
-        // Create embeddings for each chunk
-        for (int i = 0; i < chunks.size(); i++) {
-            String chunk = chunks.get(i);
-
-            Map<String, Object> metadata = new HashMap<>();
-            metadata.put("documentId", document.getId());
-            metadata.put("filename", document.getFilename());
-            metadata.put("productId", document.getProduct().getId());
-            metadata.put("productName", document.getProduct().getName());
-            metadata.put("chunkIndex", i);
-            metadata.put("totalChunks", chunks.size());
-
-            embeddingService.storeEmbedding(
-                VectorEmbedding.EntityType.DOC_CHUNK,
-                document.getId(),
-                chunk,
-                metadata
-            );
+        try {
+            if (!batch.isEmpty()) {
+                embeddingService.stageEmbeddings(stageId, embeddingService.prepareEmbeddings(batch));
+            }
+            embeddingService.replaceFromStage(stageId, VectorEmbedding.EntityType.DOC_CHUNK, document.getId(), chunkCount);
+        } catch (RuntimeException e) {
+            embeddingService.discardStage(stageId);
+            throw e;
         }
-
-        log.info("Indexed document {} with {} chunks", document.getId(), chunks.size());
+        log.info("Indexed document {} with {} chunks", document.getId(), chunkCount);
     }
 
     /**
-     * Re-index everything
+     * A document together with the chunk metadata taken from its lazily loaded product, read
+     * while the loading transaction is still open
      */
-    @Transactional
-    public Map<String, Integer> reindexAll() {
-        log.info("Starting full re-indexing");
-
-        int productsIndexed = indexAllProducts();
-        int documentsIndexed = indexAllDocuments();
+    private record DocumentSource(ProductDocument document, Map<String, Object> metadata) {
+    }
 
-        Map<String, Integer> result = new HashMap<>();
-        result.put("productsIndexed", productsIndexed);
-        result.put("documentsIndexed", documentsIndexed);
+    private DocumentSource loadSource(ProductDocument document) {
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("documentId", document.getId());
+        metadata.put("filename", document.getFilename());
+        metadata.put("productId", document.getProduct().getId());
+        metadata.putAll(chunkAttributes(document.getProduct()));
+        return new DocumentSource(document, metadata);
+    }
 
-        log.info("Full re-indexing complete: {} products, {} documents", productsIndexed, documentsIndexed);
-        return result;
+    private ChunkSpec createChunkSpec(DocumentSource source, String chunk, int chunkIndex) {
+        Map<String, Object> metadata = new HashMap<>(source.metadata());
+        metadata.put("chunkIndex", chunkIndex);
+
+        return ChunkSpec.builder()
+            .entityType(VectorEmbedding.EntityType.DOC_CHUNK)
+            .entityId(source.document().getId())
+            .chunkIndex(chunkIndex)
+            .chunkText(chunk)
+            .metadata(metadata)
+            .build();
     }
 
     /**
@@ -200,65 +315,40 @@ public class ProductIndexingService {
         return sb.toString();
     }
 
+    private boolean hasStoredText(ProductDocument document) {
+        boolean completeInColumn = document.getExtractedText() != null
+            && !Boolean.TRUE.equals(document.getExtractedTextTruncated());
+        return completeInColumn
+            || (document.getExtractedTextPath() != null && storageService.fileExists(document.getExtractedTextPath()));
+    }
+
     /**
-     * Extract text from document using Apache Tika
+     * Chunk the complete extracted text from the column, else the full text file from upload,
+     * else parse the original file while writing its text to {@code backfillTextPath}.
+     * Returns null when the document has no readable source.
      */
-    private String extractTextFromDocument(ProductDocument document) {
-        if (document.getStoragePath() == null) {
-            return "";
+    private DocumentChunkStream openChunks(ProductDocument document, String backfillTextPath) throws IOException {
+        if (document.getExtractedText() != null && !Boolean.TRUE.equals(document.getExtractedTextTruncated())) {
+            return streamingChunkExtractor.streamText(new StringReader(document.getExtractedText()), CHUNK_SIZE);
         }
 
-        try {
-            File file = new File(document.getStoragePath());
-            if (!file.exists()) {
-                log.warn("Document file not found: {}", document.getStoragePath());
-                return "";
-            }
-
-            BodyContentHandler handler = new BodyContentHandler(-1); // No limit
-            Metadata metadata = new Metadata();
-            FileInputStream inputStream = new FileInputStream(file);
-            ParseContext context = new ParseContext();
-
-            Parser parser = new AutoDetectParser();
-            parser.parse(inputStream, handler, metadata, context);
-
-            inputStream.close();
-
-            return handler.toString();
-
-        } catch (Exception e) {
-            log.error("Failed to extract text from document: {}", document.getId(), e);
-            return "";
+        if (backfillTextPath == null) {
+            return streamingChunkExtractor.streamText(
+                new InputStreamReader(storageService.getFile(document.getExtractedTextPath()), StandardCharsets.UTF_8),
+                CHUNK_SIZE
+            );
         }
-    }
-
-    /**
-     * Split text into chunks
-     */
-    private List<String> splitIntoChunks(String text, int chunkSize) {
-        List<String> chunks = new java.util.ArrayList<>();
-
-        int start = 0;
-        while (start < text.length()) {
-            int end = Math.min(start + chunkSize, text.length());
-
-            // Try to break at a sentence or word boundary
-            if (end < text.length()) {
-                int lastPeriod = text.lastIndexOf('.', end);
-                int lastSpace = text.lastIndexOf(' ', end);
-
-                if (lastPeriod > start + chunkSize / 2) {
-                    end = lastPeriod + 1;
-                } else if (lastSpace > start + chunkSize / 2) {
-                    end = lastSpace;
-                }
-            }
 
-            chunks.add(text.substring(start, end).trim());
-            start = end;
+        if (document.getStoragePath() == null || !storageService.fileExists(document.getStoragePath())) {
+            log.warn("Document file not found: {}", document.getStoragePath());
+            return null;
         }
 
-        return chunks;
+        return streamingChunkExtractor.stream(
+            "document " + document.getId(),
+            storageService.getFile(document.getStoragePath()),
+            CHUNK_SIZE,
+            new BufferedWriter(new OutputStreamWriter(storageService.createFile(backfillTextPath), StandardCharsets.UTF_8))
+        );
     }
 }
@@ -0,0 +1,75 @@
+package com.insurance.rag.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.insurance.admin.service.AdminSettingService;
+import com.insurance.rag.dto.EmbeddingQuantization;
+import com.insurance.rag.repository.VectorEmbeddingRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Resolves the active {@link EmbeddingQuantization} from the rag.embedding.quantization admin setting,
+ * falling back to app.rag.quantization.mode. A quantized mode whose index was not created (see V16)
+ * resolves to NONE, since searching it without the index would scan every row. The value is cached
+ * briefly so searches do not read admin_settings on every query.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class QuantizationSettingsService {
+
+    public static final String SETTING_KEY = "rag.embedding.quantization";
+
+    private final AdminSettingService adminSettingService;
+    private final VectorEmbeddingRepository vectorEmbeddingRepository;
+
+    @Value("${app.rag.quantization.mode:NONE}")
+    private EmbeddingQuantization defaultMode;
+
+    @Value("${app.rag.quantization.settings-ttl:PT30S}")
+    private Duration settingsTtl;
+
+    private LoadingCache<String, EmbeddingQuantization> cache;
+
+    @PostConstruct
+    void init() {
+        cache = Caffeine.newBuilder()
+            .expireAfterWrite(settingsTtl)
+            .build(this::loadMode);
+    }
+
+    public EmbeddingQuantization getMode() {
+        return cache.get(SETTING_KEY);
+    }
+
+    private EmbeddingQuantization loadMode(String key) {
+        EmbeddingQuantization mode = configuredMode(key);
+        if (mode.getIndexName() != null && !vectorEmbeddingRepository.hasIndex(mode.getIndexName())) {
+            log.warn("{} is {} but index {} does not exist, searching full vectors; "
+                + "migrate with RAG_QUANTIZED_INDEXES=true or create it as in DEVELOPER_GUIDE.md",
+                key, mode, mode.getIndexName());
+            return EmbeddingQuantization.NONE;
+        }
+        return mode;
+    }
+
+    private EmbeddingQuantization configuredMode(String key) {
+        String value = adminSettingService.getSettingValue(key);
+        if (value == null || value.isBlank()) {
+            return defaultMode;
+        }
+        try {
+            return EmbeddingQuantization.valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring unknown {} value '{}', using {}", key, value, defaultMode);
+            return defaultMode;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.insurance.rag.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+/**
+ * Bounded, TTL-evicting cache of search query text to query embedding.
+ * Concurrent misses for the same query share a single in-flight model call; the
+ * returned arrays are shared between callers and must not be modified.
+ */
+@Component
+@Slf4j
+public class QueryEmbeddingCache {
+
+    private static final String CACHE_NAME = "rag.query-embeddings";
+
+    private final AsyncCache<String, float[]> cache;
+    private final Timer loadTimer;
+
+    public QueryEmbeddingCache(
+        MeterRegistry meterRegistry,
+        @Value("${app.rag.query-cache.max-entries:1000}") long maxEntries,
+        @Value("${app.rag.query-cache.ttl:PT24H}") Duration ttl
+    ) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(maxEntries)
+            .expireAfterWrite(ttl)
+            .executor(Executors.newVirtualThreadPerTaskExecutor())
+            .recordStats()
+            .buildAsync();
+        this.loadTimer = Timer.builder("rag.query-embeddings.load")
+            .description("Time spent embedding search queries on cache misses")
+            .publishPercentiles(0.5, 0.95, 0.99)
+            .register(meterRegistry);
+
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    /**
+     * Return the embedding for a query, invoking the loader at most once per distinct query
+     * while it is cached or being loaded
+     */
+    public float[] get(String query, Function<String, float[]> loader) {
+        String key = normalize(query);
+        try {
+            return cache.get(key, k -> loadTimer.record(() -> loader.apply(k))).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    public void invalidateAll() {
+        cache.synchronous().invalidateAll();
+        log.info("Invalidated query embedding cache");
+    }
+
+    private String normalize(String query) {
+        return query.trim().replaceAll("\\s+", " ");
+    }
+}
@@ -1,19 +1,36 @@
 package com.insurance.rag.service;
 
 import com.insurance.common.entity.Product;
-import com.insurance.common.entity.VectorEmbedding;
 import com.insurance.common.entity.VoiceSession;
 import com.insurance.products.repository.ProductRepository;
 import com.insurance.voice.repository.VoiceSessionRepository;
+import com.insurance.rag.catalog.ProductCatalog;
+import com.insurance.rag.dto.ProductHit;
 import com.insurance.rag.dto.ProductRecommendationRequest;
 import com.insurance.rag.dto.ProductRecommendationResponse;
+import com.insurance.rag.dto.VectorMatch;
+import com.insurance.rag.llm.ChatClients;
+import com.insurance.rag.llm.LlmProfile;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.client.ChatClient;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
 
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,38 +38,90 @@ import java.util.stream.Collectors;
 @Slf4j
 public class RecommendationService {
 
-    private final EmbeddingService embeddingService;
+    private final HybridRetrievalService hybridRetrievalService;
     private final ProductRepository productRepository;
+    private final ProductCatalog productCatalog;
     private final VoiceSessionRepository voiceSessionRepository;
-    private final ChatClient.Builder chatClientBuilder;
+    private final ChatClients chatClients;
+    private final LlmResponseCache responseCache;
+
+    /** Stages run on virtual threads so a blocked database or LLM call costs no platform thread */
+    private final ExecutorService stageExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${app.rag.recommend.deadlines.needs:PT2S}")
+    private Duration needsDeadline;
+
+    @Value("${app.rag.recommend.deadlines.retrieval:PT10S}")
+    private Duration retrievalDeadline;
+
+    @Value("${app.rag.recommend.deadlines.products:PT3S}")
+    private Duration productsDeadline;
+
+    @Value("${app.rag.recommend.deadlines.citations:PT2S}")
+    private Duration citationsDeadline;
+
+    @Value("${app.rag.recommend.deadlines.narrative:PT20S}")
+    private Duration narrativeDeadline;
+
+    @Value("${app.rag.recommend.deadlines.session-write:PT3S}")
+    private Duration sessionWriteDeadline;
 
     /**
-     * Generate product recommendations using RAG pipeline
+     * Generate product recommendations using RAG pipeline. Stages run as a dependency graph:
+     * loading products and citation text both follow retrieval, and the narrative and voice
+     * session write-back both follow ranking, so each pair costs only its slower stage. Every
+     * stage has a deadline; a stage that misses it is interrupted and, where one exists, replaced
+     * by its fallback. No transaction is held while waiting on the embedding model or the LLM.
      */
-    @Transactional
     public ProductRecommendationResponse recommendProducts(ProductRecommendationRequest request) {
         log.info("Generating product recommendations for query: {}", request.getQuery());
 
-        // Get customer needs from various sources
-        Map<String, Object> customerNeeds = gatherCustomerNeeds(request);
+        // Get customer needs from various sources; request needs alone if the session cannot be read in time
+        Map<String, Object> customerNeeds = await(
+            stage(needsDeadline, () -> gatherCustomerNeeds(request)),
+            "needs",
+            error -> requestNeeds(request)
+        );
 
         // Build search query
         String searchQuery = buildSearchQuery(request.getQuery(), customerNeeds);
 
-        // Retrieve relevant products using vector search
+        // Retrieve relevant products from product and document embeddings
         int maxResults = request.getMaxResults() != null ? request.getMaxResults() : 5;
-        List<VectorEmbedding> similarEmbeddings = embeddingService.findSimilarByType(
-            searchQuery,
-            VectorEmbedding.EntityType.PRODUCT,
-            maxResults * 2 // Get more candidates for ranking
-        );
-
-        // Get unique products from embeddings
-        Set<Long> productIds = similarEmbeddings.stream()
-            .map(VectorEmbedding::getEntityId)
-            .collect(Collectors.toSet());
-
-        List<Product> candidateProducts = productRepository.findAllById(productIds);
+        List<ProductHit> hits = await(stage(retrievalDeadline, () -> {
+            List<ProductHit> candidates = hybridRetrievalService.retrieveProducts(
+                searchQuery,
+                maxResults * 2, // Get more candidates for ranking
+                request.getSearchProfile(),
+                request.getFilter()
+            );
+            if (request.getDiversity() != null && request.getDiversity() > 0) {
+                // Choose a varied set before needs-based ranking orders it
+                candidates = hybridRetrievalService.diversify(candidates, maxResults, request.getDiversity());
+            }
+            return candidates;
+        }), "retrieval", error -> {
+            throw new RuntimeException("Product retrieval failed", error);
+        });
+
+        // Keep retrieval order so equally relevant products stay ranked by similarity
+        // Categories are fetched in the same query; ranking and reasoning read their names
+        CompletableFuture<Map<Long, Product>> productsLoad = stage(productsDeadline, () -> productRepository
+            .findAllWithCategoryByIdIn(hits.stream().map(ProductHit::productId).toList())
+            .stream()
+            .collect(Collectors.toMap(Product::getId, product -> product)));
+        // Citation text for every candidate is loaded alongside; only the recommended ones are used
+        CompletableFuture<Map<Long, String>> citationTextLoad = stage(citationsDeadline, () ->
+            hybridRetrievalService.loadCitationText(hits));
+
+        Map<Long, Product> productsById = await(productsLoad, "products", error -> {
+            citationTextLoad.cancel(true);
+            throw new RuntimeException("Loading recommended products failed", error);
+        });
+        List<Product> candidateProducts = hits.stream()
+            .map(hit -> productsById.get(hit.productId()))
+            .filter(Objects::nonNull)
+            .toList();
 
         // Rank products based on needs match
         List<ProductRecommendationResponse.RecommendedProduct> rankedProducts = rankProducts(
@@ -60,14 +129,24 @@ public class RecommendationService {
             customerNeeds,
             maxResults
         );
+        attachCitations(rankedProducts, hits, await(citationTextLoad, "citations", error -> Map.of()));
 
-        // Generate narrative explanation
-        String narrative = generateNarrative(rankedProducts, customerNeeds);
+        // Generate narrative explanation unless the caller only wants the ranked products
+        boolean includeNarrative = !Boolean.FALSE.equals(request.getIncludeNarrative());
+        CompletableFuture<String> narrativeCall = includeNarrative
+            ? stage(narrativeDeadline, () -> generateNarrative(rankedProducts, customerNeeds))
+            : CompletableFuture.completedFuture(null);
 
-        // Store recommendations in voice session if applicable
-        if (request.getVoiceSessionId() != null) {
-            storeRecommendationsInSession(request.getVoiceSessionId(), rankedProducts);
-        }
+        // Store recommendations in voice session if applicable, while the narrative is generated
+        CompletableFuture<Void> sessionWrite = request.getVoiceSessionId() != null
+            ? stage(sessionWriteDeadline, () -> {
+                storeRecommendationsInSession(request.getVoiceSessionId(), rankedProducts);
+                return null;
+            })
+            : CompletableFuture.completedFuture(null);
+
+        String narrative = await(narrativeCall, "narrative", error -> buildFallbackNarrative(rankedProducts));
+        await(sessionWrite, "session write-back", error -> null);
 
         return ProductRecommendationResponse.builder()
             .narrative(narrative)
@@ -76,6 +155,54 @@ public class RecommendationService {
             .build();
     }
 
+    @PreDestroy
+    public void shutdown() {
+        stageExecutor.shutdownNow();
+    }
+
+    /**
+     * Run a stage on its own virtual thread. When the deadline passes, or the returned future is
+     * cancelled, the stage's thread is interrupted so blocking I/O in it stops.
+     */
+    private <T> CompletableFuture<T> stage(Duration deadline, Callable<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running = stageExecutor.submit(() -> {
+            try {
+                result.complete(task.call());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.orTimeout(deadline.toMillis(), TimeUnit.MILLISECONDS)
+            .whenComplete((value, error) -> {
+                if (error != null) {
+                    running.cancel(true);
+                }
+            });
+        return result;
+    }
+
+    /**
+     * Wait for a stage, turning a failure or missed deadline into the fallback's value
+     */
+    private <T> T await(CompletableFuture<T> stage, String name, Function<Throwable, T> fallback) {
+        try {
+            return stage.join();
+        } catch (CompletionException | CancellationException e) {
+            Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+            if (cause instanceof TimeoutException) {
+                log.warn("Recommendation stage '{}' missed its deadline", name);
+            } else {
+                log.warn("Recommendation stage '{}' failed: {}", name, cause.toString());
+            }
+            return fallback.apply(cause);
+        }
+    }
+
+    private Map<String, Object> requestNeeds(ProductRecommendationRequest request) {
+        return request.getCustomerNeeds() != null ? new HashMap<>(request.getCustomerNeeds()) : new HashMap<>();
+    }
+
     /**
      * Gather customer needs from various sources
      */
@@ -131,9 +258,13 @@ public class RecommendationService {
         int limit
     ) {
         List<ProductRecommendationResponse.RecommendedProduct> ranked = new ArrayList<>();
+        ProductCatalog.NeedsQuery needs = productCatalog.query(
+            stringList(customerNeeds.get("insuranceTypes")),
+            stringList(customerNeeds.get("concerns"))
+        );
 
         for (Product product : products) {
-            double score = calculateRelevanceScore(product, customerNeeds);
+            double score = calculateRelevanceScore(product, needs);
             String reasoning = generateReasoning(product, customerNeeds);
 
             ProductRecommendationResponse.RecommendedProduct recommended =
@@ -157,46 +288,61 @@ public class RecommendationService {
     }
 
     /**
-     * Calculate relevance score for a product
+     * Cite the closest document chunk of each recommended product
      */
-    private double calculateRelevanceScore(Product product, Map<String, Object> customerNeeds) {
-        double score = 0.5; // Base score
+    private void attachCitations(
+        List<ProductRecommendationResponse.RecommendedProduct> products,
+        List<ProductHit> hits,
+        Map<Long, String> excerpts
+    ) {
+        Set<Long> recommendedIds = products.stream()
+            .map(ProductRecommendationResponse.RecommendedProduct::getProductId)
+            .collect(Collectors.toSet());
+        Map<Long, ProductHit> cited = hits.stream()
+            .filter(hit -> hit.bestChunk() != null && recommendedIds.contains(hit.productId()))
+            .collect(Collectors.toMap(ProductHit::productId, hit -> hit));
+        if (cited.isEmpty()) {
+            return;
+        }
 
-        // Check insurance type match
-        if (customerNeeds.containsKey("insuranceTypes")) {
-            Object types = customerNeeds.get("insuranceTypes");
-            if (types instanceof List) {
-                List<String> neededTypes = (List<String>) types;
-                String categoryName = product.getCategory().getName().toLowerCase();
-
-                for (String type : neededTypes) {
-                    if (categoryName.contains(type.toLowerCase())) {
-                        score += 0.3;
-                        break;
-                    }
-                }
+        for (ProductRecommendationResponse.RecommendedProduct product : products) {
+            ProductHit hit = cited.get(product.getProductId());
+            if (hit != null) {
+                VectorMatch chunk = hit.bestChunk();
+                product.setCitation(ProductRecommendationResponse.Citation.builder()
+                    .documentId(chunk.entityId())
+                    .excerpt(excerpts.get(chunk.embeddingId()))
+                    .similarity(1.0 - chunk.distance())
+                    .build());
             }
         }
+    }
 
-        // Check tags match
-        if (product.getTags() != null && customerNeeds.containsKey("concerns")) {
-            Object concerns = customerNeeds.get("concerns");
-            if (concerns instanceof List) {
-                List<String> customerConcerns = (List<String>) concerns;
-                for (String tag : product.getTags()) {
-                    for (String concern : customerConcerns) {
-                        if (tag.toLowerCase().contains(concern.toLowerCase()) ||
-                            concern.toLowerCase().contains(tag.toLowerCase())) {
-                            score += 0.1;
-                        }
-                    }
-                }
-            }
+    /**
+     * Calculate relevance score for a product from catalog lookups, so the cost does not grow with
+     * the number of tags and concerns
+     */
+    private double calculateRelevanceScore(Product product, ProductCatalog.NeedsQuery needs) {
+        double score = 0.5; // Base score
+
+        // Check insurance type match
+        if (needs.matchesInsuranceType(product)) {
+            score += 0.3;
         }
 
+        // Check tags match: 0.1 per tag and concern where one contains the other
+        score += 0.1 * needs.tagMatchCount(product);
+
         return Math.min(score, 1.0); // Cap at 1.0
     }
 
+    private static List<String> stringList(Object value) {
+        if (!(value instanceof List<?> list)) {
+            return List.of();
+        }
+        return list.stream().filter(Objects::nonNull).map(Object::toString).toList();
+    }
+
     /**
      * Generate reasoning for recommendation
      */
@@ -232,21 +378,33 @@ public class RecommendationService {
         try {
             String prompt = buildNarrativePrompt(products, customerNeeds);
 
-            ChatClient chatClient = chatClientBuilder.build();
-
-            String narrative = chatClient.prompt()
-                .user(prompt)
-                .call()
-                .content();
-
-            return narrative;
+            return responseCache.call(chatClients.get(LlmProfile.NARRATIVE), prompt);
 
+        } catch (RejectedExecutionException e) {
+            // Circuit open or too many calls in flight: answer at once rather than queue behind a degraded provider
+            log.warn("Narrative LLM call rejected, using fallback narrative: {}", e.getMessage());
+            return buildFallbackNarrative(products);
         } catch (Exception e) {
             log.error("Failed to generate narrative", e);
             return buildFallbackNarrative(products);
         }
     }
 
+    /**
+     * Narrative tokens as the LLM produces them, for callers that show text while it is written
+     */
+    public Flux<String> streamNarrative(
+        List<ProductRecommendationResponse.RecommendedProduct> products,
+        Map<String, Object> customerNeeds
+    ) {
+        if (products.isEmpty()) {
+            return Flux.just("No suitable products found matching your requirements.");
+        }
+
+        return responseCache.stream(
+            chatClients.get(LlmProfile.NARRATIVE), buildNarrativePrompt(products, customerNeeds));
+    }
+
     private String buildNarrativePrompt(
         List<ProductRecommendationResponse.RecommendedProduct> products,
         Map<String, Object> customerNeeds
@@ -271,7 +429,7 @@ public class RecommendationService {
         return prompt.toString();
     }
 
-    private String buildFallbackNarrative(List<ProductRecommendationResponse.RecommendedProduct> products) {
+    String buildFallbackNarrative(List<ProductRecommendationResponse.RecommendedProduct> products) {
         StringBuilder narrative = new StringBuilder();
         narrative.append("Based on your requirements, we recommend the following products: ");
 
@@ -287,7 +445,6 @@ public class RecommendationService {
     /**
      * Store recommendations in voice session
      */
-    @Transactional
     private void storeRecommendationsInSession(
         Long sessionId,
         List<ProductRecommendationResponse.RecommendedProduct> products
@@ -0,0 +1,117 @@
+package com.insurance.rag.service;
+
+import com.insurance.rag.dto.ProductRecommendationRequest;
+import com.insurance.rag.dto.ProductRecommendationResponse;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Streams recommendations as server-sent events so an agent sees products before the narrative is
+ * written. Events, in order:
+ * <ul>
+ *   <li>{@code products}: the recommendation response without a narrative</li>
+ *   <li>{@code narrative}: {"text": ...} for each narrative token, to append</li>
+ *   <li>{@code narrative-fallback}: {"text": ...} replacing any streamed text, when the LLM stream
+ *       fails or stalls</li>
+ *   <li>{@code done}</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RecommendationStreamService {
+
+    private final RecommendationService recommendationService;
+
+    /** One virtual thread per stream; it mostly waits on the database and the LLM */
+    private final ExecutorService streamExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${app.rag.recommend.stream.emitter-timeout:PT2M}")
+    private Duration emitterTimeout;
+
+    public SseEmitter streamRecommendations(ProductRecommendationRequest request) {
+        SseEmitter emitter = new SseEmitter(emitterTimeout.toMillis());
+        AtomicBoolean open = new AtomicBoolean(true);
+        emitter.onCompletion(() -> open.set(false));
+        emitter.onTimeout(() -> open.set(false));
+        emitter.onError(error -> open.set(false));
+
+        streamExecutor.execute(() -> stream(request, emitter, open));
+        return emitter;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        streamExecutor.shutdownNow();
+    }
+
+    private void stream(ProductRecommendationRequest request, SseEmitter emitter, AtomicBoolean open) {
+        ProductRecommendationResponse response;
+        try {
+            // The narrative is streamed below instead of generated inside the recommendation
+            request.setIncludeNarrative(false);
+            response = recommendationService.recommendProducts(request);
+            send(emitter, open, "products", response);
+        } catch (UncheckedIOException e) {
+            log.debug("Recommendation stream closed by client before products were sent");
+            return;
+        } catch (RuntimeException e) {
+            log.error("Failed to stream recommendations", e);
+            emitter.completeWithError(e);
+            return;
+        }
+
+        try {
+            // A send failure cancels the subscription, which stops the LLM stream for a departed client;
+            // a stalled LLM stream fails with a timeout from the chat client
+            recommendationService.streamNarrative(response.getProducts(), response.getMatchedNeeds())
+                .doOnNext(token -> send(emitter, open, "narrative", Map.of("text", token)))
+                .blockLast();
+        } catch (RuntimeException e) {
+            if (!open.get()) {
+                log.debug("Recommendation stream closed by client during the narrative");
+                return;
+            }
+            log.warn("Narrative stream failed or stalled, sending fallback narrative: {}", e.toString());
+            try {
+                send(emitter, open, "narrative-fallback",
+                    Map.of("text", recommendationService.buildFallbackNarrative(response.getProducts())));
+            } catch (UncheckedIOException closed) {
+                return;
+            }
+        }
+
+        try {
+            send(emitter, open, "done", Map.of());
+            emitter.complete();
+        } catch (UncheckedIOException e) {
+            log.debug("Recommendation stream closed by client before completion");
+        }
+    }
+
+    private static void send(SseEmitter emitter, AtomicBoolean open, String name, Object data) {
+        if (!open.get()) {
+            throw new UncheckedIOException(new IOException("Recommendation stream is closed"));
+        }
+        try {
+            // JSON payloads keep the leading spaces of tokens, which plain SSE data lines would lose
+            emitter.send(SseEmitter.event().name(name).data(data, MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            open.set(false);
+            throw new UncheckedIOException(e instanceof IOException io ? io : new IOException(e));
+        }
+    }
+}
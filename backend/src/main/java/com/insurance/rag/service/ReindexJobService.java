@@ -0,0 +1,330 @@
+package com.insurance.rag.service;
+
+import com.insurance.common.entity.IndexFailure;
+import com.insurance.common.entity.IndexWatermark;
+import com.insurance.common.entity.ReindexJob;
+import com.insurance.common.entity.ReindexJobItem;
+import com.insurance.common.entity.VectorEmbedding;
+import com.insurance.rag.dto.ReindexJobDto;
+import com.insurance.rag.repository.IndexFailureRepository;
+import com.insurance.rag.repository.IndexWatermarkRepository;
+import com.insurance.rag.repository.ReindexJobItemRepository;
+import com.insurance.rag.repository.ReindexJobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Runs full reindexes as background jobs. Every product and document becomes a checkpointed
+ * job item, items are indexed in parallel by a bounded set of virtual-thread workers, and
+ * each item commits on its own so a late failure never rolls back earlier work. The instance
+ * running a job holds a lease on it and renews it with a heartbeat; an active job whose lease
+ * expired (its instance stopped or crashed) is claimed by one instance and resumes from its
+ * remaining PENDING items. A completed job advances the incremental indexing watermarks, so the
+ * next incremental run does not repeat it.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ReindexJobService {
+
+    private static final List<ReindexJob.JobStatus> ACTIVE_STATUSES =
+        List.of(ReindexJob.JobStatus.PENDING, ReindexJob.JobStatus.RUNNING);
+
+    private final ReindexJobRepository reindexJobRepository;
+    private final ReindexJobItemRepository reindexJobItemRepository;
+    private final ProductIndexingService productIndexingService;
+    private final IndexWatermarkRepository indexWatermarkRepository;
+    private final IndexFailureRepository indexFailureRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    private final ExecutorService jobExecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /** Lease owner name of this instance; unique per process start */
+    private final String instanceId =
+        ManagementFactory.getRuntimeMXBean().getName() + "/" + UUID.randomUUID().toString().substring(0, 8);
+
+    /** Jobs this instance runs and holds the lease of */
+    private final Set<Long> runningJobs = ConcurrentHashMap.newKeySet();
+
+    @Value("${app.rag.reindex.concurrency:4}")
+    private int concurrency;
+
+    @Value("${app.rag.reindex.lease-timeout:PT2M}")
+    private Duration leaseTimeout;
+
+    /**
+     * Create a reindex job covering all products and documents and start it in the background.
+     * If a job is already active it is returned instead of starting another one.
+     */
+    public ReindexJobDto startReindex() {
+        List<ReindexJob> active = reindexJobRepository.findByStatusIn(ACTIVE_STATUSES);
+        if (!active.isEmpty()) {
+            log.info("Reindex job {} is already active", active.get(0).getId());
+            return getJob(active.get(0).getId());
+        }
+
+        ReindexJob job;
+        try {
+            job = transactionTemplate.execute(status -> {
+                ReindexJob created = reindexJobRepository.save(ReindexJob.builder()
+                    .status(ReindexJob.JobStatus.PENDING)
+                    .claimedBy(instanceId)
+                    .heartbeatAt(LocalDateTime.now())
+                    .build());
+                int products = reindexJobItemRepository.enqueueAllProducts(created.getId());
+                int documents = reindexJobItemRepository.enqueueAllDocuments(created.getId());
+                log.info("Created reindex job {} with {} products and {} documents", created.getId(), products, documents);
+                return created;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // A concurrent request created the job between the check and the insert; the partial
+            // unique index on active statuses rejected this one
+            ReindexJob winner = reindexJobRepository.findByStatusIn(ACTIVE_STATUSES).stream()
+                .findFirst()
+                .orElseThrow(() -> e);
+            log.info("Reindex job {} was started concurrently", winner.getId());
+            return getJob(winner.getId());
+        }
+
+        jobExecutor.submit(() -> runJob(job.getId()));
+        return getJob(job.getId());
+    }
+
+    public boolean hasActiveJob() {
+        return !reindexJobRepository.findByStatusIn(ACTIVE_STATUSES).isEmpty();
+    }
+
+    @Transactional(readOnly = true)
+    public ReindexJobDto getJob(Long jobId) {
+        ReindexJob job = reindexJobRepository.findById(jobId)
+            .orElseThrow(() -> new RuntimeException("Reindex job not found with id: " + jobId));
+
+        Map<ReindexJobItem.ItemStatus, Long> counts = reindexJobItemRepository.countByStatus(jobId).stream()
+            .collect(Collectors.toMap(row -> (ReindexJobItem.ItemStatus) row[0], row -> (Long) row[1]));
+
+        long done = counts.getOrDefault(ReindexJobItem.ItemStatus.DONE, 0L);
+        long failed = counts.getOrDefault(ReindexJobItem.ItemStatus.FAILED, 0L);
+        long pending = counts.getOrDefault(ReindexJobItem.ItemStatus.PENDING, 0L);
+
+        double itemsPerSecond = 0;
+        if (job.getStartedAt() != null) {
+            LocalDateTime end = job.getFinishedAt() != null ? job.getFinishedAt() : LocalDateTime.now();
+            long elapsedMillis = Math.max(1, Duration.between(job.getStartedAt(), end).toMillis());
+            itemsPerSecond = (done + failed) * 1000.0 / elapsedMillis;
+        }
+
+        return ReindexJobDto.builder()
+            .id(job.getId())
+            .status(job.getStatus())
+            .totalItems(done + failed + pending)
+            .completedItems(done)
+            .failedItems(failed)
+            .pendingItems(pending)
+            .itemsPerSecond(itemsPerSecond)
+            .startedAt(job.getStartedAt())
+            .finishedAt(job.getFinishedAt())
+            .lastError(job.getLastError())
+            .build();
+    }
+
+    /**
+     * Resume jobs that were interrupted by a shutdown or crash. Only a job whose lease is free or
+     * expired is taken, and the conditional claim lets one instance win it.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(
+        fixedDelayString = "${app.rag.reindex.lease-timeout:PT2M}",
+        initialDelayString = "${app.rag.reindex.lease-timeout:PT2M}"
+    )
+    public void resumeInterruptedJobs() {
+        for (ReindexJob job : reindexJobRepository.findByStatusIn(ACTIVE_STATUSES)) {
+            if (runningJobs.contains(job.getId())) {
+                continue;
+            }
+            LocalDateTime now = LocalDateTime.now();
+            if (reindexJobRepository.claim(job.getId(), instanceId, now, now.minus(leaseTimeout), ACTIVE_STATUSES) == 1) {
+                log.info("Resuming reindex job {} from last checkpoint", job.getId());
+                jobExecutor.submit(() -> runJob(job.getId()));
+            }
+        }
+    }
+
+    /**
+     * Renew the leases of the jobs running here. A job whose lease was taken over stops
+     * submitting items and is left to its new owner.
+     */
+    @Scheduled(fixedDelayString = "${app.rag.reindex.heartbeat-interval:PT30S}")
+    public void renewLeases() {
+        for (Long jobId : runningJobs) {
+            if (reindexJobRepository.renewLease(jobId, instanceId, LocalDateTime.now()) == 0) {
+                log.warn("Reindex job {} lost its lease to another instance; stopping here", jobId);
+                runningJobs.remove(jobId);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+    }
+
+    private void runJob(Long jobId) {
+        if (!runningJobs.add(jobId)) {
+            return;
+        }
+        try {
+            updateJob(jobId, job -> {
+                job.setStatus(ReindexJob.JobStatus.RUNNING);
+                if (job.getStartedAt() == null) {
+                    job.setStartedAt(LocalDateTime.now());
+                }
+            });
+
+            List<ReindexJobItem> items = reindexJobItemRepository.findByJobIdAndStatusOrderById(
+                jobId, ReindexJobItem.ItemStatus.PENDING);
+            log.info("Reindex job {} processing {} pending items with concurrency {}", jobId, items.size(), concurrency);
+
+            Semaphore permits = new Semaphore(concurrency);
+            try (ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor()) {
+                for (ReindexJobItem item : items) {
+                    if (!runningJobs.contains(jobId)) {
+                        break;
+                    }
+                    permits.acquire();
+                    workers.submit(() -> {
+                        try {
+                            processItem(item);
+                        } finally {
+                            permits.release();
+                        }
+                    });
+                }
+            }
+
+            // close() waits for the workers even when interrupted, then restores the interrupt flag
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            if (!runningJobs.contains(jobId)) {
+                return;
+            }
+            long pending = reindexJobItemRepository.countByJobIdAndStatus(jobId, ReindexJobItem.ItemStatus.PENDING);
+            if (pending > 0) {
+                log.warn("Reindex job {} still has {} pending items; it will be resumed", jobId, pending);
+                return;
+            }
+
+            completeJob(jobId);
+            log.info("Reindex job {} completed", jobId);
+
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Reindex job {} interrupted; another instance or the next startup resumes it", jobId);
+        } catch (Exception e) {
+            log.error("Reindex job {} failed", jobId, e);
+            updateJob(jobId, job -> {
+                job.setStatus(ReindexJob.JobStatus.FAILED);
+                job.setFinishedAt(LocalDateTime.now());
+                job.setLastError(e.getMessage());
+            });
+        } finally {
+            releaseLease(jobId);
+        }
+    }
+
+    private void releaseLease(Long jobId) {
+        if (!runningJobs.remove(jobId)) {
+            return;
+        }
+        try {
+            reindexJobRepository.releaseLease(jobId, instanceId);
+        } catch (Exception e) {
+            // The lease expires on its own
+            log.debug("Could not release the lease of reindex job {}", jobId, e);
+        }
+    }
+
+    /**
+     * Mark the job completed and hand its results to incremental indexing in the same transaction:
+     * watermarks move to when the items were enqueued, since everything changed before then has
+     * just been indexed, and failed items are queued for retry
+     */
+    private void completeJob(Long jobId) {
+        transactionTemplate.executeWithoutResult(status -> reindexJobRepository.findById(jobId).ifPresent(job -> {
+            job.setStatus(ReindexJob.JobStatus.COMPLETED);
+            job.setFinishedAt(LocalDateTime.now());
+            reindexJobRepository.save(job);
+
+            for (VectorEmbedding.EntityType entityType : VectorEmbedding.EntityType.values()) {
+                IndexWatermark watermark = indexWatermarkRepository.findById(entityType)
+                    .orElseGet(() -> IndexWatermark.builder().entityType(entityType).build());
+                if (watermark.getLastIndexedAt() == null || watermark.getLastIndexedAt().isBefore(job.getCreatedAt())) {
+                    watermark.setLastIndexedAt(job.getCreatedAt());
+                    indexWatermarkRepository.save(watermark);
+                }
+            }
+
+            for (ReindexJobItem item : reindexJobItemRepository.findByJobIdAndStatusOrderById(
+                jobId, ReindexJobItem.ItemStatus.FAILED)) {
+                IndexFailure failure = indexFailureRepository
+                    .findByEntityTypeAndEntityId(item.getEntityType(), item.getEntityId())
+                    .orElseGet(() -> IndexFailure.builder()
+                        .entityType(item.getEntityType())
+                        .entityId(item.getEntityId())
+                        .attempts(0)
+                        .build());
+                failure.setStatus(IndexFailure.FailureStatus.RETRYING);
+                failure.setAttempts(failure.getAttempts() + 1);
+                failure.setLastError(item.getError());
+                failure.setLastAttemptAt(item.getCompletedAt() != null ? item.getCompletedAt() : LocalDateTime.now());
+                indexFailureRepository.save(failure);
+            }
+        }));
+    }
+
+    private void processItem(ReindexJobItem item) {
+        try {
+            if (item.getEntityType() == VectorEmbedding.EntityType.PRODUCT) {
+                productIndexingService.indexProductById(item.getEntityId());
+            } else {
+                productIndexingService.indexDocumentById(item.getEntityId());
+            }
+            reindexJobItemRepository.markCompleted(
+                item.getId(), ReindexJobItem.ItemStatus.DONE, null, LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("Failed to index {} {} in job {}", item.getEntityType(), item.getEntityId(), item.getJobId(), e);
+            reindexJobItemRepository.markCompleted(
+                item.getId(), ReindexJobItem.ItemStatus.FAILED, e.getMessage(), LocalDateTime.now());
+        }
+    }
+
+    private void updateJob(Long jobId, Consumer<ReindexJob> update) {
+        transactionTemplate.executeWithoutResult(status -> reindexJobRepository.findById(jobId).ifPresent(job -> {
+            update.accept(job);
+            reindexJobRepository.save(job);
+        }));
+    }
+}
@@ -0,0 +1,148 @@
+package com.insurance.rag.service;
+
+import com.insurance.common.entity.IndexWatermark;
+import com.insurance.common.entity.VectorEmbedding;
+import com.insurance.rag.index.EmbeddingsReplacedEvent;
+import com.insurance.rag.repository.IndexWatermarkRepository;
+import com.insurance.rag.repository.VectorEmbeddingRepository;
+import com.insurance.rag.snapshot.VectorSnapshotHeader;
+import com.insurance.rag.snapshot.VectorSnapshotReader;
+import com.insurance.rag.snapshot.VectorSnapshotWriter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Exports vector_embeddings to a compact binary snapshot and restores it with COPY, so a new
+ * node or restored environment gets its vectors in minutes without calling the embedding model.
+ * <p>
+ * A restore keeps the snapshot's ids, sets the incremental indexing watermarks recorded at export
+ * so only later catalog changes are re-embedded, seeds the embedding cache when the snapshot came
+ * from the configured embedding model, and has in-process indexes rebuild once it commits.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VectorSnapshotService {
+
+    private static final int CACHE_SEED_BATCH_SIZE = 1000;
+
+    private final VectorEmbeddingRepository vectorEmbeddingRepository;
+    private final IndexWatermarkRepository indexWatermarkRepository;
+    private final EmbeddingCacheService embeddingCacheService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * Stream every embedding to the output in snapshot format and return the row count.
+     * The output is flushed but not closed.
+     */
+    public long exportSnapshot(OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+
+        // Read before the rows: everything changed before a watermark is then in the snapshot
+        Map<VectorEmbedding.EntityType, LocalDateTime> watermarks = new EnumMap<>(VectorEmbedding.EntityType.class);
+        for (IndexWatermark watermark : indexWatermarkRepository.findAll()) {
+            watermarks.put(watermark.getEntityType(), watermark.getLastIndexedAt());
+        }
+        VectorSnapshotWriter writer = new VectorSnapshotWriter(out,
+            new VectorSnapshotHeader(embeddingCacheService.getModelName(), watermarks));
+
+        try {
+            transactionTemplate.executeWithoutResult(status ->
+                vectorEmbeddingRepository.forEachSnapshotRecord(record -> {
+                    try {
+                        writer.write(record);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.close();
+
+        log.info("Exported {} embeddings to vector snapshot in {} ms",
+            writer.getRecordCount(), System.currentTimeMillis() - start);
+        return writer.getRecordCount();
+    }
+
+    /**
+     * Load a snapshot into vector_embeddings in one transaction. The table must be empty unless
+     * replace is set, in which case its current rows are replaced; searches keep using them until
+     * the restore commits.
+     */
+    public long importSnapshot(InputStream in, boolean replace) throws IOException {
+        long start = System.currentTimeMillis();
+
+        try (VectorSnapshotReader reader = new VectorSnapshotReader(in)) {
+            Long rows = transactionTemplate.execute(status -> {
+                if (!replace && vectorEmbeddingRepository.count() > 0) {
+                    throw new RuntimeException("vector_embeddings is not empty; import with replace to overwrite it");
+                }
+                long restored = vectorEmbeddingRepository.restoreFromSnapshot(reader, replace);
+                restoreWatermarks(reader.header());
+                eventPublisher.publishEvent(new EmbeddingsReplacedEvent());
+                return restored;
+            });
+
+            log.info("Imported {} embeddings from vector snapshot in {} ms", rows, System.currentTimeMillis() - start);
+            seedEmbeddingCache(reader.header());
+            return rows != null ? rows : 0;
+        }
+    }
+
+    /** Use the incremental indexing watermarks recorded at export */
+    private void restoreWatermarks(VectorSnapshotHeader header) {
+        Map<VectorEmbedding.EntityType, LocalDateTime> watermarks = header.watermarks();
+        watermarks.forEach((entityType, lastIndexedAt) -> indexWatermarkRepository.save(IndexWatermark.builder()
+            .entityType(entityType)
+            .lastIndexedAt(lastIndexedAt)
+            .build()));
+        log.info("Restored incremental indexing watermarks: {}", watermarks);
+    }
+
+    /**
+     * Add the restored full-dimension vectors to the embedding cache, so a later reindex of
+     * unchanged chunks makes no model calls. Skipped when the snapshot's model is unknown or
+     * differs from the configured one, since cache keys include the model.
+     */
+    private void seedEmbeddingCache(VectorSnapshotHeader header) {
+        String model = embeddingCacheService.getModelName();
+        if (!model.equals(header.embeddingModel())) {
+            log.info("Not seeding the embedding cache: snapshot model {} is not the configured model {}",
+                header.embeddingModel(), model);
+            return;
+        }
+
+        long start = System.currentTimeMillis();
+        long seeded = 0;
+        long afterId = 0;
+        List<VectorEmbedding> page;
+        do {
+            page = vectorEmbeddingRepository.findFullEmbeddingsAfter(afterId, CACHE_SEED_BATCH_SIZE);
+            Map<String, float[]> entries = new HashMap<>(page.size());
+            for (VectorEmbedding embedding : page) {
+                entries.put(embeddingCacheService.hash(embedding.getChunkText()), embedding.getEmbedding());
+                afterId = embedding.getId();
+            }
+            embeddingCacheService.putAll(entries);
+            seeded += entries.size();
+        } while (page.size() == CACHE_SEED_BATCH_SIZE);
+
+        log.info("Seeded embedding cache with {} vectors from the snapshot in {} ms",
+            seeded, System.currentTimeMillis() - start);
+    }
+}
@@ -0,0 +1,80 @@
+package com.insurance.rag.snapshot;
+
+import com.insurance.rag.service.VectorSnapshotService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Command-line export/import of the vector snapshot. Runs once at startup, before the
+ * in-process indexes load, then exits.
+ *
+ * <pre>
+ * java -jar app.jar --spring.main.web-application-type=none \
+ *     --app.vector-snapshot.command=export --app.vector-snapshot.file=vectors.vsnap
+ * java -jar app.jar --spring.main.web-application-type=none \
+ *     --app.vector-snapshot.command=import --app.vector-snapshot.file=vectors.vsnap [--app.vector-snapshot.replace=true]
+ * </pre>
+ */
+@Component
+@ConditionalOnProperty(name = "app.vector-snapshot.command")
+@RequiredArgsConstructor
+@Slf4j
+public class VectorSnapshotCommand implements CommandLineRunner {
+
+    private static final int FILE_BUFFER_BYTES = 1 << 20;
+
+    private final VectorSnapshotService vectorSnapshotService;
+    private final ConfigurableApplicationContext context;
+
+    @Value("${app.vector-snapshot.command}")
+    private String command;
+
+    @Value("${app.vector-snapshot.file}")
+    private String file;
+
+    @Value("${app.vector-snapshot.replace:false}")
+    private boolean replace;
+
+    @Override
+    public void run(String... args) throws Exception {
+        Path path = Paths.get(file);
+        int exitCode = 0;
+
+        try {
+            switch (command) {
+                case "export" -> {
+                    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(path), FILE_BUFFER_BYTES)) {
+                        vectorSnapshotService.exportSnapshot(out);
+                    }
+                }
+                case "import" -> {
+                    try (InputStream in = new BufferedInputStream(Files.newInputStream(path), FILE_BUFFER_BYTES)) {
+                        vectorSnapshotService.importSnapshot(in, replace);
+                    }
+                }
+                default -> throw new IllegalArgumentException(
+                    "app.vector-snapshot.command must be export or import, got " + command);
+            }
+        } catch (Exception e) {
+            log.error("Vector snapshot {} of {} failed", command, path, e);
+            exitCode = 1;
+        }
+
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+}
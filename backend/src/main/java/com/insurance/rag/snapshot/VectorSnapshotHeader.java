@@ -0,0 +1,14 @@
+package com.insurance.rag.snapshot;
+
+import com.insurance.common.entity.VectorEmbedding;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * What a snapshot records besides its rows: the embedding model that produced the vectors, so a
+ * restore can seed the embedding cache only when it uses the same model, and the incremental
+ * indexing watermarks at export time, so a restored node does not re-embed the whole catalog.
+ */
+public record VectorSnapshotHeader(String embeddingModel, Map<VectorEmbedding.EntityType, LocalDateTime> watermarks) {
+}
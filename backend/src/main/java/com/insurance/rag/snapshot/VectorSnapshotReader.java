@@ -0,0 +1,178 @@
+package com.insurance.rag.snapshot;
+
+import com.insurance.common.entity.VectorEmbedding;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Reads a snapshot written by {@link VectorSnapshotWriter}, one block at a time.
+ */
+public class VectorSnapshotReader implements Closeable {
+
+    /** Reference point for created-at offsets; also the PostgreSQL binary timestamp epoch */
+    static final LocalDateTime EPOCH = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private static final VectorEmbedding.EntityType[] ENTITY_TYPES = VectorEmbedding.EntityType.values();
+
+    private final DataInputStream in;
+    private final Deque<VectorSnapshotRecord> block = new ArrayDeque<>(VectorSnapshotWriter.BLOCK_SIZE);
+    private final Inflater inflater = new Inflater();
+
+    private final VectorSnapshotHeader header;
+
+    private long previousId;
+    private boolean finished;
+
+    public VectorSnapshotReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        byte[] prefix = new byte[8];
+        this.in.readFully(prefix);
+        ByteBuffer buffer = ByteBuffer.wrap(prefix).order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.getInt() != VectorSnapshotWriter.MAGIC) {
+            throw new IOException("Not a vector snapshot");
+        }
+        int version = buffer.getInt();
+        if (version != VectorSnapshotWriter.VERSION) {
+            throw new IOException("Unsupported vector snapshot version " + version);
+        }
+        header = readHeader(this.in);
+    }
+
+    public VectorSnapshotHeader header() {
+        return header;
+    }
+
+    /** The next record, or null at the end of the snapshot */
+    public VectorSnapshotRecord next() throws IOException {
+        if (block.isEmpty() && !finished) {
+            readBlock();
+        }
+        return block.poll();
+    }
+
+    @Override
+    public void close() throws IOException {
+        inflater.end();
+        in.close();
+    }
+
+    private void readBlock() throws IOException {
+        int count = (int) readVarint(in);
+        if (count == 0) {
+            finished = true;
+            return;
+        }
+
+        long[] ids = new long[count];
+        VectorEmbedding.EntityType[] entityTypes = new VectorEmbedding.EntityType[count];
+        long[] entityIds = new long[count];
+        int[] chunkIndexes = new int[count];
+        int[] dimensions = new int[count];
+        LocalDateTime[] createdAt = new LocalDateTime[count];
+        int vectorBytes = 0;
+        for (int i = 0; i < count; i++) {
+            previousId += readVarint(in);
+            ids[i] = previousId;
+            entityTypes[i] = ENTITY_TYPES[(int) readVarint(in)];
+            entityIds[i] = readVarint(in);
+            chunkIndexes[i] = (int) readVarint(in);
+            dimensions[i] = (int) readVarint(in);
+            long micros = readVarint(in);
+            createdAt[i] = micros > 0 ? EPOCH.plusNanos((micros - 1) * 1000) : null;
+            vectorBytes += dimensions[i] * Float.BYTES;
+        }
+
+        byte[] vectorData = new byte[vectorBytes];
+        in.readFully(vectorData);
+        ByteBuffer vectors = ByteBuffer.wrap(vectorData).order(ByteOrder.LITTLE_ENDIAN);
+
+        int rawLength = (int) readVarint(in);
+        byte[] compressed = new byte[(int) readVarint(in)];
+        in.readFully(compressed);
+        DataInputStream text = new DataInputStream(new ByteArrayInputStream(inflate(compressed, rawLength)));
+
+        for (int i = 0; i < count; i++) {
+            float[] embedding = null;
+            if (dimensions[i] > 0) {
+                embedding = new float[dimensions[i]];
+                vectors.asFloatBuffer().get(embedding);
+                vectors.position(vectors.position() + dimensions[i] * Float.BYTES);
+            }
+            block.add(new VectorSnapshotRecord(
+                ids[i], entityTypes[i], entityIds[i], chunkIndexes[i], readString(text), embedding, readString(text), createdAt[i]));
+        }
+    }
+
+    private static VectorSnapshotHeader readHeader(DataInputStream in) throws IOException {
+        String embeddingModel = readString(in);
+        Map<VectorEmbedding.EntityType, LocalDateTime> watermarks = new EnumMap<>(VectorEmbedding.EntityType.class);
+        long count = readVarint(in);
+        for (long i = 0; i < count; i++) {
+            VectorEmbedding.EntityType entityType = ENTITY_TYPES[(int) readVarint(in)];
+            watermarks.put(entityType, EPOCH.plusNanos(readVarint(in) * 1000));
+        }
+        return new VectorSnapshotHeader(embeddingModel, watermarks);
+    }
+
+    private byte[] inflate(byte[] compressed, int rawLength) throws IOException {
+        inflater.reset();
+        inflater.setInput(compressed);
+        byte[] raw = new byte[rawLength];
+        try {
+            int offset = 0;
+            while (offset < rawLength && !inflater.finished()) {
+                int inflated = inflater.inflate(raw, offset, rawLength - offset);
+                if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                offset += inflated;
+            }
+            if (offset != rawLength) {
+                throw new IOException("Truncated text section in vector snapshot");
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt text section in vector snapshot", e);
+        }
+        return raw;
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        long length = readVarint(in);
+        if (length == 0) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) (length - 1)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static long readVarint(InputStream in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = in.read();
+            if (b < 0) {
+                throw new EOFException("Unexpected end of vector snapshot");
+            }
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint in vector snapshot");
+    }
+}
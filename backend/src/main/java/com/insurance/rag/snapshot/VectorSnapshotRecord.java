@@ -0,0 +1,21 @@
+package com.insurance.rag.snapshot;
+
+import com.insurance.common.entity.VectorEmbedding;
+
+import java.time.LocalDateTime;
+
+/**
+ * One vector_embeddings row as carried by a snapshot. Metadata stays as its JSON text so rows
+ * pass through without being parsed.
+ */
+public record VectorSnapshotRecord(
+    long id,
+    VectorEmbedding.EntityType entityType,
+    long entityId,
+    int chunkIndex,
+    String chunkText,
+    float[] embedding,
+    String metadataJson,
+    LocalDateTime createdAt
+) {
+}
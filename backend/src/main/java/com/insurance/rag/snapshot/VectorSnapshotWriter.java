@@ -0,0 +1,162 @@
+package com.insurance.rag.snapshot;
+
+import com.insurance.common.entity.VectorEmbedding;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+/**
+ * Writes vector_embeddings rows in the snapshot format read by {@link VectorSnapshotReader}.
+ * <p>
+ * After a header (magic, version, embedding model, then a count and that many entity type and
+ * watermark pairs, see {@link VectorSnapshotHeader}) the file is a sequence of blocks of up to {@value #BLOCK_SIZE}
+ * records, ended by an empty block. Each block holds varint columns (id deltas, entity type,
+ * entity id, chunk index, dimension, created-at), then every vector as raw little-endian float32, then the
+ * chunk text and metadata of the block deflated together. Rows must be written in ascending id order.
+ */
+public class VectorSnapshotWriter implements Closeable {
+
+    static final int MAGIC = 0x56534E50;
+    static final int VERSION = 1;
+    static final int BLOCK_SIZE = 1024;
+
+    private final OutputStream out;
+    private final List<VectorSnapshotRecord> block = new ArrayList<>(BLOCK_SIZE);
+    private final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+
+    private long previousId;
+    private long lastId;
+    private long recordCount;
+
+    public VectorSnapshotWriter(OutputStream out, VectorSnapshotHeader header) throws IOException {
+        this.out = out;
+        ByteBuffer prefix = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        prefix.putInt(MAGIC).putInt(VERSION);
+        out.write(prefix.array());
+
+        writeString(out, header.embeddingModel());
+        // Watermarks before the created-at epoch mean "never indexed" and are left out
+        List<Map.Entry<VectorEmbedding.EntityType, LocalDateTime>> watermarks = header.watermarks().entrySet().stream()
+            .filter(entry -> entry.getValue().isAfter(VectorSnapshotReader.EPOCH))
+            .toList();
+        writeVarint(out, watermarks.size());
+        for (Map.Entry<VectorEmbedding.EntityType, LocalDateTime> watermark : watermarks) {
+            writeVarint(out, watermark.getKey().ordinal());
+            writeVarint(out, ChronoUnit.MICROS.between(VectorSnapshotReader.EPOCH, watermark.getValue()));
+        }
+    }
+
+    public void write(VectorSnapshotRecord record) throws IOException {
+        if (record.id() < lastId) {
+            throw new IllegalArgumentException("Snapshot rows must be in ascending id order");
+        }
+        lastId = record.id();
+        block.add(record);
+        recordCount++;
+        if (block.size() == BLOCK_SIZE) {
+            flushBlock();
+        }
+    }
+
+    public long getRecordCount() {
+        return recordCount;
+    }
+
+    /** Writes the last partial block and the end marker; does not close the underlying stream. */
+    @Override
+    public void close() throws IOException {
+        flushBlock();
+        writeVarint(out, 0);
+        out.flush();
+        deflater.end();
+    }
+
+    private void flushBlock() throws IOException {
+        if (block.isEmpty()) {
+            return;
+        }
+
+        ByteArrayOutputStream columns = new ByteArrayOutputStream(block.size() * 16);
+        writeVarint(columns, block.size());
+        int vectorBytes = 0;
+        for (VectorSnapshotRecord record : block) {
+            int dimensions = record.embedding() != null ? record.embedding().length : 0;
+            writeVarint(columns, record.id() - previousId);
+            previousId = record.id();
+            writeVarint(columns, record.entityType().ordinal());
+            writeVarint(columns, record.entityId());
+            writeVarint(columns, record.chunkIndex());
+            writeVarint(columns, dimensions);
+            writeVarint(columns, record.createdAt() != null
+                ? ChronoUnit.MICROS.between(VectorSnapshotReader.EPOCH, record.createdAt()) + 1 : 0);
+            vectorBytes += dimensions * Float.BYTES;
+        }
+        columns.writeTo(out);
+
+        ByteBuffer vectors = ByteBuffer.allocate(vectorBytes).order(ByteOrder.LITTLE_ENDIAN);
+        for (VectorSnapshotRecord record : block) {
+            if (record.embedding() != null) {
+                vectors.asFloatBuffer().put(record.embedding());
+                vectors.position(vectors.position() + record.embedding().length * Float.BYTES);
+            }
+        }
+        out.write(vectors.array());
+
+        // Text compresses far better across a whole block than row by row
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        for (VectorSnapshotRecord record : block) {
+            writeString(text, record.chunkText());
+            writeString(text, record.metadataJson());
+        }
+        byte[] raw = text.toByteArray();
+        byte[] compressed = deflate(raw);
+        writeVarint(out, raw.length);
+        writeVarint(out, compressed.length);
+        out.write(compressed);
+
+        block.clear();
+    }
+
+    private byte[] deflate(byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(raw.length / 2 + 64);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            int length = deflater.deflate(buffer);
+            compressed.write(buffer, 0, length);
+        }
+        return compressed.toByteArray();
+    }
+
+    /** Strings are written as varint (byte length + 1) then UTF-8, with 0 meaning null */
+    private static void writeString(OutputStream out, String value) throws IOException {
+        if (value == null) {
+            writeVarint(out, 0);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarint(out, bytes.length + 1L);
+        out.write(bytes);
+    }
+
+    static void writeVarint(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
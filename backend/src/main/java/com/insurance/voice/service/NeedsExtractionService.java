@@ -1,8 +1,10 @@
 package com.insurance.voice.service;
 
+import com.insurance.rag.llm.ChatClients;
+import com.insurance.rag.llm.LlmProfile;
+import com.insurance.rag.service.LlmResponseCache;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.ai.chat.client.ChatClient;
 import org.springframework.ai.chat.messages.UserMessage;
 import org.springframework.ai.chat.prompt.Prompt;
 import org.springframework.stereotype.Service;
@@ -10,13 +12,15 @@ import org.springframework.stereotype.Service;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class NeedsExtractionService {
 
-    private final ChatClient.Builder chatClientBuilder;
+    private final ChatClients chatClients;
+    private final LlmResponseCache responseCache;
 
     /**
      * Extract structured needs from a conversation transcript using AI
@@ -27,15 +31,14 @@ public class NeedsExtractionService {
         String extractionPrompt = buildExtractionPrompt(transcript);
 
         try {
-            ChatClient chatClient = chatClientBuilder.build();
-
-            String response = chatClient.prompt()
-                .user(extractionPrompt)
-                .call()
-                .content();
+            // Unchanged transcripts are answered from the cache instead of a new completion
+            String response = responseCache.call(chatClients.get(LlmProfile.NEEDS_EXTRACTION), extractionPrompt);
 
             return parseNeedsResponse(response);
 
+        } catch (RejectedExecutionException e) {
+            log.warn("Needs extraction LLM call rejected, using fallback needs: {}", e.getMessage());
+            return createFallbackNeeds();
         } catch (Exception e) {
             log.error("Error extracting needs from transcript", e);
             return createFallbackNeeds();
@@ -0,0 +1,10 @@
+-- Persistent cache of embeddings keyed by SHA-256 of (model, chunk text)
+CREATE TABLE embedding_cache (
+    content_hash VARCHAR(64) PRIMARY KEY,
+    model VARCHAR(100) NOT NULL,
+    dimensions INTEGER NOT NULL,
+    embedding BYTEA NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_embedding_cache_model ON embedding_cache(model);
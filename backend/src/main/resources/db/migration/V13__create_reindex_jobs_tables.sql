@@ -0,0 +1,25 @@
+-- Background reindex jobs
+CREATE TABLE reindex_jobs (
+    id BIGSERIAL PRIMARY KEY,
+    status VARCHAR(50) NOT NULL CHECK (status IN ('PENDING', 'RUNNING', 'COMPLETED', 'FAILED')),
+    started_at TIMESTAMP,
+    finished_at TIMESTAMP,
+    last_error TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_reindex_jobs_status ON reindex_jobs(status);
+
+-- Per-entity checkpoints for reindex jobs; PENDING items are picked up again on resume
+CREATE TABLE reindex_job_items (
+    id BIGSERIAL PRIMARY KEY,
+    job_id BIGINT NOT NULL REFERENCES reindex_jobs(id) ON DELETE CASCADE,
+    entity_type VARCHAR(50) NOT NULL CHECK (entity_type IN ('PRODUCT', 'DOC_CHUNK')),
+    entity_id BIGINT NOT NULL,
+    status VARCHAR(50) NOT NULL CHECK (status IN ('PENDING', 'DONE', 'FAILED')),
+    error TEXT,
+    completed_at TIMESTAMP
+);
+
+CREATE INDEX idx_reindex_job_items_job_status ON reindex_job_items(job_id, status);
@@ -0,0 +1,9 @@
+-- Last successful incremental index time per entity type
+CREATE TABLE index_watermarks (
+    entity_type VARCHAR(50) PRIMARY KEY CHECK (entity_type IN ('PRODUCT', 'DOC_CHUNK')),
+    last_indexed_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_products_updated_at ON products(updated_at);
+CREATE INDEX idx_product_documents_created_at ON product_documents(created_at);
@@ -0,0 +1,11 @@
+-- flyway:executeInTransaction=false
+-- The ivfflat index was trained on an empty table, so its lists no longer match the data.
+-- HNSW needs no training step and keeps recall stable as the table grows.
+-- Build parameters come from spring.flyway.placeholders (RAG_HNSW_M, RAG_HNSW_EF_CONSTRUCTION).
+-- Both statements run CONCURRENTLY, outside a transaction, so writes to vector_embeddings are not
+-- blocked during the build. A failed build leaves an INVALID idx_vector_embeddings_hnsw behind;
+-- drop it before running the migration again.
+DROP INDEX CONCURRENTLY IF EXISTS idx_vector_embeddings_ivfflat;
+
+CREATE INDEX CONCURRENTLY idx_vector_embeddings_hnsw ON vector_embeddings
+    USING hnsw (embedding vector_cosine_ops) WITH (m = ${hnswM}, ef_construction = ${hnswEfConstruction});
@@ -0,0 +1,18 @@
+-- Quantized expression indexes for the HALF and BINARY quantization modes (pgvector 0.7.0+).
+-- Queries search one of these, over-fetch, and rescore the candidates against the full vector,
+-- so only the compact index has to stay hot in shared buffers.
+-- Each index costs build time and disk on every write, so they are only created when migrating
+-- with RAG_QUANTIZED_INDEXES=true; see DEVELOPER_GUIDE.md to add them to an existing database.
+DO $$
+BEGIN
+    IF '${quantizedIndexes}' = 'true' THEN
+        EXECUTE 'CREATE INDEX IF NOT EXISTS idx_vector_embeddings_hnsw_halfvec ON vector_embeddings '
+            || 'USING hnsw ((embedding::halfvec(1536)) halfvec_cosine_ops) '
+            || 'WITH (m = ${hnswM}, ef_construction = ${hnswEfConstruction})';
+
+        EXECUTE 'CREATE INDEX IF NOT EXISTS idx_vector_embeddings_hnsw_bit ON vector_embeddings '
+            || 'USING hnsw ((binary_quantize(embedding)::bit(1536)) bit_hamming_ops) '
+            || 'WITH (m = ${hnswM}, ef_construction = ${hnswEfConstruction})';
+    END IF;
+END
+$$;
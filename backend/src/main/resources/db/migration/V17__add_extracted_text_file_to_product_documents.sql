@@ -0,0 +1,8 @@
+-- Full extracted text is kept as a UTF-8 file in document storage; extracted_text holds at most
+-- the first 100KB for display. Indexing uses the column only when it is not truncated.
+ALTER TABLE product_documents ADD COLUMN extracted_text_path VARCHAR(500);
+ALTER TABLE product_documents ADD COLUMN extracted_text_truncated BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Tika.parseToString capped text at 100000 characters on its own, so full-length rows are truncated too
+UPDATE product_documents SET extracted_text_truncated = TRUE
+WHERE extracted_text LIKE '%... [truncated]' OR length(extracted_text) >= 100000;
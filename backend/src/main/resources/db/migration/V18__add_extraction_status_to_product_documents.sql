@@ -0,0 +1,13 @@
+-- Text extraction runs asynchronously after upload. Documents that keep exceeding their parse
+-- budget are QUARANTINED and no longer parsed. Incremental indexing follows extraction_finished_at.
+ALTER TABLE product_documents ADD COLUMN extraction_status VARCHAR(20) NOT NULL DEFAULT 'COMPLETED'
+    CHECK (extraction_status IN ('PENDING', 'COMPLETED', 'FAILED', 'QUARANTINED'));
+ALTER TABLE product_documents ADD COLUMN extraction_timeouts INT NOT NULL DEFAULT 0;
+ALTER TABLE product_documents ADD COLUMN extraction_error TEXT;
+ALTER TABLE product_documents ADD COLUMN extraction_finished_at TIMESTAMP;
+
+UPDATE product_documents SET extraction_status = 'FAILED' WHERE extracted_text IS NULL;
+UPDATE product_documents SET extraction_finished_at = created_at;
+
+CREATE INDEX idx_product_documents_extraction_finished_at ON product_documents(extraction_finished_at);
+CREATE INDEX idx_product_documents_extraction_status ON product_documents(extraction_status);
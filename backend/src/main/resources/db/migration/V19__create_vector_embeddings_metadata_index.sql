@@ -0,0 +1,3 @@
+-- Filtered vector search restricts candidates with metadata_json @> '{...}' before ranking.
+-- jsonb_path_ops supports only containment, which is all the filters need, and is smaller than jsonb_ops.
+CREATE INDEX idx_vector_embeddings_metadata ON vector_embeddings USING gin (metadata_json jsonb_path_ops);
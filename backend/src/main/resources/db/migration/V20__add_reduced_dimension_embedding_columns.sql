@@ -0,0 +1,12 @@
+-- Matryoshka-truncated embeddings (the leading dimensions of the model output, re-normalized).
+-- A row stores exactly one of embedding, embedding_512 or embedding_256, chosen by
+-- app.rag.embedding.doc-chunk-dimensions when it is written; only DOC_CHUNK rows are reduced.
+ALTER TABLE vector_embeddings ADD COLUMN embedding_512 vector(512);
+ALTER TABLE vector_embeddings ADD COLUMN embedding_256 vector(256);
+
+-- HNSW skips NULL vectors, so each index only holds the rows stored at its dimension
+CREATE INDEX idx_vector_embeddings_hnsw_512 ON vector_embeddings
+    USING hnsw (embedding_512 vector_cosine_ops) WITH (m = ${hnswM}, ef_construction = ${hnswEfConstruction});
+
+CREATE INDEX idx_vector_embeddings_hnsw_256 ON vector_embeddings
+    USING hnsw (embedding_256 vector_cosine_ops) WITH (m = ${hnswM}, ef_construction = ${hnswEfConstruction});
@@ -0,0 +1,19 @@
+-- Position of each row within its entity, so re-indexing can upsert chunks in place instead of
+-- deleting everything first. Existing rows are numbered in insertion order.
+ALTER TABLE vector_embeddings ADD COLUMN chunk_index INTEGER;
+
+UPDATE vector_embeddings ve
+SET chunk_index = ranked.position
+FROM (
+    SELECT id, ROW_NUMBER() OVER (PARTITION BY entity_type, entity_id ORDER BY id) - 1 AS position
+    FROM vector_embeddings
+) ranked
+WHERE ve.id = ranked.id;
+
+ALTER TABLE vector_embeddings ALTER COLUMN chunk_index SET DEFAULT 0;
+ALTER TABLE vector_embeddings ALTER COLUMN chunk_index SET NOT NULL;
+
+CREATE UNIQUE INDEX uq_vector_embeddings_entity_chunk ON vector_embeddings(entity_type, entity_id, chunk_index);
+
+-- The unique index covers (entity_type, entity_id) lookups
+DROP INDEX IF EXISTS idx_vector_embeddings_entity;
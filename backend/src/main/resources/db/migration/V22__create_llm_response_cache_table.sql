@@ -0,0 +1,16 @@
+-- Persistent cache of LLM completions keyed by SHA-256 of (model, purpose, normalized prompt).
+-- prompt_embedding is only set when near-duplicate matching is enabled.
+CREATE TABLE llm_response_cache (
+    prompt_hash VARCHAR(64) PRIMARY KEY,
+    purpose VARCHAR(50) NOT NULL,
+    model VARCHAR(100) NOT NULL,
+    response TEXT NOT NULL,
+    prompt_embedding vector(1536),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX idx_llm_response_cache_expires_at ON llm_response_cache(expires_at);
+
+CREATE INDEX idx_llm_response_cache_hnsw ON llm_response_cache
+    USING hnsw (prompt_embedding vector_cosine_ops) WITH (m = ${hnswM}, ef_construction = ${hnswEfConstruction});
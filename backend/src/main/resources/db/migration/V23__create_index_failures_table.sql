@@ -0,0 +1,11 @@
+-- Entities that failed incremental indexing; retried on later runs until max attempts, then dead-lettered
+CREATE TABLE index_failures (
+    id BIGSERIAL PRIMARY KEY,
+    entity_type VARCHAR(50) NOT NULL CHECK (entity_type IN ('PRODUCT', 'DOC_CHUNK')),
+    entity_id BIGINT NOT NULL,
+    status VARCHAR(50) NOT NULL CHECK (status IN ('RETRYING', 'DEAD_LETTER')),
+    attempts INT NOT NULL,
+    last_error TEXT,
+    last_attempt_at TIMESTAMP NOT NULL,
+    UNIQUE (entity_type, entity_id)
+);
@@ -0,0 +1,3 @@
+-- At most one PENDING or RUNNING reindex job, so concurrent start requests cannot both create one
+CREATE UNIQUE INDEX uq_reindex_jobs_single_active ON reindex_jobs ((true))
+    WHERE status IN ('PENDING', 'RUNNING');
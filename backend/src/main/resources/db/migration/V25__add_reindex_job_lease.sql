@@ -0,0 +1,4 @@
+-- The instance running a reindex job renews heartbeat_at while it works. Other instances resume
+-- an active job only once its lease has expired, so a job never runs on two instances at once.
+ALTER TABLE reindex_jobs ADD COLUMN claimed_by VARCHAR(255);
+ALTER TABLE reindex_jobs ADD COLUMN heartbeat_at TIMESTAMP;
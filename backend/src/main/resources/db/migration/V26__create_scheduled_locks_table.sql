@@ -0,0 +1,8 @@
+-- Cluster-wide locks for scheduled work: a lock is held until locked_until, which its holder
+-- extends while it runs, so a crashed holder blocks others for at most one lease
+CREATE TABLE scheduled_locks (
+    name VARCHAR(100) PRIMARY KEY,
+    locked_until TIMESTAMP NOT NULL,
+    locked_at TIMESTAMP NOT NULL,
+    locked_by VARCHAR(255) NOT NULL
+);
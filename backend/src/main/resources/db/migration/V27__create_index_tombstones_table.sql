@@ -0,0 +1,30 @@
+-- Deleted products and documents whose embeddings still have to be purged. Rows are written by
+-- triggers, so deletes through cascades (a product's or category's documents) are recorded too,
+-- and incremental indexing reads this small table instead of scanning vector_embeddings.
+CREATE TABLE index_tombstones (
+    id BIGSERIAL PRIMARY KEY,
+    entity_type VARCHAR(50) NOT NULL CHECK (entity_type IN ('PRODUCT', 'DOC_CHUNK')),
+    entity_id BIGINT NOT NULL,
+    deleted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE FUNCTION record_index_tombstone() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO index_tombstones (entity_type, entity_id) VALUES (TG_ARGV[0], OLD.id);
+    RETURN OLD;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_products_index_tombstone
+    AFTER DELETE ON products
+    FOR EACH ROW EXECUTE FUNCTION record_index_tombstone('PRODUCT');
+
+CREATE TRIGGER trg_product_documents_index_tombstone
+    AFTER DELETE ON product_documents
+    FOR EACH ROW EXECUTE FUNCTION record_index_tombstone('DOC_CHUNK');
+
+-- Embeddings already orphaned before this migration
+INSERT INTO index_tombstones (entity_type, entity_id)
+SELECT DISTINCT ve.entity_type, ve.entity_id FROM vector_embeddings ve
+WHERE (ve.entity_type = 'PRODUCT' AND NOT EXISTS (SELECT 1 FROM products p WHERE p.id = ve.entity_id))
+   OR (ve.entity_type = 'DOC_CHUNK' AND NOT EXISTS (SELECT 1 FROM product_documents pd WHERE pd.id = ve.entity_id));
@@ -0,0 +1,17 @@
+-- Bumped on every insert and overwrite, so in-process indexes can tell that rows changed while
+-- ids stay stable across re-indexing. Existing rows start at their id.
+CREATE SEQUENCE vector_embeddings_generation_seq;
+
+ALTER TABLE vector_embeddings ADD COLUMN generation BIGINT;
+
+UPDATE vector_embeddings SET generation = id;
+
+SELECT setval('vector_embeddings_generation_seq', COALESCE((SELECT MAX(id) FROM vector_embeddings), 0) + 1, false);
+
+ALTER TABLE vector_embeddings ALTER COLUMN generation SET DEFAULT nextval('vector_embeddings_generation_seq');
+ALTER TABLE vector_embeddings ALTER COLUMN generation SET NOT NULL;
+
+ALTER SEQUENCE vector_embeddings_generation_seq OWNED BY vector_embeddings.generation;
+
+-- Keeps the per-type max(generation) staleness check an index lookup
+CREATE INDEX idx_vector_embeddings_type_generation ON vector_embeddings(entity_type, generation);
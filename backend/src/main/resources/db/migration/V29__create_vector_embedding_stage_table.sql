@@ -0,0 +1,18 @@
+-- Chunks of an entity being re-indexed, written batch by batch as they are embedded and moved into
+-- vector_embeddings in one transaction once all of them are. Unlogged: after a crash the interrupted
+-- run is simply redone. Rows left behind by a failed run are purged by age.
+CREATE UNLOGGED TABLE vector_embedding_stage (
+    stage_id UUID NOT NULL,
+    entity_type VARCHAR(50) NOT NULL,
+    entity_id BIGINT NOT NULL,
+    chunk_index INTEGER NOT NULL,
+    chunk_text TEXT NOT NULL,
+    embedding vector(1536),
+    embedding_512 vector(512),
+    embedding_256 vector(256),
+    metadata_json JSONB,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    PRIMARY KEY (stage_id, chunk_index)
+);
+
+CREATE INDEX idx_vector_embedding_stage_created_at ON vector_embedding_stage(created_at);
@@ -0,0 +1,157 @@
+package com.insurance.rag.llm;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LlmCallGuardTest {
+
+    private static final Duration LONG = Duration.ofHours(1);
+
+    private static LlmCallGuard guard(int maxConcurrentCalls, int windowSize, int minimumCalls, Duration openDuration) {
+        return new LlmCallGuard(new SimpleMeterRegistry(), maxConcurrentCalls, Duration.ZERO,
+            windowSize, minimumCalls, 0.5, openDuration);
+    }
+
+    private static void succeed(LlmCallGuard guard) {
+        LlmCallGuard.Permit permit = guard.acquire();
+        permit.success();
+        permit.release();
+    }
+
+    private static void fail(LlmCallGuard guard) {
+        LlmCallGuard.Permit permit = guard.acquire();
+        permit.failure();
+        permit.release();
+    }
+
+    @Test
+    void staysClosedBelowMinimumCalls() {
+        LlmCallGuard guard = guard(4, 10, 4, LONG);
+
+        fail(guard);
+        fail(guard);
+        fail(guard);
+
+        assertThat(guard.state()).isEqualTo(LlmCallGuard.State.CLOSED);
+    }
+
+    @Test
+    void opensWhenFailureRateReachesThresholdAndRejectsCalls() {
+        LlmCallGuard guard = guard(4, 4, 4, LONG);
+
+        succeed(guard);
+        succeed(guard);
+        fail(guard);
+        fail(guard);
+
+        assertThat(guard.state()).isEqualTo(LlmCallGuard.State.OPEN);
+        assertThatThrownBy(guard::acquire)
+            .isInstanceOf(RejectedExecutionException.class)
+            .hasMessageContaining("circuit breaker");
+    }
+
+    @Test
+    void oldOutcomesLeaveTheWindow() {
+        LlmCallGuard guard = guard(4, 4, 4, LONG);
+
+        fail(guard);
+        succeed(guard);
+        succeed(guard);
+        succeed(guard);
+        // Pushes the failure out, so one failure in four stays below the threshold
+        fail(guard);
+
+        assertThat(guard.state()).isEqualTo(LlmCallGuard.State.CLOSED);
+    }
+
+    @Test
+    void admitsOneTrialWhenHalfOpenAndClosesOnSuccess() {
+        LlmCallGuard guard = guard(4, 2, 2, Duration.ZERO);
+        fail(guard);
+        fail(guard);
+        assertThat(guard.state()).isEqualTo(LlmCallGuard.State.HALF_OPEN);
+
+        LlmCallGuard.Permit trial = guard.acquire();
+        assertThatThrownBy(guard::acquire).isInstanceOf(RejectedExecutionException.class);
+
+        trial.success();
+        trial.release();
+
+        assertThat(guard.state()).isEqualTo(LlmCallGuard.State.CLOSED);
+        succeed(guard);
+    }
+
+    @Test
+    void failedTrialOpensAgain() throws InterruptedException {
+        Duration openDuration = Duration.ofMillis(200);
+        LlmCallGuard guard = guard(4, 2, 2, openDuration);
+        fail(guard);
+        fail(guard);
+        Thread.sleep(openDuration.toMillis() + 50);
+        assertThat(guard.state()).isEqualTo(LlmCallGuard.State.HALF_OPEN);
+
+        fail(guard);
+
+        assertThat(guard.state()).isEqualTo(LlmCallGuard.State.OPEN);
+        assertThatThrownBy(guard::acquire).isInstanceOf(RejectedExecutionException.class);
+    }
+
+    @Test
+    void releasedTrialWithoutOutcomeLetsAnotherTrialThrough() {
+        LlmCallGuard guard = guard(4, 2, 2, Duration.ZERO);
+        fail(guard);
+        fail(guard);
+
+        LlmCallGuard.Permit cancelled = guard.acquire();
+        cancelled.release();
+
+        LlmCallGuard.Permit trial = guard.acquire();
+        trial.success();
+        assertThat(guard.state()).isEqualTo(LlmCallGuard.State.CLOSED);
+    }
+
+    @Test
+    void releaseWithoutOutcomeIsNotCounted() {
+        LlmCallGuard guard = guard(4, 2, 1, LONG);
+
+        for (int i = 0; i < 5; i++) {
+            guard.acquire().release();
+        }
+
+        assertThat(guard.state()).isEqualTo(LlmCallGuard.State.CLOSED);
+    }
+
+    @Test
+    void bulkheadRejectsCallsBeyondTheLimitUntilASlotIsReleased() {
+        LlmCallGuard guard = guard(1, 10, 10, LONG);
+
+        LlmCallGuard.Permit first = guard.acquire();
+        assertThatThrownBy(guard::acquire)
+            .isInstanceOf(RejectedExecutionException.class)
+            .hasMessageContaining("in flight");
+
+        first.success();
+        first.release();
+        guard.acquire().release();
+    }
+
+    @Test
+    void permitReturnsItsSlotOnlyOnce() {
+        LlmCallGuard guard = guard(1, 10, 10, LONG);
+
+        LlmCallGuard.Permit permit = guard.acquire();
+        permit.success();
+        permit.failure();
+        permit.release();
+
+        LlmCallGuard.Permit next = guard.acquire();
+        assertThatThrownBy(guard::acquire).isInstanceOf(RejectedExecutionException.class);
+        next.release();
+    }
+}
@@ -0,0 +1,120 @@
+package com.insurance.rag.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MaximalMarginalRelevanceTest {
+
+    /** Not a multiple of eight, so the dot product's remainder loop is exercised too */
+    private static final int DIMENSIONS = 10;
+
+    @Test
+    void lambdaOneRanksByRelevanceAlone() {
+        float[] vectors = pack(unit(0), unit(0), unit(1), unit(2));
+        double[] relevance = {0.2, 0.9, 0.5, 0.7};
+
+        int[] selected = MaximalMarginalRelevance.select(vectors, DIMENSIONS, relevance, 1.0, 4);
+
+        assertThat(selected).containsExactly(1, 3, 2, 0);
+    }
+
+    @Test
+    void nearDuplicateIsPickedAfterAMoreNovelCandidate() {
+        float[] duplicate = unit(0);
+        duplicate[1] = 0.05f;
+        float[] vectors = pack(unit(0), normalize(duplicate), unit(1));
+        double[] relevance = {0.9, 0.89, 0.5};
+
+        int[] selected = MaximalMarginalRelevance.select(vectors, DIMENSIONS, relevance, 0.5, 3);
+
+        assertThat(selected).containsExactly(0, 2, 1);
+    }
+
+    @Test
+    void firstPickIsTheMostRelevantWhateverLambda() {
+        float[] vectors = pack(unit(0), unit(1), unit(2));
+        double[] relevance = {0.3, 0.8, 0.6};
+
+        int[] selected = MaximalMarginalRelevance.select(vectors, DIMENSIONS, relevance, 0.1, 1);
+
+        assertThat(selected).containsExactly(1);
+    }
+
+    @Test
+    void redundancyIsTheHighestSimilarityToAnyPick() {
+        // 2 duplicates the second pick rather than the first, and must still be penalized for it
+        float[] vectors = pack(unit(0), unit(1), unit(1), unit(3));
+        double[] relevance = {0.9, 0.8, 0.79, 0.3};
+
+        int[] selected = MaximalMarginalRelevance.select(vectors, DIMENSIONS, relevance, 0.5, 4);
+
+        assertThat(selected).containsExactly(0, 1, 3, 2);
+    }
+
+    @Test
+    void returnsEveryCandidateOnceWhenKExceedsThem() {
+        Random random = new Random(42);
+        int n = 25;
+        float[][] rows = new float[n][];
+        double[] relevance = new double[n];
+        for (int i = 0; i < n; i++) {
+            float[] row = new float[DIMENSIONS];
+            for (int d = 0; d < DIMENSIONS; d++) {
+                row[d] = (float) random.nextGaussian();
+            }
+            rows[i] = normalize(row);
+            relevance[i] = random.nextDouble();
+        }
+
+        int[] selected = MaximalMarginalRelevance.select(pack(rows), DIMENSIONS, relevance, 0.7, 100);
+
+        int[] sorted = selected.clone();
+        Arrays.sort(sorted);
+        assertThat(sorted).containsExactly(IntStream.range(0, n).toArray());
+    }
+
+    @Test
+    void emptyCandidatesGiveNoPicks() {
+        assertThat(MaximalMarginalRelevance.select(new float[0], DIMENSIONS, new double[0], 0.5, 5)).isEmpty();
+    }
+
+    @Test
+    void rejectsVectorsThatDoNotMatchTheCandidates() {
+        float[] vectors = pack(unit(0), unit(1));
+
+        assertThatThrownBy(() -> MaximalMarginalRelevance.select(vectors, DIMENSIONS, new double[3], 0.5, 2))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static float[] unit(int axis) {
+        float[] vector = new float[DIMENSIONS];
+        vector[axis] = 1f;
+        return vector;
+    }
+
+    private static float[] normalize(float[] vector) {
+        double norm = 0;
+        for (float value : vector) {
+            norm += value * value;
+        }
+        norm = Math.sqrt(norm);
+        for (int i = 0; i < vector.length; i++) {
+            vector[i] = (float) (vector[i] / norm);
+        }
+        return vector;
+    }
+
+    private static float[] pack(float[]... rows) {
+        float[] packed = new float[rows.length * DIMENSIONS];
+        for (int i = 0; i < rows.length; i++) {
+            System.arraycopy(rows[i], 0, packed, i * DIMENSIONS, DIMENSIONS);
+        }
+        return packed;
+    }
+}
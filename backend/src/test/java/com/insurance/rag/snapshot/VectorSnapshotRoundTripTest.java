@@ -0,0 +1,145 @@
+package com.insurance.rag.snapshot;
+
+import com.insurance.common.entity.VectorEmbedding;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class VectorSnapshotRoundTripTest {
+
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2026, 3, 14, 9, 26, 53, 589_793_000);
+
+    @Test
+    void recordsAndHeaderSurviveARoundTrip() throws IOException {
+        VectorSnapshotHeader header = new VectorSnapshotHeader("text-embedding-3-small", Map.of(
+            VectorEmbedding.EntityType.PRODUCT, LocalDateTime.of(2026, 10, 1, 12, 0, 0, 123_456_000),
+            VectorEmbedding.EntityType.DOC_CHUNK, LocalDateTime.of(2026, 10, 2, 8, 30)
+        ));
+        // More than one block, with gaps in the ids
+        List<VectorSnapshotRecord> records = new ArrayList<>();
+        for (int i = 0; i < VectorSnapshotWriter.BLOCK_SIZE + 300; i++) {
+            records.add(record(10L + i * 3L, i));
+        }
+
+        byte[] snapshot = write(header, records);
+
+        try (VectorSnapshotReader reader = new VectorSnapshotReader(new ByteArrayInputStream(snapshot))) {
+            assertThat(reader.header()).isEqualTo(header);
+            for (VectorSnapshotRecord expected : records) {
+                assertSameRecord(reader.next(), expected);
+            }
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    void keepsNullsAndNonAsciiText() throws IOException {
+        List<VectorSnapshotRecord> records = List.of(
+            new VectorSnapshotRecord(1, VectorEmbedding.EntityType.PRODUCT, 7, 0, null, null, null, null),
+            new VectorSnapshotRecord(2, VectorEmbedding.EntityType.DOC_CHUNK, 8, 3,
+                "Prämie für Zahnärzte – 医療保険", new float[] {0.25f, -1.5f, Float.MIN_VALUE},
+                "{\"productId\": 8}", CREATED_AT)
+        );
+
+        byte[] snapshot = write(new VectorSnapshotHeader(null, Map.of()), records);
+
+        try (VectorSnapshotReader reader = new VectorSnapshotReader(new ByteArrayInputStream(snapshot))) {
+            assertThat(reader.header().embeddingModel()).isNull();
+            assertThat(reader.header().watermarks()).isEmpty();
+            assertSameRecord(reader.next(), records.get(0));
+            assertSameRecord(reader.next(), records.get(1));
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    void leavesOutWatermarksThatWereNeverSet() throws IOException {
+        VectorSnapshotHeader header = new VectorSnapshotHeader("model", Map.of(
+            VectorEmbedding.EntityType.PRODUCT, LocalDateTime.of(1970, 1, 1, 0, 0)
+        ));
+
+        byte[] snapshot = write(header, List.of());
+
+        try (VectorSnapshotReader reader = new VectorSnapshotReader(new ByteArrayInputStream(snapshot))) {
+            assertThat(reader.header().watermarks()).isEmpty();
+            assertThat(reader.next()).isNull();
+        }
+    }
+
+    @Test
+    void rejectsRowsOutOfIdOrder() throws IOException {
+        VectorSnapshotWriter writer = new VectorSnapshotWriter(new ByteArrayOutputStream(), new VectorSnapshotHeader(null, Map.of()));
+        writer.write(record(5, 0));
+
+        assertThatThrownBy(() -> writer.write(record(4, 1))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsOtherFiles() {
+        byte[] notASnapshot = "PGCOPY\n\377\r\n\0 and more".getBytes();
+
+        assertThatThrownBy(() -> new VectorSnapshotReader(new ByteArrayInputStream(notASnapshot)))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("Not a vector snapshot");
+    }
+
+    @Test
+    void rejectsOtherFormatVersions() throws IOException {
+        byte[] snapshot = write(new VectorSnapshotHeader("model", Map.of()), List.of());
+        snapshot[4] = (byte) (VectorSnapshotWriter.VERSION + 1);
+
+        assertThatThrownBy(() -> new VectorSnapshotReader(new ByteArrayInputStream(snapshot)))
+            .isInstanceOf(IOException.class)
+            .hasMessageContaining("Unsupported vector snapshot version");
+    }
+
+    private static byte[] write(VectorSnapshotHeader header, List<VectorSnapshotRecord> records) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        VectorSnapshotWriter writer = new VectorSnapshotWriter(out, header);
+        for (VectorSnapshotRecord record : records) {
+            writer.write(record);
+        }
+        writer.close();
+        assertThat(writer.getRecordCount()).isEqualTo(records.size());
+        return out.toByteArray();
+    }
+
+    private static VectorSnapshotRecord record(long id, int i) {
+        // Reduced DOC_CHUNK vectors are stored at their own dimension
+        float[] embedding = new float[i % 2 == 0 ? 8 : 4];
+        for (int d = 0; d < embedding.length; d++) {
+            embedding[d] = (float) Math.sin(id * 31 + d);
+        }
+        return new VectorSnapshotRecord(
+            id,
+            i % 2 == 0 ? VectorEmbedding.EntityType.PRODUCT : VectorEmbedding.EntityType.DOC_CHUNK,
+            1000L + i / 4,
+            i % 4,
+            "Chunk " + i + " of the policy wording",
+            embedding,
+            "{\"chunkIndex\": " + (i % 4) + "}",
+            CREATED_AT.plusSeconds(i)
+        );
+    }
+
+    private static void assertSameRecord(VectorSnapshotRecord actual, VectorSnapshotRecord expected) {
+        assertThat(actual).isNotNull();
+        assertThat(actual.id()).isEqualTo(expected.id());
+        assertThat(actual.entityType()).isEqualTo(expected.entityType());
+        assertThat(actual.entityId()).isEqualTo(expected.entityId());
+        assertThat(actual.chunkIndex()).isEqualTo(expected.chunkIndex());
+        assertThat(actual.chunkText()).isEqualTo(expected.chunkText());
+        assertThat(actual.embedding()).isEqualTo(expected.embedding());
+        assertThat(actual.metadataJson()).isEqualTo(expected.metadataJson());
+        assertThat(actual.createdAt()).isEqualTo(expected.createdAt());
+    }
+}
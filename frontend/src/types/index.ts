@@ -263,6 +263,7 @@ export interface ProductDocument {
   fileSize?: number;
   contentType?: string;
   extractedText?: string;
+  extractionStatus?: 'PENDING' | 'COMPLETED' | 'FAILED' | 'QUARANTINED';
   createdAt: string;
 }
 